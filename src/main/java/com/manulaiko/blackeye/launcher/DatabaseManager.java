@@ -0,0 +1,230 @@
+package com.manulaiko.blackeye.launcher;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.manulaiko.blackeye.simulator.ILoader;
+
+import com.manulaiko.tabitha.Console;
+
+/**
+ * Database Manager
+ *
+ * Runs the database queries of the network threads in its own threads,
+ * so a slow query doesn't stall the connection that asked for it.
+ *
+ * Loads are submitted with `supply`, that returns a future completed
+ * with the loaded object once the query finishes:
+ *
+ *     GameManager.accounts.getByIDAsync(id).whenComplete((account, e) -> {
+ *         // Runs on a database thread, or right away if the account is in memory
+ *     });
+ *
+ * Submitted loads wait in a queue of `database.executor_queue` loads.
+ * If MySQL is too slow and the queue is full, new loads are rejected:
+ * their future completes with a `RejectedExecutionException` so the
+ * packet is answered with an error instead of waiting forever.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.blackeye.launcher
+ */
+public class DatabaseManager
+{
+    /**
+     * Default max amount of queued loads
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    /**
+     * Database threads
+     */
+    private static ThreadPoolExecutor _executor;
+
+    /**
+     * Amount of submitted loads
+     */
+    private static AtomicLong _submitted = new AtomicLong();
+
+    /**
+     * Amount of finished loads
+     */
+    private static AtomicLong _completed = new AtomicLong();
+
+    /**
+     * Amount of rejected loads
+     */
+    private static AtomicLong _rejected = new AtomicLong();
+
+    /**
+     * Time in milliseconds of all finished loads, since they were submitted
+     */
+    private static AtomicLong _totalLatency = new AtomicLong();
+
+    /**
+     * Time in milliseconds of the slowest load, since it was submitted
+     */
+    private static volatile long _maxLatency = 0;
+
+    /**
+     * Starts the database threads
+     *
+     * The amount of threads is read from `database.executor_threads`
+     * (by default, one for each connection of the pool) and the queue
+     * size from `database.executor_queue`.
+     */
+    public static synchronized void start()
+    {
+        if(DatabaseManager._executor != null) {
+            return;
+        }
+
+        int threads = Main.configuration.getInt("database.executor_threads", Main.configuration.getInt("database.pool_max_size", 1));
+        int queue   = Main.configuration.getInt("database.executor_queue", DatabaseManager.DEFAULT_QUEUE_SIZE);
+
+        AtomicInteger count = new AtomicInteger();
+
+        DatabaseManager._executor = new ThreadPoolExecutor(
+                Math.max(1, threads),
+                Math.max(1, threads),
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queue)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "Database-"+ count.incrementAndGet());
+                    thread.setDaemon(true);
+
+                    return thread;
+                }
+        );
+    }
+
+    /**
+     * Stops the database threads
+     *
+     * Queued loads are still finished.
+     */
+    public static synchronized void stop()
+    {
+        if(DatabaseManager._executor == null) {
+            return;
+        }
+
+        DatabaseManager._executor.shutdown();
+        DatabaseManager._executor = null;
+    }
+
+    /**
+     * Runs a load in a database thread
+     *
+     * If the database threads aren't started, the load runs right away
+     * in the calling thread.
+     *
+     * @param loader Load to run
+     *
+     * @return Future completed with the loaded object, or with the
+     *         exception of the load
+     */
+    public static <T> CompletableFuture<T> supply(ILoader<T> loader)
+    {
+        CompletableFuture<T> future   = new CompletableFuture<>();
+        ThreadPoolExecutor   executor = DatabaseManager._executor;
+
+        if(executor == null) {
+            return DatabaseManager.complete(loader);
+        }
+
+        long start = System.currentTimeMillis();
+
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(loader.load());
+                } catch(Throwable e) {
+                    future.completeExceptionally(e);
+                }
+
+                long latency = System.currentTimeMillis() - start;
+
+                DatabaseManager._completed.incrementAndGet();
+                DatabaseManager._totalLatency.addAndGet(latency);
+                if(latency > DatabaseManager._maxLatency) {
+                    DatabaseManager._maxLatency = latency;
+                }
+            });
+
+            DatabaseManager._submitted.incrementAndGet();
+        } catch(RejectedExecutionException e) {
+            DatabaseManager._rejected.incrementAndGet();
+            Console.warning("Database queue is full, load rejected!");
+
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Runs a load in the calling thread
+     *
+     * Used when the object is already in memory, so there's no need to
+     * wait for a database thread.
+     *
+     * @param loader Load to run
+     *
+     * @return Completed future
+     */
+    public static <T> CompletableFuture<T> complete(ILoader<T> loader)
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        try {
+            future.complete(loader.load());
+        } catch(Throwable e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Returns the amount of queued loads
+     *
+     * @return Loads waiting for a database thread
+     */
+    public static int getQueueDepth()
+    {
+        ThreadPoolExecutor executor = DatabaseManager._executor;
+
+        return (executor == null) ? 0 : executor.getQueue().size();
+    }
+
+    /**
+     * Prints the status of the database threads
+     */
+    public static void showStatus()
+    {
+        ThreadPoolExecutor executor  = DatabaseManager._executor;
+        long               completed = DatabaseManager._completed.get();
+        long               average   = (completed == 0) ? 0 : DatabaseManager._totalLatency.get() / completed;
+
+        if(executor == null) {
+            Console.println("Database threads aren't started, loads run in the network threads.");
+        } else {
+            Console.println(
+                executor.getActiveCount() +" of "+ executor.getMaximumPoolSize() +" database threads busy, "+
+                executor.getQueue().size() +" queued loads ("+ executor.getQueue().remainingCapacity() +" free)."
+            );
+        }
+        Console.println(
+            DatabaseManager._submitted.get() +" submitted, "+ completed +" finished, "+
+            DatabaseManager._rejected.get() +" rejected loads."
+        );
+        Console.println("Load latency: "+ average +"ms average, "+ DatabaseManager._maxLatency +"ms max.");
+    }
+}
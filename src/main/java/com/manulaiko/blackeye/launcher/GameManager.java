@@ -1,6 +1,22 @@
 package com.manulaiko.blackeye.launcher;
 
+import java.io.File;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import java.sql.SQLException;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntSupplier;
+import java.util.zip.CRC32;
+
 import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.database.Snapshot;
 
 /**
  * Game Manager
@@ -13,6 +29,21 @@ import com.manulaiko.tabitha.Console;
  */
 public class GameManager
 {
+    /**
+     * Version of the static data snapshot
+     *
+     * Must be increased when the builders read the static tables
+     * differently, so old snapshots aren't used.
+     */
+    public static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * Tables stored in the static data snapshot
+     */
+    private static final String[] _staticTables = {
+        "items", "levels", "ships", "npcs", "maps_portals", "collectables", "maps"
+    };
+
     ///////////////////////////
     // Start Collection Maps //
     ///////////////////////////
@@ -72,77 +103,328 @@ public class GameManager
      *
      * Necessary tables:
      *  * items
+     *  * levels
      *  * ships
+     *  * npcs
+     *  * portals
+     *  * collectables
      *  * maps
      *
      * Additional tables:
      *  * accounts
-     *  * npcs
      *  * clans
-     *  * collectables
+     *
+     * Tables are loaded in stages, the tables of a stage are loaded in
+     * parallel and only depend on the tables of the previous stages:
+     *
+     *  1. items, levels, ships, npcs, portals, collectables and clans
+     *  2. maps, which are built with their npcs, portals and collectables
+     *  3. accounts, which are built with their hangars, levels and clans
+     *
+     * The time of each table and stage is printed, and the total time is
+     * compared with `core.startup_budget` (in milliseconds).
+     *
+     * If `core.snapshot_file` is set, the static tables (all necessary
+     * tables) are loaded from that file when the checksum of the schema
+     * and rows of the tables matches the one it was written with. Otherwise they're
+     * loaded from the database and the snapshot is written again in
+     * background.
      *
      * @return True if all data loaded successfully, false if not.
      */
     public static boolean initialize()
     {
+        return GameManager.initialize(true);
+    }
+
+    /**
+     * Loads database data.
+     *
+     * @param useSnapshot Whether the static data snapshot can be used or not,
+     *                    if not, it's written again from the database
+     *
+     * @return True if all data loaded successfully, false if not.
+     */
+    public static boolean initialize(boolean useSnapshot)
+    {
+        long start = System.currentTimeMillis();
+
+        String   path     = Main.configuration.getString("core.snapshot_file", "");
+        long     checksum = 0;
+        Snapshot snapshot = null;
+
+        if(!path.isEmpty()) {
+            try {
+                checksum = GameManager._checksum();
+
+                if(useSnapshot) {
+                    snapshot = Snapshot.open(new File(path), checksum);
+                }
+            } catch(SQLException e) {
+                Console.warning("Couldn't read the checksum of the static tables: {}", e.getMessage());
+
+                path = "";
+            }
+        }
+
+        GameManager.accounts.setCapacity(Main.configuration.getInt("core.accounts_cache_size", com.manulaiko.blackeye.simulator.account.Factory.DEFAULT_CAPACITY));
+
+        ArrayList<String> additional = new ArrayList<>();
+        for(String data : Main.configuration.getString("core.load_additional_data").split(" ")) {
+            additional.add(data.toLowerCase());
+        }
+
+        ArrayList<Table> independent = new ArrayList<>();
+        ArrayList<Table> maps        = new ArrayList<>();
+
+        if(snapshot != null) {
+            Snapshot s = snapshot;
+
+            Console.println("Loading static data from snapshot "+ path +"...");
+
+            independent.add(new Table("items", () -> GameManager.items.loadAll(s), GameManager.items::getAmount));
+            independent.add(new Table("levels", () -> GameManager.levels.loadAll(s), GameManager.levels::getAmount));
+            independent.add(new Table("ships", () -> GameManager.ships.loadAll(s), GameManager.ships::getAmount));
+            independent.add(new Table("NPCs", () -> GameManager.npcs.loadAll(s), GameManager.npcs::getAmount));
+            independent.add(new Table("portals", () -> GameManager.portals.loadAll(s), GameManager.portals::getAmount));
+            independent.add(new Table("collectables", () -> GameManager.collectables.loadAll(s), GameManager.collectables::getAmount));
+
+            maps.add(new Table("maps", () -> GameManager.maps.loadAll(s), GameManager.maps::getAmount));
+        } else {
+            independent.add(new Table("items", GameManager.items::loadAll, GameManager.items::getAmount));
+            independent.add(new Table("levels", GameManager.levels::loadAll, GameManager.levels::getAmount));
+            independent.add(new Table("ships", GameManager.ships::loadAll, GameManager.ships::getAmount));
+            independent.add(new Table("NPCs", GameManager.npcs::loadAll, GameManager.npcs::getAmount));
+            independent.add(new Table("portals", GameManager.portals::loadAll, GameManager.portals::getAmount));
+            independent.add(new Table("collectables", GameManager.collectables::loadAll, GameManager.collectables::getAmount));
+
+            maps.add(new Table("maps", GameManager.maps::loadAll, GameManager.maps::getAmount));
+        }
+
+        if(additional.contains("clans")) {
+            independent.add(new Table("clans", GameManager.clans::loadAll, GameManager.clans::getAmount));
+        }
+
+        ArrayList<Table> accounts = new ArrayList<>();
+        if(additional.contains("accounts")) {
+            accounts.add(new Table("accounts", GameManager.accounts::loadAll, GameManager.accounts::getAmount));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(independent.size(), runnable -> {
+            Thread thread = new Thread(runnable, "GameManager-Loader");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
         try {
             Console.println("Loading database...");
             Console.println(Console.LINE_MINUS);
 
-            Console.println("Loading data: Items...");
-            GameManager.items.loadAll();
-            Console.println(GameManager.items.getAmount() +" items loaded!");
-
-            Console.println("Loading data: Levels...");
-            GameManager.levels.loadAll();
-            Console.println(GameManager.levels.getAmount() +" levels loaded!");
-
-            Console.println("Loading data: Ships...");
-            GameManager.ships.loadAll();
-            Console.println(GameManager.ships.getAmount() +" ships loaded!");
-
-            Console.println("Loading data: NPCs...");
-            GameManager.npcs.loadAll();
-            Console.println(GameManager.npcs.getAmount() + " NPCs loaded!");
-
-            Console.println("Loading data: Portals...");
-            GameManager.portals.loadAll();
-            Console.println(GameManager.portals.getAmount() + " Portals loaded!");
-
-            Console.println("Loading data: Collectables...");
-            GameManager.collectables.loadAll();
-            Console.println(GameManager.collectables.getAmount() +" collectables loaded!");
-
-            Console.println("Loading data: Maps...");
-            GameManager.maps.loadAll();
-            Console.println(GameManager.maps.getAmount() +" maps loaded!");
-
-            //Load additional data from configuration file
-            String[] additional = Main.configuration.getString("core.load_additional_data")
-                                                    .split(" ");
-            for(String data : additional) {
-                if(data.equalsIgnoreCase("accounts")) {
-                    Console.println("Loading additional data: Accounts...");
-                    GameManager.accounts.loadAll();
-                    Console.println(GameManager.accounts.getAmount() +" accounts loaded!");
-                } else if(data.equalsIgnoreCase("clans")) {
-                    Console.println("Loading additional data: Clans...");
-                    GameManager.clans.loadAll();
-                    Console.println(GameManager.clans.getAmount() +" clans loaded!");
-                }
-            }
+            GameManager._loadStage(executor, 1, independent);
+            GameManager._loadStage(executor, 2, maps);
+            GameManager._loadStage(executor, 3, accounts);
         } catch(Exception e) {
+            Console.println("Couldn't load database: "+ e.getMessage());
+
             return false;
+        } finally {
+            executor.shutdown();
+        }
+
+        long time   = System.currentTimeMillis() - start;
+        int  budget = Main.configuration.getInt("core.startup_budget", 60000);
+
+        Console.println(Console.LINE_MINUS);
+        Console.println("Database loaded in "+ time +"ms (budget: "+ budget +"ms).");
+        if(budget > 0 && time > budget) {
+            Console.warning("Database loading exceeded the startup budget by {}ms!", time - budget);
+        }
+
+        if(!path.isEmpty() && snapshot == null) {
+            GameManager._writeSnapshot(new File(path), checksum);
         }
 
         return true;
     }
 
+    /**
+     * Writes the static data snapshot in background
+     *
+     * @param file     Snapshot file
+     * @param checksum Checksum of the static tables
+     */
+    private static void _writeSnapshot(File file, long checksum)
+    {
+        Thread thread = new Thread(() -> {
+            long start = System.currentTimeMillis();
+
+            try {
+                Snapshot.write(file, checksum, Main.mysqlManager, GameManager._staticTables);
+
+                Console.println("Static data snapshot written to "+ file.getPath() +" in "+ (System.currentTimeMillis() - start) +"ms!");
+            } catch(Exception e) {
+                Console.warning("Couldn't write static data snapshot: {}", e.getMessage());
+            }
+        }, "GameManager-Snapshot");
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the checksum of the static tables
+     *
+     * It's calculated with the names and types of the columns of each
+     * table, the checksum of their rows (`CHECKSUM TABLE`) and
+     * `SNAPSHOT_VERSION`, so a snapshot isn't used once the tables, their
+     * rows or the way they're read change.
+     *
+     * @return Checksum
+     *
+     * @throws SQLException If the schema or the rows couldn't be read
+     */
+    private static long _checksum() throws SQLException
+    {
+        CRC32 crc = new CRC32();
+        // `update(int)` only takes the lowest byte, so all 4 are passed
+        crc.update(ByteBuffer.allocate(4).putInt(GameManager.SNAPSHOT_VERSION).array());
+
+        StringBuilder tables = new StringBuilder();
+        for(String table : GameManager._staticTables) {
+            tables.append((tables.length() == 0) ? "?" : ", ?");
+        }
+
+        Main.mysqlManager.forEach(
+            "SELECT `TABLE_NAME`, `COLUMN_NAME`, `COLUMN_TYPE` FROM `information_schema`.`COLUMNS` " +
+            "WHERE `TABLE_SCHEMA`=DATABASE() AND `TABLE_NAME` IN ("+ tables +") ORDER BY `TABLE_NAME`, `ORDINAL_POSITION`",
+            result -> {
+                String column = result.getString("TABLE_NAME") +"."+ result.getString("COLUMN_NAME") +":"+ result.getString("COLUMN_TYPE") +";";
+
+                crc.update(column.getBytes(StandardCharsets.UTF_8));
+            },
+            (Object[])GameManager._staticTables
+        );
+
+        StringBuilder names = new StringBuilder();
+        for(String table : GameManager._staticTables) {
+            names.append((names.length() == 0) ? "`" : ", `").append(table).append("`");
+        }
+
+        Main.mysqlManager.forEach("CHECKSUM TABLE "+ names, result -> {
+            String rows = result.getString("Table") +":"+ result.getString("Checksum") +";";
+
+            crc.update(rows.getBytes(StandardCharsets.UTF_8));
+        });
+
+        return crc.getValue();
+    }
+
+    /**
+     * Loads the tables of a stage in parallel
+     *
+     * Returns once all tables are loaded.
+     *
+     * @param executor Executor that loads the tables
+     * @param stage    Stage number
+     * @param tables   Tables to load
+     *
+     * @throws Exception If a table couldn't be loaded
+     */
+    private static void _loadStage(ExecutorService executor, int stage, ArrayList<Table> tables) throws Exception
+    {
+        if(tables.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+
+        StringBuilder names = new StringBuilder();
+        for(Table table : tables) {
+            if(names.length() > 0) {
+                names.append(", ");
+            }
+
+            names.append(table.name);
+        }
+        Console.println("Loading stage "+ stage +": "+ names +"...");
+
+        ArrayList<Future<?>> loads = new ArrayList<>();
+        for(Table table : tables) {
+            loads.add(executor.submit(() -> {
+                long tableStart = System.currentTimeMillis();
+
+                table.load.run();
+
+                Console.println(table.amount.getAsInt() +" "+ table.name +" loaded in "+ (System.currentTimeMillis() - tableStart) +"ms!");
+            }));
+        }
+
+        try {
+            for(Future<?> load : loads) {
+                load.get();
+            }
+        } catch(ExecutionException e) {
+            throw new Exception("Couldn't load stage "+ stage +": "+ e.getCause().getMessage(), e.getCause());
+        }
+
+        Console.println("Stage "+ stage +" loaded in "+ (System.currentTimeMillis() - start) +"ms!");
+    }
+
     /**
      * Updates database's tables
+     *
+     * Writes the dirty objects of {@see com.manulaiko.blackeye.launcher.PersistenceManager}
+     * and returns once they're written.
      */
     public static void save()
     {
-        Console.println("TODO, complete the GameManager.save method");
+        long start = System.currentTimeMillis();
+        int  depth = PersistenceManager.getQueueDepth();
+
+        if(PersistenceManager.flush()) {
+            Console.println(depth +" objects saved in "+ (System.currentTimeMillis() - start) +"ms!");
+        } else {
+            Console.println("Couldn't save all objects, they'll be saved on the next flush.");
+        }
+    }
+
+    /**
+     * Table loaded on startup
+     *
+     * @author Manulaiko <manulaiko@gmail.com>
+     *
+     * @package com.manulaiko.blackeye.launcher
+     */
+    private static class Table
+    {
+        /**
+         * Name printed in the log
+         */
+        public String name;
+
+        /**
+         * Loads the table
+         */
+        public Runnable load;
+
+        /**
+         * Returns the amount of loaded rows
+         */
+        public IntSupplier amount;
+
+        /**
+         * Constructor
+         *
+         * @param name   Name printed in the log
+         * @param load   Loads the table
+         * @param amount Returns the amount of loaded rows
+         */
+        public Table(String name, Runnable load, IntSupplier amount)
+        {
+            this.name   = name;
+            this.load   = load;
+            this.amount = amount;
+        }
     }
 }
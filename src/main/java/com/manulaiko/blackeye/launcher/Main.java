@@ -70,6 +70,7 @@ public class Main
             System.exit(0);
         }
         Console.println("Connected to MySQL server!");
+        DatabaseManager.start();
         Console.println(Console.LINE_EQ+"\n");
 
         //Initialize GameManager
@@ -83,6 +84,9 @@ public class Main
         Console.println("GameManager initialized!");
         Console.println(Console.LINE_EQ+"\n");
 
+        PersistenceManager.start();
+        SimulationManager.start();
+
         Console.println("Finished bootstrapping BlackEye!");
         Console.println(Console.LINE_EQ+"\n");
 
@@ -96,6 +100,7 @@ public class Main
         cp.addCommand(new com.manulaiko.blackeye.launcher.commands.ReinitializeGameManagerCommand());
         cp.addCommand(new com.manulaiko.blackeye.launcher.commands.ExitCommand());
         cp.addCommand(new com.manulaiko.blackeye.launcher.commands.SaveCommand());
+        cp.addCommand(new com.manulaiko.blackeye.launcher.commands.RebalanceCommand());
 
         cp.start();
     }
@@ -110,6 +115,8 @@ public class Main
         try {
             Main.configuration = Configuration.loadIni("config.ini");
 
+            Console.setLevel(Console.parseLevel(Main.configuration.getString("core.log_level", "info")));
+
             return true;
         } catch(Exception e) {
             Console.println(e.getMessage());
@@ -125,14 +132,32 @@ public class Main
      */
     private static boolean _connectToDatabase()
     {
+        int minSize = Main.configuration.getInt("database.pool_min_size", 1);
+        int maxSize = Main.configuration.getInt("database.pool_max_size", 1);
+
         try {
-            Main.mysqlManager = new Connection(
-                    Main.configuration.getString("database.host"),
-                    Main.configuration.getShort("database.port"),
-                    Main.configuration.getString("database.username"),
-                    Main.configuration.getString("database.password"),
-                    Main.configuration.getString("database.name")
-            );
+            if(maxSize > 1) {
+                Main.mysqlManager = new Connection(
+                        Main.configuration.getString("database.host"),
+                        Main.configuration.getShort("database.port"),
+                        Main.configuration.getString("database.username"),
+                        Main.configuration.getString("database.password"),
+                        Main.configuration.getString("database.name"),
+                        minSize,
+                        maxSize
+                );
+                Main.mysqlManager.setLeakDetectionThreshold(Main.configuration.getInt("database.leak_detection_threshold", 60000));
+            } else {
+                Main.mysqlManager = new Connection(
+                        Main.configuration.getString("database.host"),
+                        Main.configuration.getShort("database.port"),
+                        Main.configuration.getString("database.username"),
+                        Main.configuration.getString("database.password"),
+                        Main.configuration.getString("database.name")
+                );
+            }
+
+            Main.mysqlManager.setFetchSize(Main.configuration.getInt("database.fetch_size", 1000));
 
             return true;
         } catch(ConnectionFailed e) {
@@ -0,0 +1,527 @@
+package com.manulaiko.blackeye.launcher;
+
+import java.sql.SQLException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import com.manulaiko.blackeye.simulator.Persistable;
+import com.manulaiko.blackeye.simulator.account.Account;
+import com.manulaiko.blackeye.simulator.account.equipment.hangar.Hangar;
+import com.manulaiko.blackeye.simulator.account.equipment.ship.Ship;
+import com.manulaiko.blackeye.simulator.clan.Clan;
+
+import com.manulaiko.tabitha.Console;
+
+/**
+ * Persistence Manager
+ *
+ * Saves the changed accounts, hangars, equipment ships and clans to the
+ * database in background.
+ *
+ * Instead of updating the database each time an object changes, its
+ * setters mark the changed fields as dirty and queue it here (see
+ * {@see com.manulaiko.blackeye.simulator.Persistable}):
+ *
+ *     a.setFactionsID(factionID);
+ *
+ * Dirty objects are kept by id, so an object changed many times before
+ * a flush is only updated once, and only the columns of its dirty
+ * fields are written. Each `core.save_interval` milliseconds the dirty
+ * objects of each table are written with batched `UPDATE` queries of
+ * up to `BATCH_SIZE` rows. The `save` and `exit` commands flush them
+ * right away.
+ *
+ * If a batch fails the fields of its objects are marked as dirty
+ * again, so they're written on the next flush.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.blackeye.launcher
+ */
+public class PersistenceManager
+{
+    /**
+     * Default time in milliseconds between flushes
+     */
+    public static final int DEFAULT_INTERVAL = 10000;
+
+    /**
+     * Max amount of rows updated with a single batch
+     */
+    public static final int BATCH_SIZE = 500;
+
+    /**
+     * Accounts table
+     */
+    private static Table<Account> _accounts = new Table<>("accounts", "accounts", Account.class, a -> a.id);
+
+    /**
+     * Hangars table
+     */
+    private static Table<Hangar> _hangars = new Table<>("hangars", "accounts_equipment_hangars", Hangar.class, h -> h.id);
+
+    /**
+     * Equipment ships table
+     */
+    private static Table<Ship> _ships = new Table<>("ships", "accounts_equipment_ships", Ship.class, s -> s.id);
+
+    /**
+     * Clans table
+     */
+    private static Table<Clan> _clans = new Table<>("clans", "clans", Clan.class, c -> c.id);
+
+    /**
+     * Amount of flushes
+     */
+    private static AtomicLong _flushes = new AtomicLong();
+
+    /**
+     * Amount of updated rows
+     */
+    private static AtomicLong _written = new AtomicLong();
+
+    /**
+     * Amount of failed batches
+     */
+    private static AtomicLong _failures = new AtomicLong();
+
+    /**
+     * Time in milliseconds of the last flush
+     */
+    private static volatile long _lastLatency = 0;
+
+    /**
+     * Time in milliseconds of the slowest flush
+     */
+    private static volatile long _maxLatency = 0;
+
+    /**
+     * Time in milliseconds of all flushes
+     */
+    private static AtomicLong _totalLatency = new AtomicLong();
+
+    /**
+     * Flushes the dirty objects periodically
+     */
+    private static ScheduledExecutorService _scheduler;
+
+    /**
+     * Starts flushing the dirty objects in background
+     *
+     * The interval is read from `core.save_interval`, 0 disables the
+     * background flushes and objects are only saved with the `save`
+     * and `exit` commands.
+     *
+     * Accounts evicted from memory are flushed once they're removed.
+     */
+    public static synchronized void start()
+    {
+        GameManager.accounts.setEvictionListener(PersistenceManager::flush);
+
+        if(PersistenceManager._scheduler != null) {
+            return;
+        }
+
+        int interval = Main.configuration.getInt("core.save_interval", PersistenceManager.DEFAULT_INTERVAL);
+        if(interval <= 0) {
+            return;
+        }
+
+        PersistenceManager._scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Persistence");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        PersistenceManager._scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                PersistenceManager.flush();
+            } catch(Exception e) {
+                Console.error("Couldn't flush dirty objects: {}", e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background flushes
+     */
+    public static synchronized void stop()
+    {
+        if(PersistenceManager._scheduler == null) {
+            return;
+        }
+
+        PersistenceManager._scheduler.shutdown();
+        PersistenceManager._scheduler = null;
+    }
+
+    /**
+     * Queues a changed object to be saved
+     *
+     * Called by {@see com.manulaiko.blackeye.simulator.Persistable} when
+     * its first field becomes dirty.
+     *
+     * @param entity Changed object
+     */
+    public static void markDirty(Persistable entity)
+    {
+        if(entity instanceof Account) {
+            PersistenceManager._accounts.markDirty(entity);
+        } else if(entity instanceof Hangar) {
+            PersistenceManager._hangars.markDirty(entity);
+        } else if(entity instanceof Ship) {
+            PersistenceManager._ships.markDirty(entity);
+        } else if(entity instanceof Clan) {
+            PersistenceManager._clans.markDirty(entity);
+        }
+    }
+
+    /**
+     * Writes all dirty objects to the database
+     *
+     * Returns once they're written.
+     *
+     * @return True if all objects were written, false if a batch failed
+     */
+    public static synchronized boolean flush()
+    {
+        long start = System.currentTimeMillis();
+
+        boolean isWritten = PersistenceManager._flush(PersistenceManager._accounts);
+        isWritten        &= PersistenceManager._flush(PersistenceManager._hangars);
+        isWritten        &= PersistenceManager._flush(PersistenceManager._ships);
+        isWritten        &= PersistenceManager._flush(PersistenceManager._clans);
+
+        long latency = System.currentTimeMillis() - start;
+
+        PersistenceManager._flushes.incrementAndGet();
+        PersistenceManager._totalLatency.addAndGet(latency);
+        PersistenceManager._lastLatency = latency;
+        PersistenceManager._maxLatency  = Math.max(PersistenceManager._maxLatency, latency);
+
+        return isWritten;
+    }
+
+    /**
+     * Writes an account and its equipment if they're dirty
+     *
+     * Used to save accounts once they're evicted from memory.
+     *
+     * @param account Account to write
+     */
+    public static void flush(Account account)
+    {
+        PersistenceManager._flush(PersistenceManager._accounts, account);
+
+        if(account.hangar != null) {
+            PersistenceManager._flush(PersistenceManager._hangars, account.hangar);
+
+            if(account.hangar.ship != null) {
+                PersistenceManager._flush(PersistenceManager._ships, account.hangar.ship);
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of dirty objects waiting to be written
+     *
+     * @return Amount of dirty objects
+     */
+    public static int getQueueDepth()
+    {
+        return PersistenceManager._accounts.dirty.size() +
+               PersistenceManager._hangars.dirty.size() +
+               PersistenceManager._ships.dirty.size()   +
+               PersistenceManager._clans.dirty.size();
+    }
+
+    /**
+     * Prints persistence status
+     */
+    public static void showStatus()
+    {
+        long flushes = PersistenceManager._flushes.get();
+        long average = (flushes == 0) ? 0 : PersistenceManager._totalLatency.get() / flushes;
+
+        Console.println(
+            PersistenceManager.getQueueDepth() +" dirty objects ("+
+            PersistenceManager._accounts.dirty.size() +" accounts, "+
+            PersistenceManager._hangars.dirty.size() +" hangars, "+
+            PersistenceManager._ships.dirty.size() +" ships, "+
+            PersistenceManager._clans.dirty.size() +" clans)."
+        );
+        Console.println(
+            flushes +" flushes, "+ PersistenceManager._written.get() +" rows written, "+
+            PersistenceManager._failures.get() +" failed batches."
+        );
+        Console.println(
+            "Flush latency: "+ PersistenceManager._lastLatency +"ms last, "+
+            average +"ms average, "+ PersistenceManager._maxLatency +"ms max."
+        );
+    }
+
+    /**
+     * Writes the dirty objects of a table
+     *
+     * Objects are removed from the dirty queue and their dirty fields
+     * are taken before their values are read, so changes done while
+     * they're being written mark them again.
+     *
+     * Objects with the same dirty fields share the same query, so
+     * they're written in the same batches.
+     *
+     * @param table Table to write
+     *
+     * @return True if all objects were written, false if a batch failed
+     */
+    private static <T extends Persistable> boolean _flush(Table<T> table)
+    {
+        boolean isWritten = true;
+
+        HashMap<Long, Batch<T>> batches = new HashMap<>();
+
+        Iterator<T> dirty = table.dirty.values().iterator();
+        while(dirty.hasNext()) {
+            T entity = dirty.next();
+            dirty.remove();
+
+            long fields = entity.takeDirty();
+            if(fields == 0) {
+                continue;
+            }
+
+            Batch<T> batch = batches.computeIfAbsent(fields, f -> new Batch<>(f));
+            batch.add(entity, table.id.applyAsInt(entity));
+
+            if(batch.entities.size() >= PersistenceManager.BATCH_SIZE) {
+                isWritten &= PersistenceManager._write(table, batch);
+
+                batches.remove(fields);
+            }
+        }
+
+        for(Batch<T> batch : batches.values()) {
+            isWritten &= PersistenceManager._write(table, batch);
+        }
+
+        return isWritten;
+    }
+
+    /**
+     * Writes an object if it's dirty
+     *
+     * @param table  Table of the object
+     * @param entity Object to write
+     */
+    private static <T extends Persistable> void _flush(Table<T> table, T entity)
+    {
+        if(!table.dirty.remove(table.id.applyAsInt(entity), entity)) {
+            return;
+        }
+
+        long fields = entity.takeDirty();
+        if(fields == 0) {
+            return;
+        }
+
+        Batch<T> batch = new Batch<>(fields);
+        batch.add(entity, table.id.applyAsInt(entity));
+
+        PersistenceManager._write(table, batch);
+    }
+
+    /**
+     * Executes a batch
+     *
+     * If it fails the fields of its objects are marked as dirty again.
+     *
+     * @param table Table of the objects
+     * @param batch Objects to write
+     *
+     * @return True if the batch was written, false if not
+     */
+    private static <T extends Persistable> boolean _write(Table<T> table, Batch<T> batch)
+    {
+        try {
+            Main.mysqlManager.executeBatch(table.query(batch.entities.get(0).getColumns(), batch.fields), batch.parameters);
+            PersistenceManager._written.addAndGet(batch.entities.size());
+
+            return true;
+        } catch(SQLException e) {
+            PersistenceManager._failures.incrementAndGet();
+            Console.error("Couldn't write {} {}: {}", batch.entities.size(), table.name, e.getMessage());
+
+            for(T entity : batch.entities) {
+                entity.restoreDirty(batch.fields);
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Table written by the persistence manager
+     *
+     * @author Manulaiko <manulaiko@gmail.com>
+     *
+     * @package com.manulaiko.blackeye.launcher
+     */
+    private static class Table<T extends Persistable>
+    {
+        /**
+         * Name printed in the log
+         */
+        public String name;
+
+        /**
+         * Database table
+         */
+        public String table;
+
+        /**
+         * Class of the objects
+         */
+        public Class<T> type;
+
+        /**
+         * Returns the id of an object
+         */
+        public ToIntFunction<T> id;
+
+        /**
+         * Dirty objects by id
+         */
+        public ConcurrentHashMap<Integer, T> dirty = new ConcurrentHashMap<>();
+
+        /**
+         * UPDATE queries by dirty fields
+         */
+        private ConcurrentHashMap<Long, String> _queries = new ConcurrentHashMap<>();
+
+        /**
+         * Constructor
+         *
+         * @param name  Name printed in the log
+         * @param table Database table
+         * @param type  Class of the objects
+         * @param id    Returns the id of an object
+         */
+        public Table(String name, String table, Class<T> type, ToIntFunction<T> id)
+        {
+            this.name  = name;
+            this.table = table;
+            this.type  = type;
+            this.id    = id;
+        }
+
+        /**
+         * Marks an object as dirty
+         *
+         * @param entity Changed object
+         */
+        public void markDirty(Persistable entity)
+        {
+            T e = this.type.cast(entity);
+
+            this.dirty.put(this.id.applyAsInt(e), e);
+        }
+
+        /**
+         * Returns the UPDATE query of some dirty fields
+         *
+         * The id is the last parameter.
+         *
+         * @param columns Column names, by field number
+         * @param fields  Dirty fields, a bit for each field
+         *
+         * @return UPDATE query
+         */
+        public String query(String[] columns, long fields)
+        {
+            return this._queries.computeIfAbsent(fields, f -> {
+                StringBuilder query = new StringBuilder("UPDATE `").append(this.table).append("` SET ");
+
+                for(int i = 0; i < columns.length; i++) {
+                    if((f & (1L << i)) == 0) {
+                        continue;
+                    }
+
+                    if(query.charAt(query.length() - 1) == '?') {
+                        query.append(", ");
+                    }
+
+                    query.append('`').append(columns[i]).append("`=?");
+                }
+
+                return query.append(" WHERE `id`=?").toString();
+            });
+        }
+    }
+
+    /**
+     * Objects with the same dirty fields written in a batch
+     *
+     * @author Manulaiko <manulaiko@gmail.com>
+     *
+     * @package com.manulaiko.blackeye.launcher
+     */
+    private static class Batch<T extends Persistable>
+    {
+        /**
+         * Dirty fields, a bit for each field
+         */
+        public long fields;
+
+        /**
+         * Objects to write
+         */
+        public ArrayList<T> entities = new ArrayList<>();
+
+        /**
+         * Query parameters of each object
+         */
+        public ArrayList<Object[]> parameters = new ArrayList<>();
+
+        /**
+         * Constructor
+         *
+         * @param fields Dirty fields, a bit for each field
+         */
+        public Batch(long fields)
+        {
+            this.fields = fields;
+        }
+
+        /**
+         * Adds an object
+         *
+         * Reads the values of the dirty fields.
+         *
+         * @param entity Object to add
+         * @param id     Object id
+         */
+        public void add(T entity, int id)
+        {
+            Object[] parameters = new Object[Long.bitCount(this.fields) + 1];
+
+            int i = 0;
+            for(int field = 0; field < 64; field++) {
+                if((this.fields & (1L << field)) != 0) {
+                    parameters[i++] = entity.getValue(field);
+                }
+            }
+            parameters[i] = id;
+
+            this.entities.add(entity);
+            this.parameters.add(parameters);
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.manulaiko.blackeye.launcher;
 import java.io.IOException;
 
 import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.net.FrameDecoder;
+import com.manulaiko.tabitha.net.ReaderThreads;
+import com.manulaiko.tabitha.net.Server;
 
 /**
  * ServerManager class
@@ -35,10 +38,35 @@ public class ServerManager
      */
     public static com.manulaiko.blackeye.net.sockswork.Server sockswork = new com.manulaiko.blackeye.net.sockswork.Server();
 
+    /**
+     * Applies the `network` configuration section to given server
+     *
+     * It's called each time a server is started so changes made
+     * with `reload_configuration` are used on next start.
+     *
+     * @param server Server to configure
+     * @param name   Server name (game|policy|chat|sockswork)
+     */
+    public static void configure(Server server, String name)
+    {
+        server.setTransport(Main.configuration.getString("network."+ name +"_transport", Server.TRANSPORT_BLOCKING));
+        server.setEventLoopThreads(Main.configuration.getInt("network.event_loop_threads", 2));
+        server.setMaxFrameSize(Main.configuration.getInt("network.max_frame_size", FrameDecoder.DEFAULT_MAX_SIZE));
+        server.setBatching(
+            Main.configuration.getInt("network.max_batch_size", 8192),
+            Main.configuration.getInt("network.max_flush_latency", 5)
+        );
+
+        ReaderThreads threads = new ReaderThreads(Main.configuration.getString("network.reader_threads", ReaderThreads.MODE_PLATFORM));
+        threads.setStackSize(Main.configuration.getInt("network.reader_stack_size", 0) * 1024L);
+
+        server.setReaderThreads(threads);
+    }
+
     /**
      * Shows status of given server
      *
-     * @param server Server name (game|chat|sockswork)
+     * @param server Server name (game|chat|sockswork|database|accounts)
      */
     public static void showStatus(String server)
     {
@@ -65,6 +93,31 @@ public class ServerManager
             Console.println(Console.LINE_EQ);
             ServerManager.sockswork.showStatus();
         }
+
+        if(server.equalsIgnoreCase("database") || server.equalsIgnoreCase("all")) {
+            Console.println("Database");
+            Console.println(Console.LINE_EQ);
+            Main.mysqlManager.showStatus();
+            DatabaseManager.showStatus();
+        }
+
+        if(server.equalsIgnoreCase("accounts") || server.equalsIgnoreCase("all")) {
+            Console.println("Accounts");
+            Console.println(Console.LINE_EQ);
+            GameManager.accounts.showStatus();
+        }
+
+        if(server.equalsIgnoreCase("persistence") || server.equalsIgnoreCase("all")) {
+            Console.println("Persistence");
+            Console.println(Console.LINE_EQ);
+            PersistenceManager.showStatus();
+        }
+
+        if(server.equalsIgnoreCase("simulation") || server.equalsIgnoreCase("all")) {
+            Console.println("Simulation");
+            Console.println(Console.LINE_EQ);
+            SimulationManager.showStatus();
+        }
     }
 
     /**
@@ -77,24 +130,28 @@ public class ServerManager
         try {
             if(server.equalsIgnoreCase("game") || server.equalsIgnoreCase("all")) {
                 Console.println("Starting game server...");
+                ServerManager.configure(ServerManager.game, "game");
                 ServerManager.game.start();
                 Console.println("Game server started!");
             }
 
             if(server.equalsIgnoreCase("policy") || server.equalsIgnoreCase("all")) {
                 Console.println("Starting policy server...");
+                ServerManager.configure(ServerManager.policy, "policy");
                 ServerManager.policy.start();
                 Console.println("Policy server started!");
             }
 
             if(server.equalsIgnoreCase("chat") || server.equalsIgnoreCase("all")) {
                 Console.println("Starting chat server...");
+                ServerManager.configure(ServerManager.chat, "chat");
                 ServerManager.chat.start();
                 Console.println("Chat server started!");
             }
 
             if(server.equalsIgnoreCase("sockswork") || server.equalsIgnoreCase("all")) {
                 Console.println("Starting SocksWork server...");
+                ServerManager.configure(ServerManager.sockswork, "sockswork");
                 ServerManager.sockswork.start();
                 Console.println("SocksWork server started!");
             }
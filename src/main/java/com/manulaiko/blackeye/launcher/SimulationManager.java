@@ -0,0 +1,474 @@
+package com.manulaiko.blackeye.launcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.manulaiko.blackeye.simulator.account.Account;
+import com.manulaiko.blackeye.simulator.map.Map;
+import com.manulaiko.blackeye.simulator.map.Simulation;
+
+import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.utils.Histogram;
+
+/**
+ * Simulation Manager
+ *
+ * Runs the simulation of each map of `GameManager.maps` at a fixed
+ * rate (see {@see com.manulaiko.blackeye.simulator.map.Simulation}).
+ *
+ * Maps are split between a fixed amount of workers, each one with its
+ * own thread. A map is owned by a single worker, that runs all its
+ * ticks, so map state is never changed by two threads and doesn't
+ * need locks. Each tick, a worker ticks all its maps one after another.
+ *
+ * Anything that changes a map from another thread, including another
+ * map (like a portal jump), is posted to the map as a task:
+ *
+ *     SimulationManager.post(mapID, () -> {
+ *         // Runs in the next tick of the map, in its worker
+ *     });
+ *
+ * Maps are split so each worker has about the same amount of NPCs and
+ * collectables. If some maps get busier than others, the `rebalance`
+ * command moves maps from the busiest workers to the idlest ones.
+ *
+ * The tick rate is read from `maps.tick_rate`, 0 disables the simulation,
+ * and the amount of workers from `maps.workers` (by default, one for
+ * each core).
+ *
+ * `stop` waits for the running ticks to finish. Once started again (for
+ * example, after `reinitialize_gameManager` loads the maps again), the
+ * players that are logged in enter the new maps.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.blackeye.launcher
+ */
+public class SimulationManager
+{
+    /**
+     * Default ticks per second
+     */
+    public static final int DEFAULT_TICK_RATE = 20;
+
+    /**
+     * Max time in seconds `stop` waits for each worker to finish its tick
+     */
+    public static final int STOP_TIMEOUT = 5;
+
+    /**
+     * Workers
+     */
+    private static Worker[] _workers = new Worker[0];
+
+    /**
+     * Simulations by map id
+     */
+    private static HashMap<Integer, Simulation> _simulations = new HashMap<>();
+
+    /**
+     * Worker of each map, by map id
+     */
+    private static HashMap<Integer, Worker> _owners = new HashMap<>();
+
+    /**
+     * Starts simulating all maps
+     */
+    public static synchronized void start()
+    {
+        if(SimulationManager._workers.length > 0) {
+            return;
+        }
+
+        int tickRate = Main.configuration.getInt("maps.tick_rate", SimulationManager.DEFAULT_TICK_RATE);
+        if(tickRate <= 0) {
+            return;
+        }
+
+        HashMap<Integer, Map> maps    = GameManager.maps.getAll();
+        int                   workers = Main.configuration.getInt("maps.workers", Runtime.getRuntime().availableProcessors());
+
+        SimulationManager._workers = new Worker[Math.max(1, Math.min(maps.size(), workers))];
+        for(int i = 0; i < SimulationManager._workers.length; i++) {
+            SimulationManager._workers[i] = new Worker(i);
+        }
+
+        // Biggest maps first, each one to the worker with less entities
+        ArrayList<Map> sorted = new ArrayList<>(maps.values());
+        sorted.sort((a, b) -> SimulationManager._size(b) - SimulationManager._size(a));
+
+        long[] sizes = new long[SimulationManager._workers.length];
+        for(Map map : sorted) {
+            int worker = 0;
+            for(int i = 1; i < sizes.length; i++) {
+                if(sizes[i] < sizes[worker]) {
+                    worker = i;
+                }
+            }
+            sizes[worker] += SimulationManager._size(map);
+
+            Simulation simulation = new Simulation(map, tickRate);
+
+            SimulationManager._simulations.put(map.id, simulation);
+            SimulationManager._owners.put(map.id, SimulationManager._workers[worker]);
+            SimulationManager._workers[worker].add(simulation);
+        }
+
+        long period = TimeUnit.SECONDS.toNanos(1) / tickRate;
+        for(Worker worker : SimulationManager._workers) {
+            worker.start(period);
+        }
+
+        // Players logged in before a restart enter the new maps
+        for(Account account : GameManager.accounts.getPinnedAccounts()) {
+            if(account.hangar == null || account.hangar.ship == null) {
+                continue;
+            }
+
+            Simulation simulation = SimulationManager._simulations.get(account.hangar.ship.mapID);
+            if(simulation == null) {
+                continue;
+            }
+
+            simulation.post(() -> {
+                account.hangar.ship.setMap(simulation.map);
+                simulation.map.addPlayer(account);
+            });
+        }
+
+        Console.println(
+                "Simulating "+ maps.size() +" maps at "+ tickRate +" ticks per second in "+
+                SimulationManager._workers.length +" workers."
+        );
+    }
+
+    /**
+     * Stops simulating all maps
+     *
+     * Returns once the running ticks have finished, so the maps can be
+     * loaded again.
+     */
+    public static synchronized void stop()
+    {
+        for(Worker worker : SimulationManager._workers) {
+            worker.stop();
+        }
+
+        for(Worker worker : SimulationManager._workers) {
+            if(!worker.awaitTermination(SimulationManager.STOP_TIMEOUT)) {
+                Console.warning("Worker {} didn't finish its tick in {} seconds", worker.id, SimulationManager.STOP_TIMEOUT);
+            }
+        }
+
+        SimulationManager._workers = new Worker[0];
+        SimulationManager._simulations.clear();
+        SimulationManager._owners.clear();
+    }
+
+    /**
+     * Returns the simulation of a map
+     *
+     * @param mapID Map id
+     *
+     * @return The simulation, null if the map isn't simulated
+     */
+    public static synchronized Simulation get(int mapID)
+    {
+        return SimulationManager._simulations.get(mapID);
+    }
+
+    /**
+     * Posts a task to run in the next tick of a map
+     *
+     * @param mapID Map id
+     * @param task  Task to run
+     *
+     * @return True if the task was posted, false if the map isn't
+     *         simulated or has too many tasks waiting
+     */
+    public static boolean post(int mapID, Runnable task)
+    {
+        Simulation simulation = SimulationManager.get(mapID);
+
+        return simulation != null && simulation.post(task);
+    }
+
+    /**
+     * Moves a map to another worker
+     *
+     * The map is removed from its worker in the worker's thread, once
+     * its current tick has finished, and then added to the new worker.
+     *
+     * @param mapID  Map id
+     * @param worker Worker index
+     *
+     * @return True if the map is moved, false if the map isn't simulated,
+     *         the worker doesn't exist or already owns the map
+     */
+    public static synchronized boolean move(int mapID, int worker)
+    {
+        Simulation simulation = SimulationManager._simulations.get(mapID);
+
+        if(simulation == null || worker < 0 || worker >= SimulationManager._workers.length) {
+            return false;
+        }
+
+        Worker from = SimulationManager._owners.get(mapID);
+        Worker to   = SimulationManager._workers[worker];
+
+        if(from == to) {
+            return false;
+        }
+
+        SimulationManager._owners.put(mapID, to);
+        from.transfer(simulation, to);
+
+        return true;
+    }
+
+    /**
+     * Moves maps from the busiest workers to the idlest ones
+     *
+     * The load of a map is the recent average duration of its ticks.
+     * Maps are moved from the busiest worker to the idlest one while
+     * that makes the busiest worker less busy.
+     *
+     * @return Amount of moved maps
+     */
+    public static synchronized int rebalance()
+    {
+        if(SimulationManager._workers.length < 2) {
+            return 0;
+        }
+
+        long[] loads = new long[SimulationManager._workers.length];
+        for(Simulation simulation : SimulationManager._simulations.values()) {
+            loads[SimulationManager._owners.get(simulation.map.id).id] += simulation.getLoad();
+        }
+
+        int moved = 0;
+        for(int i = 0; i < SimulationManager._simulations.size(); i++) {
+            int busiest = 0;
+            int idlest  = 0;
+            for(int j = 1; j < loads.length; j++) {
+                if(loads[j] > loads[busiest]) {
+                    busiest = j;
+                }
+                if(loads[j] < loads[idlest]) {
+                    idlest = j;
+                }
+            }
+
+            // Biggest map that still leaves the idlest worker less busy than the busiest one was
+            Simulation candidate = null;
+            long       gap       = loads[busiest] - loads[idlest];
+            for(Simulation simulation : SimulationManager._simulations.values()) {
+                long load = simulation.getLoad();
+
+                if(
+                    SimulationManager._owners.get(simulation.map.id).id == busiest &&
+                    load > 0 && load < gap &&
+                    (candidate == null || load > candidate.getLoad())
+                ) {
+                    candidate = simulation;
+                }
+            }
+
+            if(candidate == null) {
+                break;
+            }
+
+            long load = candidate.getLoad();
+            loads[busiest] -= load;
+            loads[idlest]  += load;
+
+            Console.println("Moving map "+ candidate.map.id +" from worker "+ busiest +" to worker "+ idlest);
+            SimulationManager.move(candidate.map.id, idlest);
+            moved++;
+        }
+
+        return moved;
+    }
+
+    /**
+     * Prints the status of all workers and simulations
+     */
+    public static synchronized void showStatus()
+    {
+        if(SimulationManager._workers.length == 0) {
+            Console.println("Maps aren't simulated.");
+
+            return;
+        }
+
+        long overruns = 0;
+        for(Simulation simulation : SimulationManager._simulations.values()) {
+            overruns += simulation.getOverruns();
+        }
+
+        Console.println(
+                SimulationManager._simulations.size() +" simulated maps in "+ SimulationManager._workers.length +" workers, "+
+                overruns +" overruns."
+        );
+
+        for(Worker worker : SimulationManager._workers) {
+            long load = 0;
+            int  maps = 0;
+            for(Simulation simulation : SimulationManager._simulations.values()) {
+                if(SimulationManager._owners.get(simulation.map.id) == worker) {
+                    load += simulation.getLoad();
+                    maps++;
+                }
+            }
+
+            Console.println(
+                    "Worker "+ worker.id +": "+ maps +" maps, "+ TimeUnit.NANOSECONDS.toMicros(load) +"us load, "+
+                    worker.durations.percentile(99) +"us p99 tick, "+ worker.durations.getMax() +"us max tick."
+            );
+            for(Simulation simulation : SimulationManager._simulations.values()) {
+                if(SimulationManager._owners.get(simulation.map.id) == worker) {
+                    simulation.showStatus();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of simulated entities of a map
+     *
+     * @param map Map
+     *
+     * @return Amount of NPCs and collectables
+     */
+    private static int _size(Map map)
+    {
+        return map.npcs.size() + map.collectables.size();
+    }
+
+    /**
+     * Simulation worker
+     *
+     * Ticks its maps in its own thread. The list of maps is only
+     * accessed from that thread.
+     *
+     * @author Manulaiko <manulaiko@gmail.com>
+     *
+     * @package com.manulaiko.blackeye.launcher
+     */
+    private static class Worker
+    {
+        /**
+         * Worker index
+         */
+        public int id;
+
+        /**
+         * Durations of the ticks of all maps, in microseconds
+         */
+        public Histogram durations = new Histogram(100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000);
+
+        /**
+         * Worker thread
+         */
+        private ScheduledExecutorService _executor;
+
+        /**
+         * Owned maps
+         */
+        private ArrayList<Simulation> _simulations = new ArrayList<>();
+
+        /**
+         * Constructor
+         *
+         * @param id Worker index
+         */
+        public Worker(int id)
+        {
+            this.id        = id;
+            this._executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Simulation-"+ id);
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
+
+        /**
+         * Adds a map
+         *
+         * @param simulation Map simulation
+         */
+        public void add(Simulation simulation)
+        {
+            this._executor.execute(() -> this._simulations.add(simulation));
+        }
+
+        /**
+         * Moves a map to another worker
+         *
+         * @param simulation Map simulation
+         * @param worker     New worker
+         */
+        public void transfer(Simulation simulation, Worker worker)
+        {
+            this._executor.execute(() -> {
+                if(this._simulations.remove(simulation)) {
+                    worker.add(simulation);
+                }
+            });
+        }
+
+        /**
+         * Starts ticking the maps
+         *
+         * @param period Time between ticks, in nanoseconds
+         */
+        public void start(long period)
+        {
+            this._executor.scheduleAtFixedRate(this::_tick, period, period, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Stops ticking the maps
+         */
+        public void stop()
+        {
+            this._executor.shutdown();
+        }
+
+        /**
+         * Waits for the worker to stop
+         *
+         * @param timeout Max time to wait, in seconds
+         *
+         * @return True if the worker stopped, false if the timeout passed
+         */
+        public boolean awaitTermination(int timeout)
+        {
+            try {
+                return this._executor.awaitTermination(timeout, TimeUnit.SECONDS);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                return false;
+            }
+        }
+
+        /**
+         * Ticks all maps
+         */
+        private void _tick()
+        {
+            long start = System.nanoTime();
+
+            for(Simulation simulation : this._simulations) {
+                simulation.run();
+            }
+
+            this.durations.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.manulaiko.blackeye.launcher.commands;
+
+import com.manulaiko.blackeye.launcher.SimulationManager;
+
+import com.manulaiko.tabitha.Console;
+
+/**
+ * Rebalance command.
+ *
+ * Moves maps between simulation workers, read description for more.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.blackeye.launcher.commands
+ */
+public class RebalanceCommand implements com.manulaiko.tabitha.utils.ICommand
+{
+    /**
+     * Command name
+     */
+    public String _name = "rebalance";
+
+    /**
+     * Command description
+     */
+    public String _description = "-rebalance [map] [worker]: Moves maps between simulation workers.\n" +
+                                "                  Without arguments, maps of the busiest workers are moved to the idlest ones.\n" +
+                                "                  Use `status simulation` to see the load of each worker.\n" +
+                                "                  Example:\n" +
+                                "                      rebalance\n" +
+                                "                      rebalance 1 3";
+
+    /**
+     * Checks whether this command can execute 'name' command
+     *
+     * @param name Command name to check
+     *
+     * @return Whether this command can execute 'name'
+     */
+    public boolean canExecute(String name)
+    {
+        return this._name.equalsIgnoreCase(name);
+    }
+
+    /**
+     * Returns command name
+     *
+     * @return Command name
+     */
+    public String getName()
+    {
+        return this._name;
+    }
+
+    /**
+     * Returns command description
+     *
+     * @return Command description
+     */
+    public String getDescription()
+    {
+        return this._description;
+    }
+
+    /**
+     * Executes the command
+     *
+     * @param args Command arguments
+     */
+    public void execute(String[] args)
+    {
+        if(args.length == 0) {
+            Console.println(SimulationManager.rebalance() +" maps moved.");
+
+            return;
+        }
+
+        if(args.length != 2) {
+            Console.println(this._description);
+
+            return;
+        }
+
+        try {
+            int mapID  = Integer.parseInt(args[0]);
+            int worker = Integer.parseInt(args[1]);
+
+            if(SimulationManager.move(mapID, worker)) {
+                Console.println("Map "+ mapID +" moved to worker "+ worker +".");
+            } else {
+                Console.println("Map "+ mapID +" isn't simulated, worker "+ worker +" doesn't exist or already has it.");
+            }
+        } catch(NumberFormatException e) {
+            Console.println(this._description);
+        }
+    }
+}
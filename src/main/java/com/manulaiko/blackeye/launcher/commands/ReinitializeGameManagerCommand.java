@@ -21,7 +21,9 @@ public class ReinitializeGameManagerCommand implements com.manulaiko.tabitha.uti
      */
     private String _description = "-reinitialize_gameManager: Reinitializes GameManager.\n"+
                                   "                           This command helps you reinitialize GameManager\n"+
-                                  "                           without restarting BlackEye.\n";
+                                  "                           without restarting BlackEye.\n"+
+                                  "                           Static data is loaded from the database and\n"+
+                                  "                           its snapshot is written again.\n";
 
     /**
      * Checks whether this command can execute 'name' command
@@ -64,11 +66,15 @@ public class ReinitializeGameManagerCommand implements com.manulaiko.tabitha.uti
     {
         com.manulaiko.tabitha.Console.println("Reinitializing GameManager...");
         com.manulaiko.tabitha.Console.println(com.manulaiko.tabitha.Console.LINE_MINUS);
-        if(!com.manulaiko.blackeye.launcher.GameManager.initialize()) {
+        com.manulaiko.blackeye.launcher.SimulationManager.stop();
+        // Clans are loaded again, so their changes are saved first
+        com.manulaiko.blackeye.launcher.PersistenceManager.flush();
+        if(!com.manulaiko.blackeye.launcher.GameManager.initialize(false)) {
             com.manulaiko.tabitha.Console.println("Couldn't load Database!");
             com.manulaiko.tabitha.Console.println("Be sure that the database has all tables and rows.");
         } else {
             com.manulaiko.tabitha.Console.println("GameManager reinitialized!");
         }
+        com.manulaiko.blackeye.launcher.SimulationManager.start();
     }
 }
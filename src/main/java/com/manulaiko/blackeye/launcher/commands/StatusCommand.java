@@ -26,6 +26,10 @@ public class StatusCommand implements com.manulaiko.tabitha.utils.ICommand
                                 "                      * game: Game server.\n" +
                                 "                      * chat: Chat server.\n" +
                                 "                      * sockswork: SocksWork server.\n" +
+                                "                      * database: Database connection pool.\n" +
+                                "                      * accounts: Accounts in memory.\n" +
+                                "                      * persistence: Objects waiting to be saved.\n" +
+                                "                      * simulation: Simulation workers, map ticks and overruns.\n" +
                                 "                  If no server name is specified it will print status of all servers.\n" +
                                 "                  Example:\n" +
                                 "                      status game chat\n" +
@@ -1,16 +1,20 @@
 package com.manulaiko.blackeye.net.game;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Socket;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 import com.manulaiko.blackeye.simulator.account.Account;
+import com.manulaiko.blackeye.simulator.map.Simulation;
 
+import com.manulaiko.blackeye.launcher.GameManager;
 import com.manulaiko.blackeye.launcher.ServerManager;
+import com.manulaiko.blackeye.launcher.SimulationManager;
 
+import com.manulaiko.blackeye.net.game.packets.Command;
 import com.manulaiko.blackeye.net.game.packets.Packet;
 import com.manulaiko.blackeye.net.game.utils.PacketParser;
+import com.manulaiko.blackeye.net.game.utils.PacketWriter;
 
 import com.manulaiko.tabitha.exceptions.NotFound;
 import com.manulaiko.tabitha.Console;
@@ -26,16 +30,6 @@ import com.manulaiko.tabitha.Console;
  */
 public class Connection extends com.manulaiko.tabitha.net.Connection
 {
-    /**
-     * Input stream
-     */
-    private BufferedReader _in;
-
-    /**
-     * Output stream
-     */
-    private PrintWriter _out;
-
     /**
      * Policy file
      */
@@ -50,6 +44,24 @@ public class Connection extends com.manulaiko.tabitha.net.Connection
      */
     public Account account;
 
+    /**
+     * Packet parser, reused for each received packet
+     */
+    private PacketParser _parser = new PacketParser();
+
+    /**
+     * Packet writer, reused for each sent command
+     */
+    private PacketWriter _writer = new PacketWriter();
+
+    /**
+     * Lock for `_writer`
+     *
+     * Held while the command is written to the socket, a monitor would
+     * pin the carrier thread of a virtual reader thread.
+     */
+    private final ReentrantLock _writerLock = new ReentrantLock();
+
     /**
      * Constructor
      *
@@ -58,18 +70,6 @@ public class Connection extends com.manulaiko.tabitha.net.Connection
     public Connection(Socket socket)
     {
         super(socket);
-
-        try {
-            this._thread = new Thread(this);
-
-            this._in  = new BufferedReader(new InputStreamReader(this._socket.getInputStream()));
-            this._out = new PrintWriter(this._socket.getOutputStream());
-
-            this._thread.start();
-        } catch(Exception e) {
-            Console.println("Couldn't set in/out streams!");
-            Console.println(e.getMessage());
-        }
     }
 
     /**
@@ -82,6 +82,32 @@ public class Connection extends com.manulaiko.tabitha.net.Connection
         this.send(p.toString());
     }
 
+    /**
+     * Sends a command to the client
+     *
+     * The command is written to the connection's packet writer,
+     * without building intermediate strings.
+     *
+     * @param command Command to send
+     */
+    public void send(Command command)
+    {
+        this._writerLock.lock();
+        try {
+            this._writer.clear();
+            command.writeTo(this._writer);
+
+            if(Console.isEnabled(Console.TRACE)) {
+                Console.trace("Packet sent: {}", this._writer.toString());
+            }
+
+            this._writer.getBuffer().append((char)0x00);
+            this.write(this._writer.getBuffer());
+        } finally {
+            this._writerLock.unlock();
+        }
+    }
+
     /**
      * Sends a packet to the client
      *
@@ -89,56 +115,111 @@ public class Connection extends com.manulaiko.tabitha.net.Connection
      */
     public void send(String str)
     {
-        this._out.print(str + (char)0x00);
-        this._out.flush();
-        Console.println("Packet sent: "+ str);
+        this.write(str + (char)0x00);
+        Console.trace("Packet sent: {}", str);
     }
 
     /**
-     * Sets in/out streams and starts reading packets
+     * Handles a complete frame
+     *
+     * The frame is parsed in place, without building a string.
+     *
+     * @param bytes  Array containing the frame
+     * @param offset Index of the first byte of the frame
+     * @param length Length of the frame
      */
-    public void run()
+    public void onFrame(byte[] bytes, int offset, int length)
     {
-        try {
-            String packet = "";
-            char[] packetChar = new char[1];
-
-            //While the socket input stream (call it packet) char isn't -1 process the packet
-            while(this._in.read(packetChar, 0, 1) != -1) {
-                //If the char isn't null, new line or return char
-                if(packetChar[0] != '\u0000' && packetChar[0] != '\n' && packetChar[0] != '\r') {
-                    //packet increase it's value with the char
-                    //Example:
-                    // packet = RD, packetChar[0] = Y;
-                    // now packet = RDY;
-                    packet += packetChar[0];
-                } else if (!packet.isEmpty()) {
-                    //If the packet isn't "" we have the complete packet
-
-                    //Concat the packet with UTF8
-                    packet = new String(packet.getBytes(), "UTF8");
-                    //Assemble the packet
-                    //Declaration
-                    if(packet.equals("<policy-file-request/>")) {
-                        //Send the policy
-                        this.send(this._policyFile);
-                        Console.println("Policy file sent!");
-                    } else {
-                        PacketParser p = new PacketParser(packet);
-
-                        this.handle(p);
-                    }
-                    //Set the packet again to ""
-                    packet = "";
-                }
+        //The policy file request is handled as a string
+        if(bytes[offset] == '<') {
+            super.onFrame(bytes, offset, length);
+
+            return;
+        }
+
+        this._parser.wrap(bytes, offset, length);
+
+        this.handle(this._parser);
+    }
+
+    /**
+     * Handles a complete packet
+     *
+     * @param packet Received packet
+     */
+    public void onPacket(String packet)
+    {
+        //Declaration
+        if(packet.equals("<policy-file-request/>")) {
+            //Send the policy
+            this.send(this._policyFile);
+            Console.trace("Policy file sent!");
+        } else {
+            PacketParser p = new PacketParser(packet);
+
+            this.handle(p);
+        }
+    }
+
+    /**
+     * Sets connection's account
+     *
+     * The account is pinned in memory and its ship is on its map while
+     * the connection is open.
+     *
+     * @param account Logged in account
+     */
+    public synchronized void setAccount(Account account)
+    {
+        if(this.account != null) {
+            // Unpinned first, so a jump that's entering another map meanwhile doesn't add it back
+            GameManager.accounts.unpin(this.account);
+
+            Simulation simulation = this._getSimulation(this.account);
+            if(simulation != null) {
+                simulation.leave(this.account);
+            }
+        }
+
+        this.account = account;
+
+        if(account != null) {
+            GameManager.accounts.pin(account);
+
+            Simulation simulation = this._getSimulation(account);
+            if(simulation != null) {
+                simulation.enter(account);
             }
-        } catch(Exception e) {
-            Console.println("Couldn't read packet!");
-            Console.println(e.getMessage());
-            e.printStackTrace();
         }
     }
 
+    /**
+     * Returns the simulation of the map of an account's ship
+     *
+     * @param account Account
+     *
+     * @return The simulation, null if the account has no ship or its
+     *         map isn't simulated
+     */
+    private Simulation _getSimulation(Account account)
+    {
+        if(account.hangar == null || account.hangar.ship == null) {
+            return null;
+        }
+
+        return SimulationManager.get(account.hangar.ship.mapID);
+    }
+
+    /**
+     * Unpins the account and closes the connection
+     */
+    public void close()
+    {
+        this.setAccount(null);
+
+        super.close();
+    }
+
     /**
      * Handles the packet
      *
@@ -146,11 +227,13 @@ public class Connection extends com.manulaiko.tabitha.net.Connection
      */
     public void handle(PacketParser packet)
     {
-        Console.println("Packet received: "+ packet);
+        if(Console.isEnabled(Console.TRACE)) {
+            Console.trace("Packet received: {}", packet.toString());
+        }
 
         try {
             Packet p = ServerManager.game.packetFactory.get(packet);
-            p.handle(this);
+            p.handle(this, packet);
         } catch(NotFound e) {
             Console.println("No packet handler found for "+ packet);
         }
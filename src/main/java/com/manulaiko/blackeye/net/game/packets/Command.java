@@ -1,12 +1,15 @@
 package com.manulaiko.blackeye.net.game.packets;
 
-import com.manulaiko.blackeye.net.game.utils.PacketParser;
+import com.manulaiko.blackeye.net.game.utils.PacketWriter;
 
 /**
  * Command class
  *
  * All the commands extends this class
  *
+ * Commands write their fields to a {@see com.manulaiko.blackeye.net.game.utils.PacketWriter},
+ * usually the one of the connection that sends them.
+ *
  * @author Manulaiko <manulaiko@gmail.com>
  *
  * @package com.manulaiko.blackeye.net.game.packets.commands
@@ -14,17 +17,17 @@ import com.manulaiko.blackeye.net.game.utils.PacketParser;
 public abstract class Command
 {
     /**
-     * Packet parser
-     */
-    protected PacketParser _packet;
-
-    /**
-     * Constructor
+     * Writes the packet
+     *
+     * Adds the packet header and the fields of the command.
+     *
+     * @param packet Packet writer
      */
-    public Command()
+    public void writeTo(PacketWriter packet)
     {
-        this._packet = new PacketParser();
-        this._packet.add(0);
+        packet.add(0);
+
+        this.write(packet);
     }
 
     /**
@@ -37,5 +40,18 @@ public abstract class Command
     /**
      * Returns packet as a string
      */
-    public abstract String toString();
+    public String toString()
+    {
+        PacketWriter packet = new PacketWriter();
+        this.writeTo(packet);
+
+        return packet.toString();
+    }
+
+    /**
+     * Writes the fields of the command
+     *
+     * @param packet Packet writer
+     */
+    protected abstract void write(PacketWriter packet);
 }
@@ -1,12 +1,10 @@
 package com.manulaiko.blackeye.net.game.packets;
 
-import java.util.HashMap;
-import java.util.Map.Entry;
-
 import com.manulaiko.blackeye.net.game.packets.handlers.*;
 import com.manulaiko.blackeye.net.game.packets.commands.*;
 
 import com.manulaiko.blackeye.net.game.utils.PacketParser;
+import com.manulaiko.blackeye.net.game.utils.Registry;
 
 import com.manulaiko.tabitha.exceptions.NotFound;
 import com.manulaiko.tabitha.Console;
@@ -16,6 +14,9 @@ import com.manulaiko.tabitha.Console;
  *
  * Factory for building packets and retrieving handlers
  *
+ * Packets are kept in a {@see com.manulaiko.blackeye.net.game.utils.Registry}
+ * so lookups by id, name or class don't iterate.
+ *
  * @author Manulaiko <manulaiko@gmail.com>
  *
  * @package com.manulaiko.blackeye.net.game.packets
@@ -23,14 +24,9 @@ import com.manulaiko.tabitha.Console;
 public class Factory
 {
     /**
-     * Available packet handlers
+     * Available packet handlers and commands
      */
-    private HashMap<String, Packet> _packets = new HashMap<>();
-
-    /**
-     * Available packet commands
-     */
-    private HashMap<String, Command> _commands = new HashMap<>();
+    private Registry<String, Packet, Command> _registry = new Registry<>(Packet::getName, Command::getName);
 
     /**
      * Constructor
@@ -44,8 +40,8 @@ public class Factory
         ///////////////////////////
         // Start Packet Handlers //
         ///////////////////////////
-        this._packets.put("LOGIN", new LoginRequest());
-        this._packets.put("0", new EchoPacket());
+        this._registry.addPacket("LOGIN", new LoginRequest());
+        this._registry.addPacket("0", new EchoPacket());
         /////////////////////////
         // End Packet Handlers //
         /////////////////////////
@@ -53,12 +49,12 @@ public class Factory
         ///////////////////////////
         // Start Packet Commands //
         ///////////////////////////
-        this._commands.put("I", new ShipInitialization());
+        this._registry.addCommand("I", ShipInitialization::new);
         /////////////////////////
         // End Packet Commands //
         /////////////////////////
 
-        Console.println(this._packets.size() + " packet handlers and commands loaded!");
+        Console.println(this._registry.getPacketsAmount() + " packet handlers and commands loaded!");
     }
 
     /**
@@ -74,14 +70,11 @@ public class Factory
     {
         String id = packet.readString();
 
-        if(!this._packets.containsKey(id)) {
+        try {
+            return this._registry.getPacket(id);
+        } catch(NotFound e) {
             throw new NotFound("packet handler", packet.toString());
         }
-
-        Packet p = this._packets.get(id);
-        p.setPacket(packet);
-
-        return p;
     }
 
     /**
@@ -95,11 +88,7 @@ public class Factory
      */
     public Packet getByID(String packet) throws NotFound
     {
-        if(!this._packets.containsKey(packet)) {
-            throw new NotFound("packet handler", packet);
-        }
-
-        return this._packets.get(packet);
+        return this._registry.getPacket(packet);
     }
 
     /**
@@ -113,31 +102,21 @@ public class Factory
      */
     public Packet getByName(String name) throws NotFound
     {
-        for(Entry<String, Packet> packet : this._packets.entrySet()) {
-            if(packet.getValue().getName().equalsIgnoreCase(name)) {
-                return packet.getValue();
-            }
-        }
-
-        throw new NotFound("packet", name);
+        return this._registry.getPacketByName(name);
     }
 
     /**
-     * Finds and returns given packet handler
+     * Finds and returns given packet command
      *
-     * @param command Packet to find handler
+     * @param command Command id
      *
-     * @return Packet's handler
+     * @return New instance of the command
      *
-     * @throws NotFound If packet handler does not exist
+     * @throws NotFound If packet command does not exist
      */
     public Command getCommandByID(String command) throws NotFound
     {
-        if(!this._commands.containsKey(command)) {
-            throw new NotFound("packet command", command);
-        }
-
-        return this._commands.get(command);
+        return this._registry.getCommand(command);
     }
 
     /**
@@ -145,18 +124,30 @@ public class Factory
      *
      * @param name Command name
      *
-     * @return Command's handler
+     * @return New instance of the command
      *
      * @throws NotFound If packet command does not exist
      */
     public Command getCommandByName(String name) throws NotFound
     {
-        for(Entry<String, Command> command : this._commands.entrySet()) {
-            if(command.getValue().getName().equalsIgnoreCase(name)) {
-                return command.getValue();
-            }
-        }
+        return this._registry.getCommandByName(name);
+    }
 
-        throw new NotFound("command", name);
+    /**
+     * Finds and returns given packet command by its class
+     *
+     * Example:
+     *
+     *     ShipInitialization command = factory.getCommand(ShipInitialization.class);
+     *
+     * @param type Command class
+     *
+     * @return New instance of the command
+     *
+     * @throws NotFound If packet command does not exist
+     */
+    public <T extends Command> T getCommand(Class<T> type) throws NotFound
+    {
+        return this._registry.getCommand(type);
     }
 }
@@ -29,41 +29,41 @@ public class ShipInitialization extends com.manulaiko.blackeye.net.game.packets.
     ////////////////
 
     /**
-     * Returns the packet as a string
+     * Writes the fields of the command
+     *
+     * @param packet Packet writer
      */
-    public String toString()
+    protected void write(com.manulaiko.blackeye.net.game.utils.PacketWriter packet)
     {
-        this._packet.add("I");
-        this._packet.add(this.id);
-        this._packet.add(this.name);
-        this._packet.add(this.shipID);
-        this._packet.add(this.speed);
-        this._packet.add(this.shield);
-        this._packet.add(this.maxShield);
-        this._packet.add(this.health);
-        this._packet.add(this.maxHealth);
-        this._packet.add(this.cargo);
-        this._packet.add(this.maxCargo);
-        this._packet.add(this.x);
-        this._packet.add(this.y);
-        this._packet.add(this.mapID);
-        this._packet.add(this.factionID);
-        this._packet.add(this.clanID);
-        this._packet.add(this.batteries);
-        this._packet.add(this.rockets);
-        this._packet.add(this.oState); //No fucking idea
-        this._packet.add(this.isPremium);
-        this._packet.add(this.experience);
-        this._packet.add(this.honor);
-        this._packet.add(this.levelID);
-        this._packet.add(this.credits);
-        this._packet.add(this.uridium);
-        this._packet.add(this.jackpot);
-        this._packet.add(this.rankID);
-        this._packet.add(this.clanTag);
-        this._packet.add(this.ggRings);
-        this._packet.add(this.useSysFont); //No idea
-
-        return this._packet.toString();
+        packet.add("I");
+        packet.add(this.id);
+        packet.add(this.name);
+        packet.add(this.shipID);
+        packet.add(this.speed);
+        packet.add(this.shield);
+        packet.add(this.maxShield);
+        packet.add(this.health);
+        packet.add(this.maxHealth);
+        packet.add(this.cargo);
+        packet.add(this.maxCargo);
+        packet.add(this.x);
+        packet.add(this.y);
+        packet.add(this.mapID);
+        packet.add(this.factionID);
+        packet.add(this.clanID);
+        packet.add(this.batteries);
+        packet.add(this.rockets);
+        packet.add(this.oState); //No fucking idea
+        packet.add(this.isPremium);
+        packet.add(this.experience);
+        packet.add(this.honor);
+        packet.add(this.levelID);
+        packet.add(this.credits);
+        packet.add(this.uridium);
+        packet.add(this.jackpot);
+        packet.add(this.rankID);
+        packet.add(this.clanTag);
+        packet.add(this.ggRings);
+        packet.add(this.useSysFont); //No idea
     }
 }
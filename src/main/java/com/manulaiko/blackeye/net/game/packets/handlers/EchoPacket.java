@@ -1,5 +1,7 @@
 package com.manulaiko.blackeye.net.game.packets.handlers;
 
+import com.manulaiko.blackeye.net.game.utils.PacketParser;
+
 /**
  * Echo packet
  *
@@ -16,9 +18,10 @@ public class EchoPacket extends com.manulaiko.blackeye.net.game.packets.Packet
      * Handles the packet
      *
      * @param connection Connection object
+     * @param packet     Received packet
      */
-    public void handle(com.manulaiko.blackeye.net.game.Connection connection)
+    public void handle(com.manulaiko.blackeye.net.game.Connection connection, PacketParser packet)
     {
-        connection.send(this._packet);
+        connection.send(packet);
     }
 }
@@ -5,8 +5,7 @@ import com.manulaiko.blackeye.launcher.ServerManager;
 
 import com.manulaiko.blackeye.net.game.Connection;
 import com.manulaiko.blackeye.net.game.packets.commands.*;
-
-import com.manulaiko.blackeye.simulator.account.Account;
+import com.manulaiko.blackeye.net.game.utils.PacketParser;
 
 import com.manulaiko.tabitha.Console;
 import com.manulaiko.tabitha.exceptions.NotFound;
@@ -27,33 +26,46 @@ public class LoginRequest extends com.manulaiko.blackeye.net.game.packets.Packet
      * Handles the packet
      *
      * @param connection Connection object
+     * @param packet     Received packet
      */
-    public void handle(Connection connection)
+    public void handle(Connection connection, PacketParser packet)
     {
-        int    accountID = this._packet.readInt();
-        String sessionID = this._packet.readString();
+        int    accountID = packet.readInt();
+        String sessionID = packet.readString();
 
-        try {
-            Account account = GameManager.accounts.getByID(accountID);
+        connection.reply(GameManager.accounts.getByIDAsync(accountID), (account, e) -> {
+            if(e != null) {
+                if(e instanceof NotFound) {
+                    Console.println("Account with ID " + accountID + " does not exist");
+                } else {
+                    Console.println("Couldn't load account with ID " + accountID + ": " + e.getMessage());
+                }
 
-            if(account.sessionID.equals(sessionID)) {
-                connection.account = account;
+                return;
+            }
 
+            if(!account.sessionID.equals(sessionID)) {
                 try {
-                    this.sendLoginData(connection);
-                } catch(Exception e) {
-                    Console.println("Couldn't send login data!");
-                    Console.println(e.getMessage());
+                    connection.send(
+                            ServerManager.game.packetFactory.getByName("InvalidSession")
+                                                            .toString()
+                    );
+                } catch(NotFound e1) {
+                    Console.println(e1.getMessage());
                 }
-            } else {
-                connection.send(
-                        ServerManager.game.packetFactory.getByName("InvalidSession")
-                                                        .toString()
-                );
+
+                return;
+            }
+
+            connection.setAccount(account);
+
+            try {
+                this.sendLoginData(connection);
+            } catch(Exception e1) {
+                Console.println("Couldn't send login data!");
+                Console.println(e1.getMessage());
             }
-        } catch(NotFound e) {
-            Console.println("Account with ID " + accountID + " does not exist");
-        }
+        });
     }
 
     /**
@@ -63,7 +75,7 @@ public class LoginRequest extends com.manulaiko.blackeye.net.game.packets.Packet
      */
     public void sendLoginData(Connection connection) throws NotFound
     {
-        ShipInitialization p = (ShipInitialization) ServerManager.game.packetFactory.getCommandByName("ShipInitialization");
+        ShipInitialization p = ServerManager.game.packetFactory.getCommand(ShipInitialization.class);
 
         p.id         = connection.account.id;
         p.name       = connection.account.name;
@@ -96,7 +108,7 @@ public class LoginRequest extends com.manulaiko.blackeye.net.game.packets.Packet
         p.useSysFont = 0; //No idea
 
         connection.send("0|A|SET|1|1|1|1|1|1|1|1|1|1|1|1|1|1|1|1|1|1|1|1|1");
-        connection.send(p.toString());
+        connection.send(p);
         connection.send("0|m|1");
         connection.send("0|A|ADM|CLI|1");
     }
@@ -1,13 +1,42 @@
 package com.manulaiko.blackeye.net.game.utils;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Packet class
  *
+ * Fields are separated by `|`.
+ *
+ * A parser can work in two modes:
+ *  * List mode: the packet is split in an array of strings, used when
+ *    the parser is created from a string or to build packets with `add`.
+ *  * Index mode: set with {@see com.manulaiko.blackeye.net.game.utils.PacketParser#wrap},
+ *    only the offsets of the fields in the received frame are recorded
+ *    and `readInt`, `readDouble` and `readBoolean` parse the bytes directly,
+ *    so reading numbers doesn't allocate. The frame must not change while
+ *    the packet is being handled, a parser can be reused by calling `wrap` again.
+ *
+ * Example:
+ *
+ *     PacketParser p = new PacketParser();
+ *     p.wrap(bytes, offset, length); // "a|12|3.5"
+ *
+ *     p.readString(); // "a"
+ *     p.readInt();    // 12
+ *     p.readDouble(); // 3.5
+ *
  * @author Manulaiko <manulaiko@gmail.com>
  * @package com.manulaiko.blackeye.net.game
  */
 public class PacketParser
 {
+    /**
+     * Powers of ten that are exact doubles
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
     /**
      * Packet as array
      */
@@ -18,6 +47,31 @@ public class PacketParser
      */
     private int _i = 0;
 
+    /**
+     * Frame bytes, null in list mode
+     */
+    private byte[] _bytes;
+
+    /**
+     * Index of the first byte of the frame
+     */
+    private int _offset = 0;
+
+    /**
+     * Length of the frame
+     */
+    private int _length = 0;
+
+    /**
+     * Start index of each field, followed by the index after the last field
+     */
+    private int[] _fields = new int[16];
+
+    /**
+     * Amount of fields in index mode
+     */
+    private int _count = 0;
+
     /**
      * Constructor
      */
@@ -39,6 +93,44 @@ public class PacketParser
         }
     }
 
+    /**
+     * Sets the frame to parse
+     *
+     * Switches the parser to index mode and resets the index pointer.
+     *
+     * @param bytes  Array containing the frame
+     * @param offset Index of the first byte of the frame
+     * @param length Length of the frame
+     */
+    public void wrap(byte[] bytes, int offset, int length)
+    {
+        this._packet.clear();
+
+        this._bytes  = bytes;
+        this._offset = offset;
+        this._length = length;
+        this._count  = 0;
+        this._i      = 0;
+
+        int end = offset + length;
+
+        this._field(offset);
+        for(int i = offset; i < end; i++) {
+            if(bytes[i] == '|') {
+                this._field(i + 1);
+            }
+        }
+
+        this._fields[this._count] = end + 1;
+
+        //Like `String.split`, trailing empty fields are removed if there's a separator
+        if(this._count > 1) {
+            while(this._count > 0 && this._fields[this._count] - 1 == this._fields[this._count - 1]) {
+                this._count--;
+            }
+        }
+    }
+
     /**
      * Adds a string to the array
      *
@@ -46,6 +138,7 @@ public class PacketParser
      */
     public void add(String str)
     {
+        this._toList();
         this._packet.add(str);
     }
 
@@ -56,6 +149,7 @@ public class PacketParser
      */
     public void add(long i)
     {
+        this._toList();
         this._packet.add(Long.toString(i));
     }
 
@@ -66,6 +160,7 @@ public class PacketParser
      */
     public void add(boolean b)
     {
+        this._toList();
         if(b) {
             this._packet.add("1");
         } else {
@@ -80,6 +175,7 @@ public class PacketParser
      */
     public void add(double d)
     {
+        this._toList();
         this._packet.add(Double.toString(d));
     }
 
@@ -90,6 +186,12 @@ public class PacketParser
      */
     public String readString()
     {
+        if(this._bytes != null) {
+            int start = this._start();
+
+            return new String(this._bytes, start, this._fields[++this._i] - 1 - start, StandardCharsets.UTF_8);
+        }
+
         return this._packet.get(this._i++);
     }
 
@@ -100,7 +202,44 @@ public class PacketParser
      */
     public int readInt()
     {
-        return Integer.parseInt(this.readString());
+        if(this._bytes == null) {
+            return Integer.parseInt(this.readString());
+        }
+
+        int start = this._start();
+        int end   = this._fields[this._i + 1] - 1;
+        int i     = start;
+
+        boolean negative = (i < end && this._bytes[i] == '-');
+        if(negative || (i < end && this._bytes[i] == '+')) {
+            i++;
+        }
+
+        if(i == end || end - i > 10) {
+            return Integer.parseInt(this.readString());
+        }
+
+        long value = 0;
+        for(; i < end; i++) {
+            int digit = this._bytes[i] - '0';
+
+            if(digit < 0 || digit > 9) {
+                return Integer.parseInt(this.readString());
+            }
+
+            value = value * 10 + digit;
+        }
+
+        if(negative) {
+            value = -value;
+        }
+        if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return Integer.parseInt(this.readString());
+        }
+
+        this._i++;
+
+        return (int)value;
     }
 
     /**
@@ -110,6 +249,17 @@ public class PacketParser
      */
     public boolean readBoolean()
     {
+        if(this._bytes != null) {
+            int start  = this._start();
+            int length = this._fields[++this._i] - 1 - start;
+
+            if(length == 1) {
+                return this._bytes[start] == '1';
+            }
+
+            return (length == 4 && new String(this._bytes, start, length, StandardCharsets.US_ASCII).equalsIgnoreCase("true"));
+        }
+
         String i = this.readString();
 
         if(i.equalsIgnoreCase("true") || i.equals("1")) {
@@ -126,7 +276,56 @@ public class PacketParser
      */
     public double readDouble()
     {
-        return Double.parseDouble(this.readString());
+        if(this._bytes == null) {
+            return Double.parseDouble(this.readString());
+        }
+
+        int start = this._start();
+        int end   = this._fields[this._i + 1] - 1;
+        int i     = start;
+
+        boolean negative = (i < end && this._bytes[i] == '-');
+        if(negative || (i < end && this._bytes[i] == '+')) {
+            i++;
+        }
+
+        //Fast path: up to 15 digits and no exponent, which is exact
+        //when dividing by a power of ten. Anything else is parsed by the JDK.
+        long mantissa = 0;
+        int  digits   = 0;
+        int  decimals = -1;
+        for(; i < end; i++) {
+            byte b = this._bytes[i];
+
+            if(b == '.' && decimals < 0) {
+                decimals = 0;
+
+                continue;
+            }
+            if(b < '0' || b > '9' || digits == 15) {
+                return Double.parseDouble(this.readString());
+            }
+
+            mantissa = mantissa * 10 + (b - '0');
+            digits++;
+
+            if(decimals >= 0) {
+                decimals++;
+            }
+        }
+
+        if(digits == 0) {
+            return Double.parseDouble(this.readString());
+        }
+
+        this._i++;
+
+        double value = mantissa;
+        if(decimals > 0) {
+            value /= PacketParser.POWERS_OF_TEN[decimals];
+        }
+
+        return negative ? -value : value;
     }
 
     /**
@@ -134,16 +333,69 @@ public class PacketParser
      */
     public String toString()
     {
-        String str = "";
+        if(this._bytes != null) {
+            return new String(this._bytes, this._offset, this._length, StandardCharsets.UTF_8);
+        }
+
+        StringBuilder str = new StringBuilder();
 
         for(String s : this._packet) {
-            if(!str.equalsIgnoreCase("")) {
-                str += "|";
+            if(str.length() > 0) {
+                str.append('|');
             }
 
-            str += s;
+            str.append(s);
+        }
+
+        return str.toString();
+    }
+
+    /**
+     * Returns the start index of the field at the index pointer
+     *
+     * @return Start index of the field
+     */
+    private int _start()
+    {
+        if(this._i >= this._count) {
+            throw new IndexOutOfBoundsException("Index: "+ this._i +", Size: "+ this._count);
+        }
+
+        return this._fields[this._i];
+    }
+
+    /**
+     * Records the start index of a field
+     *
+     * @param start Start index of the field
+     */
+    private void _field(int start)
+    {
+        if(this._count + 1 >= this._fields.length) {
+            this._fields = java.util.Arrays.copyOf(this._fields, this._fields.length * 2);
+        }
+
+        this._fields[this._count++] = start;
+    }
+
+    /**
+     * Switches the parser to list mode
+     *
+     * The fields of the frame are copied to the array so the
+     * packet can be modified.
+     */
+    private void _toList()
+    {
+        if(this._bytes == null) {
+            return;
+        }
+
+        for(int i = 0; i < this._count; i++) {
+            int start = this._fields[i];
+
+            this._packet.add(new String(this._bytes, start, this._fields[i + 1] - 1 - start, StandardCharsets.UTF_8));
         }
 
-        return str;
+        this._bytes = null;
     }
 }
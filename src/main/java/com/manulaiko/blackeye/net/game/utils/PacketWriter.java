@@ -0,0 +1,123 @@
+package com.manulaiko.blackeye.net.game.utils;
+
+/**
+ * Packet writer class
+ *
+ * Builds outgoing packets, fields are separated by `|`.
+ *
+ * Numbers are appended straight to the buffer, no intermediate
+ * strings are created. The writer can be reused by calling `clear`,
+ * connections keep one to serialize their commands.
+ *
+ * Example:
+ *
+ *     PacketWriter p = new PacketWriter();
+ *
+ *     p.add(0);
+ *     p.add("I");
+ *     p.add(3.5);
+ *
+ *     p.toString(); // "0|I|3.5"
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.blackeye.net.game.utils
+ */
+public class PacketWriter
+{
+    /**
+     * Packet buffer
+     */
+    private StringBuilder _buffer = new StringBuilder(256);
+
+    /**
+     * Adds a string to the packet
+     *
+     * @param str String to add
+     */
+    public void add(String str)
+    {
+        this._separator();
+        this._buffer.append(str);
+    }
+
+    /**
+     * Adds an integer to the packet
+     *
+     * @param i Integer to add
+     */
+    public void add(int i)
+    {
+        this._separator();
+        this._buffer.append(i);
+    }
+
+    /**
+     * Adds an integer to the packet
+     *
+     * @param i Integer to add
+     */
+    public void add(long i)
+    {
+        this._separator();
+        this._buffer.append(i);
+    }
+
+    /**
+     * Adds a boolean to the packet
+     *
+     * @param b Boolean to add
+     */
+    public void add(boolean b)
+    {
+        this._separator();
+        this._buffer.append(b ? '1' : '0');
+    }
+
+    /**
+     * Adds a double to the packet
+     *
+     * @param d Double to add
+     */
+    public void add(double d)
+    {
+        this._separator();
+        this._buffer.append(d);
+    }
+
+    /**
+     * Empties the packet
+     */
+    public void clear()
+    {
+        this._buffer.setLength(0);
+    }
+
+    /**
+     * Returns the packet buffer
+     *
+     * @return Packet buffer
+     */
+    public StringBuilder getBuffer()
+    {
+        return this._buffer;
+    }
+
+    /**
+     * Returns the packet as a string
+     */
+    public String toString()
+    {
+        return this._buffer.toString();
+    }
+
+    /**
+     * Appends the field separator if the packet isn't empty
+     */
+    private void _separator()
+    {
+        if(this._buffer.length() > 0) {
+            this._buffer.append('|');
+        }
+    }
+}
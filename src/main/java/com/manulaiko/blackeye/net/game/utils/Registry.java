@@ -0,0 +1,233 @@
+package com.manulaiko.blackeye.net.game.utils;
+
+import java.util.HashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.manulaiko.tabitha.exceptions.NotFound;
+
+/**
+ * Registry class
+ *
+ * Holds the packet handlers and commands of a protocol, indexed by
+ * id, by name and, for commands, by class. The indexes are built once
+ * when the factory registers its packets, so every lookup is a single
+ * map access.
+ *
+ * Handlers are stateless and shared, commands are created with their
+ * supplier each time they're requested.
+ *
+ * Both the game and the sockswork factories use it, each one with its
+ * own id type and packet/command base classes:
+ *
+ *     Registry<Integer, Packet, Command> registry = new Registry<>(Packet::getName, Command::getName);
+ *
+ *     registry.addPacket(9, new GetData());
+ *     registry.addCommand(10, SendData::new);
+ *
+ *     SendData response = registry.getCommand(SendData.class);
+ *
+ * Names are case insensitive.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.blackeye.net.game.utils
+ */
+public class Registry<K, P, C>
+{
+    /**
+     * Returns the name of a packet handler
+     */
+    private Function<P, String> _packetName;
+
+    /**
+     * Returns the name of a command
+     */
+    private Function<C, String> _commandName;
+
+    /**
+     * Packet handlers by id
+     */
+    private HashMap<K, P> _packets = new HashMap<>();
+
+    /**
+     * Packet handlers by lower case name
+     */
+    private HashMap<String, P> _packetsByName = new HashMap<>();
+
+    /**
+     * Command suppliers by id
+     */
+    private HashMap<K, Supplier<? extends C>> _commands = new HashMap<>();
+
+    /**
+     * Command suppliers by lower case name
+     */
+    private HashMap<String, Supplier<? extends C>> _commandsByName = new HashMap<>();
+
+    /**
+     * Command suppliers by class
+     */
+    private HashMap<Class<?>, Supplier<? extends C>> _commandsByClass = new HashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param packetName  Returns the name of a packet handler
+     * @param commandName Returns the name of a command
+     */
+    public Registry(Function<P, String> packetName, Function<C, String> commandName)
+    {
+        this._packetName  = packetName;
+        this._commandName = commandName;
+    }
+
+    /**
+     * Registers a packet handler
+     *
+     * @param id     Packet id
+     * @param packet Packet handler
+     */
+    public void addPacket(K id, P packet)
+    {
+        this._packets.put(id, packet);
+        this._packetsByName.put(this._packetName.apply(packet).toLowerCase(), packet);
+    }
+
+    /**
+     * Registers a command
+     *
+     * An instance is created to read its name and class.
+     *
+     * @param id       Command id
+     * @param supplier Creates new instances of the command
+     */
+    public void addCommand(K id, Supplier<? extends C> supplier)
+    {
+        C command = supplier.get();
+
+        this._commands.put(id, supplier);
+        this._commandsByName.put(this._commandName.apply(command).toLowerCase(), supplier);
+        this._commandsByClass.put(command.getClass(), supplier);
+    }
+
+    /**
+     * Returns a packet handler
+     *
+     * @param id Packet id
+     *
+     * @return Packet handler
+     *
+     * @throws NotFound If packet handler does not exist
+     */
+    public P getPacket(K id) throws NotFound
+    {
+        P packet = this._packets.get(id);
+
+        if(packet == null) {
+            throw new NotFound("packet handler", "id: "+ id);
+        }
+
+        return packet;
+    }
+
+    /**
+     * Returns a packet handler by its name
+     *
+     * @param name Packet name
+     *
+     * @return Packet handler
+     *
+     * @throws NotFound If packet handler does not exist
+     */
+    public P getPacketByName(String name) throws NotFound
+    {
+        P packet = this._packetsByName.get(name.toLowerCase());
+
+        if(packet == null) {
+            throw new NotFound("packet", name);
+        }
+
+        return packet;
+    }
+
+    /**
+     * Returns a new command
+     *
+     * @param id Command id
+     *
+     * @return New instance of the command
+     *
+     * @throws NotFound If packet command does not exist
+     */
+    public C getCommand(K id) throws NotFound
+    {
+        Supplier<? extends C> supplier = this._commands.get(id);
+
+        if(supplier == null) {
+            throw new NotFound("packet command", "id: "+ id);
+        }
+
+        return supplier.get();
+    }
+
+    /**
+     * Returns a new command by its name
+     *
+     * @param name Command name
+     *
+     * @return New instance of the command
+     *
+     * @throws NotFound If packet command does not exist
+     */
+    public C getCommandByName(String name) throws NotFound
+    {
+        Supplier<? extends C> supplier = this._commandsByName.get(name.toLowerCase());
+
+        if(supplier == null) {
+            throw new NotFound("command", name);
+        }
+
+        return supplier.get();
+    }
+
+    /**
+     * Returns a new command by its class
+     *
+     * @param type Command class
+     *
+     * @return New instance of the command
+     *
+     * @throws NotFound If packet command does not exist
+     */
+    public <T extends C> T getCommand(Class<T> type) throws NotFound
+    {
+        Supplier<? extends C> supplier = this._commandsByClass.get(type);
+
+        if(supplier == null) {
+            throw new NotFound("command", type.getSimpleName());
+        }
+
+        return type.cast(supplier.get());
+    }
+
+    /**
+     * Returns the amount of packet handlers
+     *
+     * @return Amount of packet handlers
+     */
+    public int getPacketsAmount()
+    {
+        return this._packets.size();
+    }
+
+    /**
+     * Returns the amount of commands
+     *
+     * @return Amount of commands
+     */
+    public int getCommandsAmount()
+    {
+        return this._commands.size();
+    }
+}
@@ -11,16 +11,6 @@ package com.manulaiko.blackeye.net.policy;
  */
 public class Connection extends com.manulaiko.tabitha.net.Connection
 {
-    /**
-     * Input stream
-     */
-    private java.io.BufferedReader _in;
-
-    /**
-     * Output stream
-     */
-    private java.io.PrintWriter _out;
-
     /**
      * Policy file
      */
@@ -38,13 +28,6 @@ public class Connection extends com.manulaiko.tabitha.net.Connection
     public Connection(java.net.Socket socket)
     {
         super(socket);
-
-        try {
-            this._in = new java.io.BufferedReader(new java.io.InputStreamReader(this._socket.getInputStream()));
-            this._out = new java.io.PrintWriter(this._socket.getOutputStream());
-        } catch(Exception e) {
-            //empty
-        }
     }
 
     /**
@@ -54,24 +37,19 @@ public class Connection extends com.manulaiko.tabitha.net.Connection
      */
     public void send(String str)
     {
-        this._out.print(str);
-        com.manulaiko.tabitha.Console.println("Packet sent: "+ str);
+        this.write(str);
+        com.manulaiko.tabitha.Console.trace("Packet sent: {}", str);
     }
 
     /**
-     * Sets in/out streams and starts reading packets
+     * Handles a complete packet
+     *
+     * Any packet received is considered a policy file request.
+     *
+     * @param packet Received packet
      */
-    public void run()
+    public void onPacket(String packet)
     {
-        try {
-            String packet = this._in.readLine();
-
-            if(packet != null) {
-                this.send(this._policyFile);
-            }
-        } catch(Exception e) {
-            com.manulaiko.tabitha.Console.println("Couldn't read packet!");
-            com.manulaiko.tabitha.Console.println(e.getMessage());
-        }
+        this.send(this._policyFile);
     }
 }
@@ -1,12 +1,14 @@
 package com.manulaiko.blackeye.net.sockswork;
 
-import java.io.BufferedReader;
-import java.io.PrintWriter;
 import java.net.Socket;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 import com.manulaiko.blackeye.launcher.ServerManager;
 
 import com.manulaiko.blackeye.net.game.utils.PacketParser;
+import com.manulaiko.blackeye.net.game.utils.PacketWriter;
+import com.manulaiko.blackeye.net.sockswork.packets.Command;
 import com.manulaiko.blackeye.net.sockswork.packets.Packet;
 
 import com.manulaiko.tabitha.Console;
@@ -24,14 +26,22 @@ import com.manulaiko.tabitha.exceptions.NotFound;
 public class Connection extends com.manulaiko.tabitha.net.Connection
 {
     /**
-     * Input stream
+     * Packet parser, reused for each received packet
      */
-    private BufferedReader _in;
+    private PacketParser _parser = new PacketParser();
 
     /**
-     * Output stream
+     * Packet writer, reused for each sent command
+     */
+    private PacketWriter _writer = new PacketWriter();
+
+    /**
+     * Lock for `_writer`
+     *
+     * Held while the command is written to the socket, a monitor would
+     * pin the carrier thread of a virtual reader thread.
      */
-    private PrintWriter _out;
+    private final ReentrantLock _writerLock = new ReentrantLock();
 
     /**
      * Constructor
@@ -41,18 +51,6 @@ public class Connection extends com.manulaiko.tabitha.net.Connection
     public Connection(Socket socket)
     {
         super(socket);
-
-        try {
-            this._thread = new Thread(this);
-
-            this._in  = new BufferedReader(new java.io.InputStreamReader(this._socket.getInputStream()));
-            this._out = new PrintWriter(this._socket.getOutputStream());
-
-            this._thread.start();
-        } catch(Exception e) {
-            Console.println("Couldn't set in/out streams!");
-            Console.println(e.getMessage());
-        }
     }
 
     /**
@@ -65,6 +63,32 @@ public class Connection extends com.manulaiko.tabitha.net.Connection
         this.send(p.toString());
     }
 
+    /**
+     * Sends a command to the client
+     *
+     * The command is written to the connection's packet writer,
+     * without building intermediate strings.
+     *
+     * @param command Command to send
+     */
+    public void send(Command command)
+    {
+        this._writerLock.lock();
+        try {
+            this._writer.clear();
+            command.writeTo(this._writer);
+
+            if(Console.isEnabled(Console.TRACE)) {
+                Console.trace("Packet sent: {}", this._writer.toString());
+            }
+
+            this._writer.getBuffer().append((char)0x00);
+            this.write(this._writer.getBuffer());
+        } finally {
+            this._writerLock.unlock();
+        }
+    }
+
     /**
      * Sends a packet to the client
      *
@@ -72,47 +96,37 @@ public class Connection extends com.manulaiko.tabitha.net.Connection
      */
     public void send(String str)
     {
-        this._out.print(str + (char)0x00);
-        this._out.flush();
+        this.write(str + (char)0x00);
 
-        Console.println("Packet sent: "+ str);
+        Console.trace("Packet sent: {}", str);
     }
 
     /**
-     * Sets in/out streams and starts reading packets
+     * Handles a complete frame
+     *
+     * The frame is parsed in place, without building a string.
+     *
+     * @param bytes  Array containing the frame
+     * @param offset Index of the first byte of the frame
+     * @param length Length of the frame
      */
-    public void run()
+    public void onFrame(byte[] bytes, int offset, int length)
     {
-        try {
-            String packet = "";
-            char[] packetChar = new char[1];
-
-            //While the socket input stream (call it packet) char isn't -1 process the packet
-            while(this._in.read(packetChar, 0, 1) != -1) {
-                //If the char isn't null, new line or return char
-                if(packetChar[0] != '\u0000' && packetChar[0] != '\n' && packetChar[0] != '\r') {
-                    //packet increase it's value with the char
-                    //Example:
-                    // packet = RD, packetChar[0] = Y;
-                    // now packet = RDY;
-                    packet += packetChar[0];
-                } else if (!packet.isEmpty()) {
-                    //If the packet isn't "" we have the complete packet
-
-                    //Concat the packet with UTF8
-                    packet = new String(packet.getBytes(), "UTF8");
-                    PacketParser p = new PacketParser(packet);
-
-                    this.handle(p);
-
-                    packet = "";
-                }
-            }
-        } catch(Exception e) {
-            Console.println("Couldn't read packet!");
-            Console.println(e.getMessage());
-            e.printStackTrace();
-        }
+        this._parser.wrap(bytes, offset, length);
+
+        this.handle(this._parser);
+    }
+
+    /**
+     * Handles a complete packet
+     *
+     * @param packet Received packet
+     */
+    public void onPacket(String packet)
+    {
+        PacketParser p = new PacketParser(packet);
+
+        this.handle(p);
     }
 
     /**
@@ -122,11 +136,13 @@ public class Connection extends com.manulaiko.tabitha.net.Connection
      */
     public void handle(PacketParser packet)
     {
-        Console.println("Packet received: "+ packet);
+        if(Console.isEnabled(Console.TRACE)) {
+            Console.trace("Packet received: {}", packet.toString());
+        }
 
         try {
             Packet p = ServerManager.sockswork.packetFactory.get(packet);
-            p.handle(this);
+            p.handle(this, packet);
         } catch(NotFound e) {
             Console.println("No packet handler found for "+ packet);
         }
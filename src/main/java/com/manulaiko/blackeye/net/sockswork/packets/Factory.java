@@ -1,8 +1,7 @@
 package com.manulaiko.blackeye.net.sockswork.packets;
 
-import java.util.HashMap;
-
 import com.manulaiko.blackeye.net.game.utils.PacketParser;
+import com.manulaiko.blackeye.net.game.utils.Registry;
 
 import com.manulaiko.blackeye.net.sockswork.packets.commands.*;
 import com.manulaiko.blackeye.net.sockswork.packets.handlers.*;
@@ -15,6 +14,9 @@ import com.manulaiko.tabitha.exceptions.NotFound;
  *
  * Factory for building packets and retrieving handlers
  *
+ * Packets are kept in a {@see com.manulaiko.blackeye.net.game.utils.Registry}
+ * so lookups by id, name or class don't iterate.
+ *
  * @author Manulaiko <manulaiko@gmail.com>
  *
  * @package com.manulaiko.blackeye.net.game.packets
@@ -22,14 +24,9 @@ import com.manulaiko.tabitha.exceptions.NotFound;
 public class Factory
 {
     /**
-     * Available packet handlers
+     * Available packet handlers and commands
      */
-    private HashMap<Integer, Packet> _packets = new HashMap<>();
-
-    /**
-     * Available packet commands
-     */
-    private HashMap<Integer, Command> _commands = new HashMap<>();
+    private Registry<Integer, Packet, Command> _registry = new Registry<>(Packet::getName, Command::getName);
 
     /**
      * Constructor
@@ -43,10 +40,10 @@ public class Factory
         ///////////////////////////
         // Start Packet Handlers //
         ///////////////////////////
-        this._packets.put(3, new UpdateSessionID());
-        this._packets.put(5, new SetFactionID());
-        this._packets.put(7, new SetName());
-        this._packets.put(9, new GetData());
+        this._registry.addPacket(3, new UpdateSessionID());
+        this._registry.addPacket(5, new SetFactionID());
+        this._registry.addPacket(7, new SetName());
+        this._registry.addPacket(9, new GetData());
         /////////////////////////
         // End Packet Handlers //
         /////////////////////////
@@ -54,15 +51,15 @@ public class Factory
         ///////////////////////////
         // Start Packet Commands //
         ///////////////////////////
-        this._commands.put(4, new UpdateSessionIDResponse());
-        this._commands.put(6, new SetFactionIDResponse());
-        this._commands.put(8, new SetNameResponse());
-        this._commands.put(10, new SendData());
+        this._registry.addCommand(4, UpdateSessionIDResponse::new);
+        this._registry.addCommand(6, SetFactionIDResponse::new);
+        this._registry.addCommand(8, SetNameResponse::new);
+        this._registry.addCommand(10, SendData::new);
         /////////////////////////
         // End Packet Commands //
         /////////////////////////
 
-        Console.println(this._packets.size() + " packet handlers and commands loaded!");
+        Console.println(this._registry.getPacketsAmount() + " packet handlers and commands loaded!");
     }
 
     /**
@@ -78,14 +75,11 @@ public class Factory
     {
         int id = packet.readInt();
 
-        if(!this._packets.containsKey(id)) {
+        try {
+            return this._registry.getPacket(id);
+        } catch(NotFound e) {
             throw new NotFound("packet handler", packet.toString());
         }
-
-        Packet p = this._packets.get(id);
-        p.setPacket(packet);
-
-        return p;
     }
 
     /**
@@ -99,11 +93,7 @@ public class Factory
      */
     public Packet getByID(int packet) throws NotFound
     {
-        if(!this._packets.containsKey(packet)) {
-            throw new NotFound("packet handler", "id: "+ packet);
-        }
-
-        return this._packets.get(packet);
+        return this._registry.getPacket(packet);
     }
 
     /**
@@ -117,31 +107,21 @@ public class Factory
      */
     public Packet getByName(String name) throws NotFound
     {
-        for(java.util.Map.Entry<Integer, Packet> packet : this._packets.entrySet()) {
-            if(packet.getValue().getName().equalsIgnoreCase(name)) {
-                return packet.getValue();
-            }
-        }
-
-        throw new NotFound("packet", name);
+        return this._registry.getPacketByName(name);
     }
 
     /**
-     * Finds and returns given packet handler
+     * Finds and returns given packet command
      *
-     * @param command Packet to find handler
+     * @param command Command id
      *
-     * @return Packet's handler
+     * @return New instance of the command
      *
-     * @throws NotFound If packet handler does not exist
+     * @throws NotFound If packet command does not exist
      */
     public Command getCommandByID(int command) throws NotFound
     {
-        if(!this._commands.containsKey(command)) {
-            throw new NotFound("packet command", "id: "+ command);
-        }
-
-        return this._commands.get(command);
+        return this._registry.getCommand(command);
     }
 
     /**
@@ -149,18 +129,30 @@ public class Factory
      *
      * @param name Command name
      *
-     * @return Command's handler
+     * @return New instance of the command
      *
      * @throws NotFound If packet command does not exist
      */
     public Command getCommandByName(String name) throws NotFound
     {
-        for(java.util.Map.Entry<Integer, Command> command : this._commands.entrySet()) {
-            if(command.getValue().getName().equalsIgnoreCase(name)) {
-                return command.getValue();
-            }
-        }
+        return this._registry.getCommandByName(name);
+    }
 
-        throw new NotFound("command", name);
+    /**
+     * Finds and returns given packet command by its class
+     *
+     * Example:
+     *
+     *     UpdateSessionIDResponse command = factory.getCommand(UpdateSessionIDResponse.class);
+     *
+     * @param type Command class
+     *
+     * @return New instance of the command
+     *
+     * @throws NotFound If packet command does not exist
+     */
+    public <T extends Command> T getCommand(Class<T> type) throws NotFound
+    {
+        return this._registry.getCommand(type);
     }
 }
@@ -6,33 +6,23 @@ import com.manulaiko.blackeye.net.sockswork.Connection;
 /**
  * Packet class
  *
+ * Handlers are stateless: a single instance is shared by all the
+ * connections and the received packet is passed to `handle`, so
+ * packets can be handled by several threads at the same time.
+ *
  * @author Manulaiko <manulaiko@gmail.com>
  *
  * @package com.manulaiko.blackeye.net.game.packets
  */
 public abstract class Packet
 {
-    /**
-     * Packet parser object
-     */
-    protected PacketParser _packet;
-
-    /**
-     * Sets the packet parser
-     *
-     * @param packet Packet parser
-     */
-    public void setPacket(PacketParser packet)
-    {
-        this._packet = packet;
-    }
-
     /**
      * Handles the packet
      *
      * @param connection Connection object that received the packet
+     * @param packet     Received packet, the index pointer is after the packet id
      */
-    public abstract void handle(Connection connection);
+    public abstract void handle(Connection connection, PacketParser packet);
 
     /**
      * Returns packet name
@@ -52,20 +52,18 @@ public class SendData extends com.manulaiko.blackeye.net.sockswork.packets.Comma
     }
 
     /**
-     * Builds and returns the packet
+     * Writes the fields of the command
      *
-     * @return Packet as a string
+     * @param packet Packet writer
      */
-    public String toString()
+    protected void write(com.manulaiko.blackeye.net.game.utils.PacketWriter packet)
     {
-        this._packet.add(10);
-        this._packet.add(this.experience);
-        this._packet.add(this.honor);
-        this._packet.add(this.credits);
-        this._packet.add(this.uridium);
-        this._packet.add(this.level);
-        this._packet.add(this.jackpot);
-
-        return this._packet.toString();
+        packet.add(10);
+        packet.add(this.experience);
+        packet.add(this.honor);
+        packet.add(this.credits);
+        packet.add(this.uridium);
+        packet.add(this.level);
+        packet.add(this.jackpot);
     }
 }
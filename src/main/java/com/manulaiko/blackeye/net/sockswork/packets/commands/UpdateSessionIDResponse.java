@@ -27,15 +27,13 @@ public class UpdateSessionIDResponse extends com.manulaiko.blackeye.net.sockswor
     }
 
     /**
-     * Builds and returns the packet
+     * Writes the fields of the command
      *
-     * @return Packet as a string
+     * @param packet Packet writer
      */
-    public String toString()
+    protected void write(com.manulaiko.blackeye.net.game.utils.PacketWriter packet)
     {
-        this._packet.add(4);
-        this._packet.add(this.status);
-
-        return this._packet.toString();
+        packet.add(4);
+        packet.add(this.status);
     }
 }
@@ -2,6 +2,8 @@ package com.manulaiko.blackeye.net.sockswork.packets.handlers;
 
 import com.manulaiko.blackeye.launcher.ServerManager;
 
+import com.manulaiko.blackeye.net.game.utils.PacketParser;
+
 /**
  * GetData packet
  *
@@ -27,33 +29,31 @@ public class GetData extends com.manulaiko.blackeye.net.sockswork.packets.Packet
      * Handles the packet
      *
      * @param connection Connection that received the packet
+     * @param packet     Received packet
      */
-    public void handle(com.manulaiko.blackeye.net.sockswork.Connection connection)
+    public void handle(com.manulaiko.blackeye.net.sockswork.Connection connection, PacketParser packet)
     {
-        int accountID = this._packet.readInt();
-
-        try {
-            com.manulaiko.blackeye.simulator.account.Account a = com.manulaiko.blackeye.launcher.GameManager.accounts.getByID(accountID);
-
-            com.manulaiko.blackeye.net.sockswork.packets.commands.SendData response = (com.manulaiko.blackeye.net.sockswork.packets.commands.SendData) ServerManager.sockswork.packetFactory.getCommandByName("SendData");
-            response.experience = a.experience;
-            response.honor      = a.honor;
-            response.credits    = a.credits;
-            response.uridium    = a.uridium;
-            response.level      = a.levelsID;
-            response.jackpot    = a.jackpot;
-
-            connection.send(response.toString());
-        } catch(com.manulaiko.tabitha.exceptions.NotFound e) {
-            com.manulaiko.tabitha.Console.println(e.getMessage());
+        int accountID = packet.readInt();
 
+        connection.reply(com.manulaiko.blackeye.launcher.GameManager.accounts.getByIDAsync(accountID), (a, e) -> {
             try {
-                com.manulaiko.blackeye.net.sockswork.packets.commands.SendData response = (com.manulaiko.blackeye.net.sockswork.packets.commands.SendData) ServerManager.sockswork.packetFactory.getCommandByName("SendData");
-
-                connection.send(response.toString());
+                com.manulaiko.blackeye.net.sockswork.packets.commands.SendData response = ServerManager.sockswork.packetFactory.getCommand(com.manulaiko.blackeye.net.sockswork.packets.commands.SendData.class);
+
+                if(e != null) {
+                    com.manulaiko.tabitha.Console.println(e.getMessage());
+                } else {
+                    response.experience = a.experience;
+                    response.honor      = a.honor;
+                    response.credits    = a.credits;
+                    response.uridium    = a.uridium;
+                    response.level      = a.levelsID;
+                    response.jackpot    = a.jackpot;
+                }
+
+                connection.send(response);
             } catch(com.manulaiko.tabitha.exceptions.NotFound e1) {
                 com.manulaiko.tabitha.Console.println(e1.getMessage());
             }
-        }
+        });
     }
 }
@@ -2,11 +2,11 @@ package com.manulaiko.blackeye.net.sockswork.packets.handlers;
 
 import com.manulaiko.blackeye.launcher.GameManager;
 import com.manulaiko.blackeye.launcher.ServerManager;
-import com.manulaiko.blackeye.simulator.account.Account;
 
 import com.manulaiko.blackeye.net.sockswork.Connection;
 import com.manulaiko.blackeye.net.sockswork.packets.Packet;
 import com.manulaiko.blackeye.net.sockswork.packets.commands.SetFactionIDResponse;
+import com.manulaiko.blackeye.net.game.utils.PacketParser;
 
 import com.manulaiko.tabitha.Console;
 import com.manulaiko.tabitha.exceptions.NotFound;
@@ -36,32 +36,31 @@ public class SetFactionID extends Packet
      * Handles the packet
      *
      * @param connection Connection that received the packet
+     * @param packet     Received packet
      */
-    public void handle(Connection connection)
+    public void handle(Connection connection, PacketParser packet)
     {
-        int accountID = this._packet.readInt();
-        int factionID = this._packet.readInt();
+        int accountID = packet.readInt();
+        int factionID = packet.readInt();
 
-        try {
-            Account a = GameManager.accounts.getByID(accountID);
-
-            a.factionsID = factionID;
+        connection.reply(GameManager.accounts.getByIDAsync(accountID), (a, e) -> {
+            try {
+                SetFactionIDResponse response = ServerManager.sockswork.packetFactory.getCommand(SetFactionIDResponse.class);
 
-            SetFactionIDResponse response = (SetFactionIDResponse) ServerManager.sockswork.packetFactory.getCommandByName("SetFactionIDResponse");
-            response.status = 1;
+                if(e != null) {
+                    Console.println(e.getMessage());
 
-            connection.send(response.toString());
-        } catch(NotFound e) {
-            Console.println(e.getMessage());
+                    response.status = 0;
+                } else {
+                    a.setFactionsID(factionID);
 
-            try {
-                SetFactionIDResponse response = (SetFactionIDResponse) ServerManager.sockswork.packetFactory.getCommandByName("SetFactionIDResponse");
-                response.status = 0;
+                    response.status = 1;
+                }
 
-                connection.send(response.toString());
+                connection.send(response);
             } catch(NotFound e1) {
                 Console.println(e1.getMessage());
             }
-        }
+        });
     }
 }
@@ -2,6 +2,8 @@ package com.manulaiko.blackeye.net.sockswork.packets.handlers;
 
 import com.manulaiko.blackeye.launcher.ServerManager;
 
+import com.manulaiko.blackeye.net.game.utils.PacketParser;
+
 /**
  * SetName packet
  *
@@ -27,32 +29,31 @@ public class SetName extends com.manulaiko.blackeye.net.sockswork.packets.Packet
      * Handles the packet
      *
      * @param connection Connection that received the packet
+     * @param packet     Received packet
      */
-    public void handle(com.manulaiko.blackeye.net.sockswork.Connection connection)
+    public void handle(com.manulaiko.blackeye.net.sockswork.Connection connection, PacketParser packet)
     {
-        int accountID = this._packet.readInt();
-        String name   = this._packet.readString();
-
-        try {
-            com.manulaiko.blackeye.simulator.account.Account a = com.manulaiko.blackeye.launcher.GameManager.accounts.getByID(accountID);
+        int accountID = packet.readInt();
+        String name   = packet.readString();
 
-            a.name = name;
+        connection.reply(com.manulaiko.blackeye.launcher.GameManager.accounts.getByIDAsync(accountID), (a, e) -> {
+            try {
+                com.manulaiko.blackeye.net.sockswork.packets.commands.SetNameResponse response = ServerManager.sockswork.packetFactory.getCommand(com.manulaiko.blackeye.net.sockswork.packets.commands.SetNameResponse.class);
 
-            com.manulaiko.blackeye.net.sockswork.packets.commands.SetNameResponse response = (com.manulaiko.blackeye.net.sockswork.packets.commands.SetNameResponse) ServerManager.sockswork.packetFactory.getCommandByName("SetNameResponse");
-            response.status = 1;
+                if(e != null) {
+                    com.manulaiko.tabitha.Console.println(e.getMessage());
 
-            connection.send(response.toString());
-        } catch(com.manulaiko.tabitha.exceptions.NotFound e) {
-            com.manulaiko.tabitha.Console.println(e.getMessage());
+                    response.status = 0;
+                } else {
+                    com.manulaiko.blackeye.launcher.GameManager.accounts.update(a, () -> a.setName(name));
 
-            try {
-                com.manulaiko.blackeye.net.sockswork.packets.commands.SetNameResponse response = (com.manulaiko.blackeye.net.sockswork.packets.commands.SetNameResponse) ServerManager.sockswork.packetFactory.getCommandByName("SetNameResponse");
-                response.status = 0;
+                    response.status = 1;
+                }
 
-                connection.send(response.toString());
+                connection.send(response);
             } catch(com.manulaiko.tabitha.exceptions.NotFound e1) {
                 com.manulaiko.tabitha.Console.println(e1.getMessage());
             }
-        }
+        });
     }
 }
@@ -2,11 +2,11 @@ package com.manulaiko.blackeye.net.sockswork.packets.handlers;
 
 import com.manulaiko.blackeye.launcher.GameManager;
 import com.manulaiko.blackeye.launcher.ServerManager;
-import com.manulaiko.blackeye.simulator.account.Account;
 
 import com.manulaiko.blackeye.net.sockswork.Connection;
 import com.manulaiko.blackeye.net.sockswork.packets.Packet;
 import com.manulaiko.blackeye.net.sockswork.packets.commands.UpdateSessionIDResponse;
+import com.manulaiko.blackeye.net.game.utils.PacketParser;
 
 import com.manulaiko.tabitha.Console;
 import com.manulaiko.tabitha.exceptions.NotFound;
@@ -36,38 +36,33 @@ public class UpdateSessionID extends Packet
      * Handles the packet
      *
      * @param connection Connection that received the packet
+     * @param packet     Received packet
      */
-    public void handle(Connection connection)
+    public void handle(Connection connection, PacketParser packet)
     {
-        int    accountID = this._packet.readInt();
-        String sessionID = this._packet.readString();
+        int    accountID = packet.readInt();
+        String sessionID = packet.readString();
 
-        try {
-            Account a = GameManager.accounts.getByID(accountID);
-            a.sessionID = sessionID;
+        connection.reply(GameManager.accounts.getByIDAsync(accountID), (a, e) -> {
+            try {
+                UpdateSessionIDResponse response = ServerManager.sockswork.packetFactory.getCommand(UpdateSessionIDResponse.class);
 
-            Console.println("SessionID updated for account with ID "+ accountID);
-        } catch(NotFound e) {
-            Console.println("Account "+ accountID +" does not exists!");
+                if(e != null) {
+                    Console.println("Account "+ accountID +" does not exists!");
 
-            try {
-                UpdateSessionIDResponse response = (UpdateSessionIDResponse) ServerManager.sockswork.packetFactory.getCommandByName("UpdateSessionIDResponse");
-                response.status = 0;
+                    response.status = 0;
+                } else {
+                    a.setSessionID(sessionID);
+
+                    Console.println("SessionID updated for account with ID "+ accountID);
 
-                connection.send(response.toString());
-                return;
+                    response.status = 1;
+                }
+
+                connection.send(response);
             } catch(NotFound e1) {
                 //empty
             }
-        }
-
-        try {
-            UpdateSessionIDResponse response = (UpdateSessionIDResponse) ServerManager.sockswork.packetFactory.getCommandByName("UpdateSessionIDResponse");
-            response.status = 1;
-
-            connection.send(response.toString());
-        } catch(NotFound e) {
-            //empty
-        }
+        });
     }
 }
@@ -0,0 +1,24 @@
+package com.manulaiko.blackeye.simulator;
+
+import com.manulaiko.tabitha.exceptions.NotFound;
+
+/**
+ * Loader interface
+ *
+ * Loads something that isn't instanced yet from the database.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.blackeye.simulator
+ */
+public interface ILoader<T>
+{
+    /**
+     * Loads the object
+     *
+     * @return Loaded object
+     *
+     * @throws NotFound If it doesn't exist
+     */
+    T load() throws NotFound;
+}
@@ -0,0 +1,105 @@
+package com.manulaiko.blackeye.simulator;
+
+import com.manulaiko.blackeye.launcher.PersistenceManager;
+
+/**
+ * Persistable class
+ *
+ * Base class of the objects saved by {@see com.manulaiko.blackeye.launcher.PersistenceManager}.
+ *
+ * Each saved field has a number, that is the index of its column in
+ * `getColumns`. The setters of the subclasses change the field and
+ * mark its bit as dirty, the first dirty field queues the object to
+ * be saved. When it's saved, only the columns of the dirty fields are
+ * updated:
+ *
+ *     account.setCredits(100);   // Queues the account
+ *     account.addUridium(10);    // Only marks the field
+ *
+ *     // UPDATE `accounts` SET `credits`=?, `uridium`=? WHERE `id`=?
+ *
+ * Fields must not be assigned directly once the object is built,
+ * the change wouldn't be saved.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.blackeye.simulator
+ */
+public abstract class Persistable
+{
+    /**
+     * Dirty fields, a bit for each field
+     */
+    private long _dirty = 0;
+
+    /**
+     * Returns the column names of the saved fields
+     *
+     * @return Column names, by field number
+     */
+    public abstract String[] getColumns();
+
+    /**
+     * Returns the value of a saved field
+     *
+     * @param field Field number
+     *
+     * @return Value written to its column
+     */
+    public abstract Object getValue(int field);
+
+    /**
+     * Checks whether any field is dirty or not
+     *
+     * @return True if a field changed since the last save, false if not
+     */
+    public synchronized boolean isDirty()
+    {
+        return this._dirty != 0;
+    }
+
+    /**
+     * Returns the dirty fields and marks them as clean
+     *
+     * Called when the object is saved.
+     *
+     * @return Dirty fields, a bit for each field
+     */
+    public synchronized long takeDirty()
+    {
+        long dirty = this._dirty;
+        this._dirty = 0;
+
+        return dirty;
+    }
+
+    /**
+     * Marks fields as dirty again
+     *
+     * Called when the object couldn't be saved.
+     *
+     * @param fields Fields to mark, a bit for each field
+     */
+    public void restoreDirty(long fields)
+    {
+        boolean isClean;
+        synchronized(this) {
+            isClean      = (this._dirty == 0);
+            this._dirty |= fields;
+        }
+
+        if(isClean && fields != 0) {
+            PersistenceManager.markDirty(this);
+        }
+    }
+
+    /**
+     * Marks a field as dirty
+     *
+     * @param field Field number
+     */
+    protected void _markDirty(int field)
+    {
+        this.restoreDirty(1L << field);
+    }
+}
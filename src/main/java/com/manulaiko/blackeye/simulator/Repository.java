@@ -0,0 +1,581 @@
+package com.manulaiko.blackeye.simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import com.manulaiko.tabitha.exceptions.NotFound;
+
+/**
+ * Repository class
+ *
+ * Base class of the simulator factories, holds the instanced objects
+ * by id and keeps a hash index for each field they're looked up by
+ * (like `name` or `tag`), so every lookup is a single map access
+ * instead of a scan of all objects.
+ *
+ * Indexes are updated when an object is added or removed. Changes to
+ * an indexed field must be done through `update`, so the object is
+ * indexed again with its new value:
+ *
+ *     GameManager.accounts.update(account, () -> account.setName(name));
+ *
+ * If more than one object has the same value, the index returns the
+ * first one that was added. Once it's removed, the index returns the
+ * next one that was added.
+ *
+ * Fields shared by many objects (like the map of a portal) are indexed
+ * with groups, that return all the objects with a value:
+ *
+ *     HashMap<Integer, Portal> portals = GameManager.portals.findAll("mapID", 1);
+ *
+ * Once a factory has loaded its whole table it sets the loaded all flag,
+ * so an empty result means there's nothing in the database either.
+ *
+ * Tables of static data (like items or maps) are loaded with `_replace`,
+ * so loading them again (for example, with `reinitialize_gameManager`)
+ * replaces the instanced objects with the rows of the database.
+ *
+ * Objects that aren't instanced are loaded with `_getOrLoad`, that only
+ * runs one load for each key at a time. If many connection threads ask
+ * for the same missing account (for example, during a login storm),
+ * the first one queries the database and the others wait for its result:
+ *
+ *     return this._getOrLoad(id, () -> this.loadByID(id));
+ *
+ * Objects are stored in concurrent maps, so lookups don't take any lock.
+ * Changes (adding, removing and indexing objects) are synchronized, so
+ * the indexes are always consistent with the instanced objects.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.blackeye.simulator
+ */
+public abstract class Repository<T>
+{
+    /**
+     * Returns the id of an object
+     */
+    private ToIntFunction<T> _id;
+
+    /**
+     * Instanced objects by id
+     */
+    private ConcurrentHashMap<Integer, T> _entries = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes by name
+     */
+    private HashMap<String, Index<T>> _indexes = new HashMap<>();
+
+    /**
+     * Groups by name
+     */
+    private HashMap<String, Group<T>> _groups = new HashMap<>();
+
+    /**
+     * Loads in progress by key
+     */
+    private ConcurrentHashMap<Object, CompletableFuture<Object>> _loading = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the whole table is loaded or not
+     */
+    private volatile boolean _isLoadedAll = false;
+
+    /**
+     * Constructor
+     *
+     * @param id Returns the id of an object
+     */
+    public Repository(ToIntFunction<T> id)
+    {
+        this._id = id;
+    }
+
+    /**
+     * Returns an instanced object
+     *
+     * @param id Object id
+     *
+     * @return The object, null if it isn't instanced
+     */
+    public T find(int id)
+    {
+        return this._entries.get(id);
+    }
+
+    /**
+     * Returns an instanced object by an indexed field
+     *
+     * @param index Index name
+     * @param key   Field value
+     *
+     * @return The object, null if it isn't instanced
+     */
+    public T find(String index, Object key)
+    {
+        if(key == null) {
+            return null;
+        }
+
+        return this._indexes.get(index).entries.get(key);
+    }
+
+    /**
+     * Returns all instanced objects with the same value in a grouped field
+     *
+     * @param group Group name
+     * @param key   Field value
+     *
+     * @return Copy of the objects by id, empty if there's none
+     */
+    public HashMap<Integer, T> findAll(String group, Object key)
+    {
+        if(key == null) {
+            return new HashMap<>();
+        }
+
+        ConcurrentHashMap<Integer, T> entries = this._groups.get(group).entries.get(key);
+
+        if(entries == null) {
+            return new HashMap<>();
+        }
+
+        return new HashMap<>(entries);
+    }
+
+    /**
+     * Checks whether the whole table is loaded or not
+     *
+     * @return True if all objects are instanced, false if not
+     */
+    public boolean isLoadedAll()
+    {
+        return this._isLoadedAll;
+    }
+
+    /**
+     * Changes an object and indexes it again
+     *
+     * @param entity Object to change
+     * @param change Changes the indexed fields of the object
+     */
+    public synchronized void update(T entity, Runnable change)
+    {
+        boolean isInstanced = (this._entries.get(this._id.applyAsInt(entity)) == entity);
+
+        if(isInstanced) {
+            this._unindex(entity);
+        }
+
+        change.run();
+
+        if(isInstanced) {
+            this._index(entity);
+        }
+    }
+
+    /**
+     * Removes an instanced object
+     *
+     * @param id Object id
+     *
+     * @return Removed object, null if it wasn't instanced
+     */
+    public synchronized T remove(int id)
+    {
+        T entity = this._entries.remove(id);
+
+        if(entity != null) {
+            this._unindex(entity);
+        }
+
+        return entity;
+    }
+
+    /**
+     * Returns all instanced objects
+     *
+     * @return Copy of the instanced objects by id
+     */
+    public HashMap<Integer, T> getAll()
+    {
+        return new HashMap<>(this._entries);
+    }
+
+    /**
+     * Returns the amount of instanced objects
+     *
+     * @return Amount of instanced objects
+     */
+    public int getAmount()
+    {
+        return this._entries.size();
+    }
+
+    /**
+     * Adds an index
+     *
+     * Must be called from the constructor, before any object is added.
+     *
+     * @param name Index name
+     * @param key  Returns the indexed field of an object
+     */
+    protected void _addIndex(String name, Function<T, ?> key)
+    {
+        this._indexes.put(name, new Index<>(key));
+    }
+
+    /**
+     * Adds a group
+     *
+     * Must be called from the constructor, before any object is added.
+     *
+     * @param name Group name
+     * @param key  Returns the grouped field of an object
+     */
+    protected void _addGroup(String name, Function<T, ?> key)
+    {
+        this._groups.put(name, new Group<>(key));
+    }
+
+    /**
+     * Sets the loaded all flag
+     *
+     * Called once the whole table is loaded.
+     *
+     * @param isLoadedAll Whether the whole table is loaded or not
+     */
+    protected void _setLoadedAll(boolean isLoadedAll)
+    {
+        this._isLoadedAll = isLoadedAll;
+    }
+
+    /**
+     * Returns an instanced object or loads it
+     *
+     * @param id     Object id
+     * @param loader Loads the object from the database
+     *
+     * @return The object
+     *
+     * @throws NotFound If it doesn't exist
+     */
+    protected T _getOrLoad(int id, ILoader<T> loader) throws NotFound
+    {
+        return this._singleFlight(id, () -> this.find(id), () -> this._add(loader.load()));
+    }
+
+    /**
+     * Returns an instanced object by an indexed field or loads it
+     *
+     * @param index  Index name
+     * @param key    Field value
+     * @param loader Loads the object from the database
+     *
+     * @return The object
+     *
+     * @throws NotFound If it doesn't exist
+     */
+    protected T _getOrLoad(String index, Object key, ILoader<T> loader) throws NotFound
+    {
+        return this._singleFlight(
+                Arrays.asList("index", index, key),
+                () -> this.find(index, key),
+                () -> this._add(loader.load())
+        );
+    }
+
+    /**
+     * Returns all instanced objects of a group or loads them
+     *
+     * @param group  Group name
+     * @param key    Field value
+     * @param loader Loads the objects from the database
+     *
+     * @return Copy of the objects by id
+     *
+     * @throws NotFound If they don't exist
+     */
+    protected HashMap<Integer, T> _getOrLoadAll(String group, Object key, ILoader<HashMap<Integer, T>> loader) throws NotFound
+    {
+        return this._singleFlight(
+                Arrays.asList("group", group, key),
+                () -> {
+                    HashMap<Integer, T> entries = this.findAll(group, key);
+
+                    return entries.isEmpty() ? null : entries;
+                },
+                () -> {
+                    HashMap<Integer, T> entries = new HashMap<>();
+
+                    for(T entity : loader.load().values()) {
+                        entity = this._add(entity);
+
+                        entries.put(this._id.applyAsInt(entity), entity);
+                    }
+
+                    return entries;
+                }
+        );
+    }
+
+    /**
+     * Adds an object
+     *
+     * If an object with the same id is already instanced (for example,
+     * another thread loaded it meanwhile), that one is kept.
+     *
+     * @param entity Object to add
+     *
+     * @return Instanced object
+     */
+    protected synchronized T _add(T entity)
+    {
+        T instanced = this._entries.putIfAbsent(this._id.applyAsInt(entity), entity);
+
+        if(instanced != null) {
+            return instanced;
+        }
+
+        this._index(entity);
+
+        return entity;
+    }
+
+    /**
+     * Adds an object, replacing the instanced one with the same id
+     *
+     * Used when a table is loaded again, so the changes of its rows
+     * are picked up. The replaced object is removed from all indexes.
+     *
+     * @param entity Object to add
+     *
+     * @return Added object
+     */
+    protected synchronized T _replace(T entity)
+    {
+        T old = this._entries.put(this._id.applyAsInt(entity), entity);
+
+        if(old != null) {
+            this._unindex(old);
+        }
+
+        this._index(entity);
+
+        return entity;
+    }
+
+    /**
+     * Runs a load only once at a time for each key
+     *
+     * The first thread that misses the key runs the load, the others
+     * wait for its result (or its exception) instead of running the same
+     * query again.
+     *
+     * The key is checked again once the load is registered, in case
+     * another load finished between the first check and the registration.
+     *
+     * @param key    Load key
+     * @param cached Returns the instanced result, null if there's none
+     * @param loader Loads the result
+     *
+     * @return The result
+     *
+     * @throws NotFound If it doesn't exist
+     */
+    @SuppressWarnings("unchecked")
+    private <R> R _singleFlight(Object key, Supplier<R> cached, ILoader<R> loader) throws NotFound
+    {
+        R result = cached.get();
+        if(result != null) {
+            return result;
+        }
+
+        CompletableFuture<Object> future  = new CompletableFuture<>();
+        CompletableFuture<Object> running = this._loading.putIfAbsent(key, future);
+
+        if(running != null) {
+            try {
+                return (R)running.join();
+            } catch(CompletionException e) {
+                if(e.getCause() instanceof NotFound) {
+                    throw (NotFound)e.getCause();
+                }
+                if(e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException)e.getCause();
+                }
+
+                throw e;
+            }
+        }
+
+        try {
+            result = cached.get();
+            if(result == null) {
+                result = loader.load();
+            }
+
+            future.complete(result);
+
+            return result;
+        } catch(Throwable e) {
+            future.completeExceptionally(e);
+
+            throw e;
+        } finally {
+            this._loading.remove(key, future);
+        }
+    }
+
+    /**
+     * Adds an object to all indexes
+     *
+     * @param entity Object to index
+     */
+    private void _index(T entity)
+    {
+        for(Index<T> index : this._indexes.values()) {
+            Object key = index.key.apply(entity);
+
+            if(key == null) {
+                continue;
+            }
+
+            T indexed = index.entries.putIfAbsent(key, entity);
+            if(indexed != null && indexed != entity) {
+                index.duplicates.computeIfAbsent(key, k -> new ArrayList<>()).add(entity);
+            }
+        }
+
+        int id = this._id.applyAsInt(entity);
+        for(Group<T> group : this._groups.values()) {
+            Object key = group.key.apply(entity);
+
+            if(key != null) {
+                group.entries.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                             .put(id, entity);
+            }
+        }
+    }
+
+    /**
+     * Removes an object from all indexes
+     *
+     * @param entity Object to remove
+     */
+    private void _unindex(T entity)
+    {
+        for(Index<T> index : this._indexes.values()) {
+            Object key = index.key.apply(entity);
+
+            if(key == null) {
+                continue;
+            }
+
+            ArrayList<T> duplicates = index.duplicates.get(key);
+
+            if(index.entries.remove(key, entity)) {
+                // The next object with the same value takes its place
+                if(duplicates != null) {
+                    index.entries.put(key, duplicates.remove(0));
+                }
+            } else if(duplicates != null) {
+                duplicates.remove(entity);
+            }
+
+            if(duplicates != null && duplicates.isEmpty()) {
+                index.duplicates.remove(key);
+            }
+        }
+
+        int id = this._id.applyAsInt(entity);
+        for(Group<T> group : this._groups.values()) {
+            Object key = group.key.apply(entity);
+            if(key == null) {
+                continue;
+            }
+
+            ConcurrentHashMap<Integer, T> entries = group.entries.get(key);
+
+            if(entries != null && entries.remove(id, entity) && entries.isEmpty()) {
+                group.entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Hash index of a field
+     *
+     * @author Manulaiko <manulaiko@gmail.com>
+     *
+     * @package com.manulaiko.blackeye.simulator
+     */
+    private static class Index<T>
+    {
+        /**
+         * Returns the indexed field of an object
+         */
+        public Function<T, ?> key;
+
+        /**
+         * Objects by field value
+         */
+        public ConcurrentHashMap<Object, T> entries = new ConcurrentHashMap<>();
+
+        /**
+         * Objects that aren't in `entries` because another one has the
+         * same value, in the order they were added, by field value
+         *
+         * Only changed with the repository lock held.
+         */
+        public HashMap<Object, ArrayList<T>> duplicates = new HashMap<>();
+
+        /**
+         * Constructor
+         *
+         * @param key Returns the indexed field of an object
+         */
+        public Index(Function<T, ?> key)
+        {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Objects grouped by a field
+     *
+     * @author Manulaiko <manulaiko@gmail.com>
+     *
+     * @package com.manulaiko.blackeye.simulator
+     */
+    private static class Group<T>
+    {
+        /**
+         * Returns the grouped field of an object
+         */
+        public Function<T, ?> key;
+
+        /**
+         * Objects by id, by field value
+         */
+        public ConcurrentHashMap<Object, ConcurrentHashMap<Integer, T>> entries = new ConcurrentHashMap<>();
+
+        /**
+         * Constructor
+         *
+         * @param key Returns the grouped field of an object
+         */
+        public Group(Function<T, ?> key)
+        {
+            this.key = key;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.manulaiko.blackeye.simulator.account;
 
+import com.manulaiko.blackeye.simulator.Persistable;
 import com.manulaiko.blackeye.simulator.account.equipment.hangar.Hangar;
 import com.manulaiko.blackeye.simulator.clan.Clan;
 import com.manulaiko.blackeye.simulator.level.Level;
@@ -7,12 +8,40 @@ import com.manulaiko.blackeye.simulator.level.Level;
 /**
  * Account class
  *
+ * Saved fields must be changed with their setters, so only the
+ * changed columns are updated.
+ *
  * @author Manulaiko <manulaiko@gmail.com>
  *
  * @package com.manulaiko.blackeye.simulator.account
  */
-public class Account
+public class Account extends Persistable
 {
+    /**
+     * Saved fields
+     */
+    public static final int SESSION_ID  = 0;
+    public static final int NAME        = 1;
+    public static final int FACTIONS_ID = 2;
+    public static final int CLANS_ID    = 3;
+    public static final int URIDIUM     = 4;
+    public static final int CREDITS     = 5;
+    public static final int JACKPOT     = 6;
+    public static final int EXPERIENCE  = 7;
+    public static final int HONOR       = 8;
+    public static final int LEVELS_ID   = 9;
+    public static final int IS_PREMIUM  = 10;
+    public static final int RANKS_ID    = 11;
+    public static final int RANK_POINTS = 12;
+
+    /**
+     * Column names, by field number
+     */
+    private static final String[] _columns = {
+        "session_id", "name", "factions_id", "clans_id", "uridium", "credits", "jackpot",
+        "experience", "honor", "levels_id", "is_premium", "ranks_id", "rank_points"
+    };
+
     /**
      * Account ID
      */
@@ -134,6 +163,194 @@ public class Account
         this.rankPoints = rankPoints;
     }
 
+    ///////////////////////
+    // Start set methods //
+    ///////////////////////
+    /**
+     * Sets session ID
+     *
+     * @param sessionID Session ID
+     */
+    public void setSessionID(String sessionID)
+    {
+        this.sessionID = sessionID;
+        this._markDirty(Account.SESSION_ID);
+    }
+
+    /**
+     * Sets account name
+     *
+     * The name is indexed, so it must be called inside `GameManager.accounts.update`.
+     *
+     * @param name Account name
+     */
+    public void setName(String name)
+    {
+        this.name = name;
+        this._markDirty(Account.NAME);
+    }
+
+    /**
+     * Sets faction ID
+     *
+     * @param factionsID Faction ID
+     */
+    public void setFactionsID(int factionsID)
+    {
+        this.factionsID = factionsID;
+        this._markDirty(Account.FACTIONS_ID);
+    }
+
+    /**
+     * Sets clan ID
+     *
+     * @param clansID Clan ID
+     */
+    public void setClansID(int clansID)
+    {
+        this.clansID = clansID;
+        this._markDirty(Account.CLANS_ID);
+    }
+
+    /**
+     * Sets uridium
+     *
+     * @param uridium Uridium
+     */
+    public void setUridium(int uridium)
+    {
+        this.uridium = uridium;
+        this._markDirty(Account.URIDIUM);
+    }
+
+    /**
+     * Adds uridium
+     *
+     * @param amount Amount to add, negative to subtract
+     */
+    public synchronized void addUridium(int amount)
+    {
+        this.setUridium(this.uridium + amount);
+    }
+
+    /**
+     * Sets credits
+     *
+     * @param credits Credits
+     */
+    public void setCredits(long credits)
+    {
+        this.credits = credits;
+        this._markDirty(Account.CREDITS);
+    }
+
+    /**
+     * Adds credits
+     *
+     * @param amount Amount to add, negative to subtract
+     */
+    public synchronized void addCredits(long amount)
+    {
+        this.setCredits(this.credits + amount);
+    }
+
+    /**
+     * Sets jackpot
+     *
+     * @param jackpot Jackpot
+     */
+    public void setJackpot(double jackpot)
+    {
+        this.jackpot = jackpot;
+        this._markDirty(Account.JACKPOT);
+    }
+
+    /**
+     * Sets experience points
+     *
+     * @param experience Experience points
+     */
+    public void setExperience(long experience)
+    {
+        this.experience = experience;
+        this._markDirty(Account.EXPERIENCE);
+    }
+
+    /**
+     * Adds experience points
+     *
+     * @param amount Amount to add, negative to subtract
+     */
+    public synchronized void addExperience(long amount)
+    {
+        this.setExperience(this.experience + amount);
+    }
+
+    /**
+     * Sets honor points
+     *
+     * @param honor Honor points
+     */
+    public void setHonor(int honor)
+    {
+        this.honor = honor;
+        this._markDirty(Account.HONOR);
+    }
+
+    /**
+     * Adds honor points
+     *
+     * @param amount Amount to add, negative to subtract
+     */
+    public synchronized void addHonor(int amount)
+    {
+        this.setHonor(this.honor + amount);
+    }
+
+    /**
+     * Sets level ID
+     *
+     * @param levelsID Level ID
+     */
+    public void setLevelsID(int levelsID)
+    {
+        this.levelsID = levelsID;
+        this._markDirty(Account.LEVELS_ID);
+    }
+
+    /**
+     * Sets whether the account is premium or not
+     *
+     * @param isPremium Whether the account is premium or not
+     */
+    public void setIsPremium(boolean isPremium)
+    {
+        this.isPremium = isPremium;
+        this._markDirty(Account.IS_PREMIUM);
+    }
+
+    /**
+     * Sets rank ID
+     *
+     * @param ranksID Rank ID
+     */
+    public void setRanksID(int ranksID)
+    {
+        this.ranksID = ranksID;
+        this._markDirty(Account.RANKS_ID);
+    }
+
+    /**
+     * Sets rank points
+     *
+     * @param rankPoints Rank points
+     */
+    public void setRankPoints(int rankPoints)
+    {
+        this.rankPoints = rankPoints;
+        this._markDirty(Account.RANK_POINTS);
+    }
+
     /**
      * Sets clan object
      *
@@ -163,4 +380,45 @@ public class Account
     {
         this.level = level;
     }
+    /////////////////////
+    // End set methods //
+    /////////////////////
+
+    /**
+     * Returns the column names of the saved fields
+     *
+     * @return Column names, by field number
+     */
+    public String[] getColumns()
+    {
+        return Account._columns;
+    }
+
+    /**
+     * Returns the value of a saved field
+     *
+     * @param field Field number
+     *
+     * @return Value written to its column
+     */
+    public Object getValue(int field)
+    {
+        switch(field) {
+            case Account.SESSION_ID:  return this.sessionID;
+            case Account.NAME:        return this.name;
+            case Account.FACTIONS_ID: return this.factionsID;
+            case Account.CLANS_ID:    return this.clansID;
+            case Account.URIDIUM:     return this.uridium;
+            case Account.CREDITS:     return this.credits;
+            case Account.JACKPOT:     return this.jackpot;
+            case Account.EXPERIENCE:  return this.experience;
+            case Account.HONOR:       return this.honor;
+            case Account.LEVELS_ID:   return this.levelsID;
+            case Account.IS_PREMIUM:  return this.isPremium;
+            case Account.RANKS_ID:    return this.ranksID;
+            case Account.RANK_POINTS: return this.rankPoints;
+        }
+
+        throw new IllegalArgumentException("Account doesn't have field "+ field);
+    }
 }
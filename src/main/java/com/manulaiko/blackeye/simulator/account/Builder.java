@@ -1,6 +1,7 @@
 package com.manulaiko.blackeye.simulator.account;
 
 import java.sql.ResultSet;
+import java.util.HashMap;
 
 import com.manulaiko.blackeye.launcher.GameManager;
 
@@ -105,7 +106,13 @@ public class Builder
     private void _build(int id, int clansID, int levelsID)
     {
         try {
-            Hangar h = GameManager.accounts.hangars.getByID(id);
+            HashMap<Integer, Hangar> hangars = GameManager.accounts.hangars.getByAccountID(id);
+
+            //The hangar of an account has the same id as the account
+            Hangar h = hangars.get(id);
+            if(h == null) {
+                throw new NotFound("hangar", "id: "+ id);
+            }
 
             this._account.setHangar(h);
         } catch(NotFound e) {
@@ -1,13 +1,21 @@
 package com.manulaiko.blackeye.simulator.account;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Map.Entry;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+import com.manulaiko.blackeye.launcher.DatabaseManager;
 import com.manulaiko.blackeye.launcher.Main;
 
+import com.manulaiko.blackeye.simulator.Repository;
+import com.manulaiko.blackeye.simulator.account.equipment.hangar.Hangar;
+import com.manulaiko.blackeye.simulator.account.equipment.ship.Ship;
+
 import com.manulaiko.tabitha.Console;
 import com.manulaiko.tabitha.exceptions.NotFound;
 
@@ -16,22 +24,196 @@ import com.manulaiko.tabitha.exceptions.NotFound;
  *
  * Used for instance account objects with lazy-load
  *
+ * Accounts of logged in connections are pinned in memory, the rest are
+ * kept in a LRU cache of `core.accounts_cache_size` accounts.
+ *
+ * Looking up an account that's in memory doesn't take any lock, it only
+ * stamps the account with the current time. Once the cache has a 1/16
+ * more accounts than its capacity, the ones with the oldest stamps are
+ * evicted until it's back to its capacity, so eviction is sorted once
+ * every many accounts instead of on each lookup.
+ *
+ * Evicted accounts are passed to the eviction listener (so their changes
+ * are saved) once the lock is released, so a slow save doesn't block the
+ * threads looking up other accounts. Then their hangars and ships are
+ * removed from memory too.
+ *
  * @author Manulaiko <manulaiko@gmail.com>
  *
  * @package com.manulaiko.blackeye.simulator.account
  */
-public class Factory
+public class Factory extends Repository<Account>
 {
     /**
-     * Instanced accounts
+     * Default max amount of accounts kept in memory that aren't logged in
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    /**
+     * Max amount of accounts kept in memory that aren't logged in
+     */
+    private int _capacity = Factory.DEFAULT_CAPACITY;
+
+    /**
+     * Time in nanoseconds each account that isn't logged in was last used, by id
+     */
+    private ConcurrentHashMap<Integer, Long> _recent = new ConcurrentHashMap<>();
+
+    /**
+     * Amount of connections logged in with each pinned account
+     */
+    private HashMap<Integer, Integer> _pins = new HashMap<>();
+
+    /**
+     * Called with each account before it's evicted
+     */
+    private Consumer<Account> _evictionListener;
+
+    /**
+     * Evicted accounts waiting for the eviction listener, by id
      */
-    private HashMap<Integer, Account> _accounts = new HashMap<>();
+    private ConcurrentHashMap<Integer, Account> _evicting = new ConcurrentHashMap<>();
+
+    /**
+     * Amount of accounts found in memory
+     */
+    private AtomicLong _hits = new AtomicLong();
+
+    /**
+     * Amount of accounts that weren't in memory
+     */
+    private AtomicLong _misses = new AtomicLong();
+
+    /**
+     * Amount of evicted accounts
+     */
+    private long _evictions = 0;
 
     /**
      * Hangar factory for table `accounts_hangars`
      */
     public com.manulaiko.blackeye.simulator.account.equipment.hangar.Factory hangars = new com.manulaiko.blackeye.simulator.account.equipment.hangar.Factory();
 
+    /**
+     * Ship factory for table `accounts_equipment_ships`
+     */
+    public com.manulaiko.blackeye.simulator.account.equipment.ship.Factory ships = new com.manulaiko.blackeye.simulator.account.equipment.ship.Factory();
+
+    /**
+     * Configuration factory for table `accounts_equipment_configurations`
+     */
+    public com.manulaiko.blackeye.simulator.account.equipment.configuration.Factory configurations = new com.manulaiko.blackeye.simulator.account.equipment.configuration.Factory();
+
+    /**
+     * Constructor
+     */
+    public Factory()
+    {
+        super(a -> a.id);
+
+        this._addIndex("name", a -> a.name);
+    }
+
+    ///////////////////////
+    // Start set methods //
+    ///////////////////////
+    /**
+     * Sets the max amount of accounts kept in memory that aren't logged in
+     *
+     * Logged in accounts don't count.
+     *
+     * @param capacity Max amount of accounts
+     */
+    public void setCapacity(int capacity)
+    {
+        synchronized(this) {
+            this._capacity = Math.max(1, capacity);
+
+            this._trim(this._capacity);
+        }
+
+        this._flushEvicted();
+    }
+
+    /**
+     * Sets eviction listener
+     *
+     * It's called with each account after it's removed from memory,
+     * so its changes can be saved. It's called without holding the lock
+     * of the factory, until it returns the account is still returned by
+     * `getByID` and `getByName` instead of loading it again.
+     *
+     * @param listener Eviction listener
+     */
+    public void setEvictionListener(Consumer<Account> listener)
+    {
+        this._evictionListener = listener;
+    }
+
+    /**
+     * Pins an account in memory
+     *
+     * Called when a connection logs in with the account, it won't be
+     * evicted until all its connections unpin it.
+     *
+     * @param account Account to pin
+     */
+    public synchronized void pin(Account account)
+    {
+        this._pins.merge(account.id, 1, Integer::sum);
+        this._recent.remove(account.id);
+
+        super._add(account);
+    }
+
+    /**
+     * Unpins an account
+     *
+     * Called when a connection logged in with the account is closed,
+     * once no connection uses it, it becomes the most recently used account.
+     *
+     * @param account Account to unpin
+     */
+    public void unpin(Account account)
+    {
+        synchronized(this) {
+            Integer pins = this._pins.get(account.id);
+            if(pins == null) {
+                return;
+            }
+
+            if(pins > 1) {
+                this._pins.put(account.id, pins - 1);
+
+                return;
+            }
+
+            this._pins.remove(account.id);
+            this._recent.put(account.id, System.nanoTime());
+            this._evictOldest();
+        }
+
+        this._flushEvicted();
+    }
+
+    /**
+     * Removes an account from memory
+     *
+     * @param id Account id
+     *
+     * @return Removed account, null if it wasn't in memory
+     */
+    public synchronized Account remove(int id)
+    {
+        this._recent.remove(id);
+        this._pins.remove(id);
+
+        return super.remove(id);
+    }
+    /////////////////////
+    // End set methods //
+    /////////////////////
+
     ///////////////////////
     // Start get methods //
     ///////////////////////
@@ -47,15 +229,22 @@ public class Factory
      */
     public Account getByID(int id) throws NotFound
     {
-        if(!this._accounts.containsKey(id)) {
-            Account a = this.loadByID(id);
+        Account a = this.find(id);
 
-            this._accounts.put(id, a);
+        if(a != null) {
+            this._hits.incrementAndGet();
+            this._recent.replace(id, System.nanoTime());
 
             return a;
         }
 
-        return this._accounts.get(id);
+        this._misses.incrementAndGet();
+
+        return this._getOrLoad(id, () -> {
+            Account evicted = this._restore(this._evicting.get(id));
+
+            return (evicted != null) ? evicted : this.loadByID(id);
+        });
     }
 
     /**
@@ -69,37 +258,277 @@ public class Factory
      */
     public Account getByName(String name) throws NotFound
     {
-        for(Entry<Integer, Account> a : this._accounts.entrySet()) {
-            if(a.getValue().name.equals(name)) {
-                return a.getValue();
+        Account a = this.find("name", name);
+
+        if(a != null) {
+            this._hits.incrementAndGet();
+            this._recent.replace(a.id, System.nanoTime());
+
+            return a;
+        }
+
+        this._misses.incrementAndGet();
+
+        return this._getOrLoad("name", name, () -> {
+            for(Account evicted : this._evicting.values()) {
+                if(name.equals(evicted.name) && this._restore(evicted) != null) {
+                    return evicted;
+                }
             }
+
+            return this.loadByName(name);
+        });
+    }
+
+    /**
+     * Returns given account without blocking
+     *
+     * If the account isn't in memory it's loaded in a database thread
+     * (see {@see com.manulaiko.blackeye.launcher.DatabaseManager}).
+     *
+     * @param id Account id
+     *
+     * @return Future completed with the account, or with `NotFound`
+     *         if it doesn't exist
+     */
+    public CompletableFuture<Account> getByIDAsync(int id)
+    {
+        if(this.find(id) != null) {
+            return DatabaseManager.complete(() -> this.getByID(id));
         }
 
-        Account a = this.loadByName(name);
+        return DatabaseManager.supply(() -> this.getByID(id));
+    }
 
-        this._accounts.put(a.id, a);
+    /**
+     * Returns given account without blocking
+     *
+     * If the account isn't in memory it's loaded in a database thread
+     * (see {@see com.manulaiko.blackeye.launcher.DatabaseManager}).
+     *
+     * @param name Account name
+     *
+     * @return Future completed with the account, or with `NotFound`
+     *         if it doesn't exist
+     */
+    public CompletableFuture<Account> getByNameAsync(String name)
+    {
+        if(this.find("name", name) != null) {
+            return DatabaseManager.complete(() -> this.getByName(name));
+        }
 
-        return a;
+        return DatabaseManager.supply(() -> this.getByName(name));
     }
 
     /**
-     * Returns all items
+     * Returns all accounts in memory
      *
-     * @return All items
+     * @return Logged in and recently used accounts
      */
     public HashMap<Integer, Account> getAllAccounts()
     {
-        return this._accounts;
+        return this.getAll();
+    }
+
+    /**
+     * Checks whether an account is pinned or not
+     *
+     * @param id Account id
+     *
+     * @return True if a connection is logged in with the account, false if not
+     */
+    public synchronized boolean isPinned(int id)
+    {
+        return this._pins.containsKey(id);
+    }
+
+    /**
+     * Returns the accounts of logged in connections
+     *
+     * @return Pinned accounts
+     */
+    public synchronized ArrayList<Account> getPinnedAccounts()
+    {
+        ArrayList<Account> accounts = new ArrayList<>();
+
+        for(int id : this._pins.keySet()) {
+            Account a = this.find(id);
+
+            if(a != null) {
+                accounts.add(a);
+            }
+        }
+
+        return accounts;
+    }
+
+    /**
+     * Prints cache status
+     */
+    public synchronized void showStatus()
+    {
+        long   hits     = this._hits.get();
+        long   requests = hits + this._misses.get();
+        double ratio    = (requests == 0) ? 0 : (hits * 100.0) / requests;
+
+        Console.println(this._pins.size() +" logged in accounts, "+ this._recent.size() +" of "+ this._capacity +" recently used accounts in memory.");
+        Console.println(
+            hits +" hits, "+ this._misses.get() +" misses ("+ String.format("%.2f", ratio) +"% hit ratio), "+
+            this._evictions +" evictions."
+        );
+    }
+
+    /**
+     * Adds a loaded account
+     *
+     * If another thread loaded the same account meanwhile, that one is kept.
+     *
+     * @param account Loaded account
+     *
+     * @return Account in memory
+     */
+    protected Account _add(Account account)
+    {
+        Account a = this._put(account);
+
+        this._flushEvicted();
+
+        return a;
+    }
+
+    /**
+     * Adds a loaded account without calling the eviction listener
+     *
+     * @param account Loaded account
+     *
+     * @return Account in memory
+     */
+    private synchronized Account _put(Account account)
+    {
+        Account a = super._add(account);
+
+        if(!this._pins.containsKey(a.id)) {
+            this._recent.put(a.id, System.nanoTime());
+            this._evictOldest();
+        }
+
+        return a;
+    }
+
+    /**
+     * Evicts the least recently used accounts if the cache is a 1/16 over its capacity
+     *
+     * Must be called with the lock held.
+     */
+    private void _evictOldest()
+    {
+        if(this._recent.size() > this._capacity + Math.max(1, this._capacity / 16)) {
+            this._trim(this._capacity);
+        }
+    }
+
+    /**
+     * Evicts the least recently used accounts until there are `size` left
+     *
+     * Must be called with the lock held. Accounts used while they're
+     * sorted keep the stamp they had when the sort started.
+     *
+     * @param size Amount of accounts to keep
+     */
+    private void _trim(int size)
+    {
+        if(this._recent.size() <= size) {
+            return;
+        }
+
+        ArrayList<Map.Entry<Integer, Long>> entries = new ArrayList<>(this._recent.entrySet());
+        entries.sort(Map.Entry.comparingByValue());
+
+        for(int i = 0; i < entries.size() && this._recent.size() > size; i++) {
+            int     id = entries.get(i).getKey();
+            Account a  = this.find(id);
+
+            if(this._recent.remove(id) != null && a != null) {
+                this._evict(a);
+            }
+        }
+    }
+
+    /**
+     * Evicts an account
+     *
+     * Must be called with the lock held, the eviction listener is called
+     * later by `_flushEvicted`.
+     *
+     * @param account Account to evict
+     */
+    private void _evict(Account account)
+    {
+        this._evictions++;
+
+        super.remove(account.id);
+
+        this._evicting.put(account.id, account);
     }
 
     /**
-     * Returns the amount of loaded maps
+     * Calls the eviction listener with the evicted accounts
      *
-     * @return Amount of loaded maps
+     * Must be called without the lock held. If two threads flush the
+     * same account at the same time, the listener is called twice.
      */
-    public int getAmount()
+    private void _flushEvicted()
     {
-        return this._accounts.size();
+        if(this._evicting.isEmpty()) {
+            return;
+        }
+
+        for(Account a : this._evicting.values()) {
+            if(this._evictionListener != null) {
+                this._evictionListener.accept(a);
+            }
+
+            this._release(a);
+        }
+    }
+
+    /**
+     * Removes a flushed account from the evicted accounts
+     *
+     * If it wasn't used again meanwhile, its hangars and their ships are
+     * removed from memory too.
+     *
+     * @param account Flushed account
+     */
+    private synchronized void _release(Account account)
+    {
+        if(this.find(account.id) == null) {
+            for(Hangar h : this.hangars.findAll("accountID", account.id).values()) {
+                if(h.ship != null) {
+                    this.ships.remove(h.ship.id);
+                }
+
+                this.hangars.remove(h.id);
+            }
+        }
+
+        this._evicting.remove(account.id, account);
+    }
+
+    /**
+     * Adds back an evicted account that's waiting for the eviction listener
+     *
+     * @param account Evicted account, can be null
+     *
+     * @return The account in memory, null if it was already flushed
+     */
+    private synchronized Account _restore(Account account)
+    {
+        if(account == null || this._evicting.get(account.id) != account) {
+            return null;
+        }
+
+        return this._put(account);
     }
     /////////////////////
     // End get methods //
@@ -120,21 +549,20 @@ public class Factory
     public Account loadByID(int id) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `accounts` WHERE `id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
+            Account account = Main.mysqlManager.queryOne(
+                "SELECT * FROM `accounts` WHERE `id`=?",
+                result -> new Builder(result).getAccount(),
+                id
+            );
 
-                return builder.getAccount();
-            } else {
-                throw new NotFound("account", "id: "+ id);
+            if(account != null) {
+                return account;
             }
         } catch(SQLException e) {
-            throw new NotFound("account", "id: "+ id);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("account", "id: "+ id);
     }
 
     /**
@@ -149,42 +577,63 @@ public class Factory
     public Account loadByName(String name) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `accounts` WHERE `name`=?");
-            ps.setString(1, name);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
+            Account account = Main.mysqlManager.queryOne(
+                "SELECT * FROM `accounts` WHERE `name`=?",
+                result -> new Builder(result).getAccount(),
+                name
+            );
 
-                return builder.getAccount();
-            } else {
-                throw new NotFound("account", name);
+            if(account != null) {
+                return account;
             }
         } catch(SQLException e) {
-            throw new NotFound("account", name);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("account", name);
     }
 
     /**
-     * Loads all items from database
+     * Loads all accounts from database
+     *
+     * Only the `core.accounts_cache_size` accounts with the highest ids
+     * are loaded, so the cache isn't filled just to evict most of it.
+     *
+     * Instead of letting each account query its own hangar, their hangars
+     * and ships are loaded first with one streamed query per table, and
+     * the ships are set to their hangars. Then the accounts are streamed
+     * and built from the loaded hangars, so loading N accounts takes 3
+     * queries instead of N + 1.
+     *
+     * Configurations aren't linked to an account, so they can't be
+     * evicted with it and aren't loaded.
      */
     public void loadAll()
     {
-        try {
-            java.sql.ResultSet result = Main.mysqlManager.query("SELECT * FROM `accounts`");
+        int amount = this._capacity;
 
-            while(result.next()) {
-                Builder builder = new Builder(result);
+        this.hangars.loadByLatestAccounts(amount);
+        this.ships.loadByLatestAccounts(amount);
 
-                Account a = builder.getAccount();
+        HashMap<Integer, Hangar> hangars = this.hangars.getAllHangars();
+        for(Ship s : this.ships.getAllShips().values()) {
+            Hangar h = hangars.get(s.hangarID);
 
-                this._accounts.put(a.id, a);
+            if(h != null) {
+                h.setShip(s);
             }
+        }
+
+        try {
+            Main.mysqlManager.stream("SELECT * FROM `accounts` ORDER BY `id` DESC LIMIT ?", result -> {
+                this._put(new Builder(result).getAccount());
+            }, amount);
         } catch(Exception e) {
             Console.println("Couldn't load account!");
             Console.println(e.getMessage());
         }
+
+        this._flushEvicted();
     }
     //////////////////////
     // End load methods //
@@ -3,6 +3,7 @@ package com.manulaiko.blackeye.simulator.account.equipment.configuration;
 import java.sql.ResultSet;
 
 import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.utils.Tools;
 
 /**
  * Configuration builder class
@@ -32,10 +33,10 @@ public class Builder
         try {
             this._configuration = new Configuration(
                     rs.getInt("id"),
-                    rs.getString("lasers"),
-                    rs.getString("hellstorms"),
-                    rs.getString("generators"),
-                    rs.getString("extras")
+                    Builder._slots(rs.getString("lasers")),
+                    Builder._slots(rs.getString("hellstorms")),
+                    Builder._slots(rs.getString("generators")),
+                    Builder._slots(rs.getString("extras"))
             );
 
         } catch(Exception e) {
@@ -56,10 +57,10 @@ public class Builder
         try {
             this._configuration = new Configuration(
                     configuration.id,
-                    configuration.lasersJSON,
-                    configuration.hellstormsJSON,
-                    configuration.generatorsJSON,
-                    configuration.extrasJSON
+                    configuration.lasers.clone(),
+                    configuration.hellstorms.clone(),
+                    configuration.generators.clone(),
+                    configuration.extras.clone()
             );
 
         } catch(Exception e) {
@@ -68,6 +69,22 @@ public class Builder
         }
     }
 
+    /**
+     * Parses a slots column
+     *
+     * @param slots Slots JSON
+     *
+     * @return Equipped items, empty if the JSON is wrong
+     */
+    private static int[] _slots(String slots)
+    {
+        try {
+            return Tools.toIntArray(slots);
+        } catch(Exception e) {
+            return new int[0];
+        }
+    }
+
     /**
      * Returns the configuration
      *
@@ -1,7 +1,5 @@
 package com.manulaiko.blackeye.simulator.account.equipment.configuration;
 
-import org.json.JSONArray;
-
 /**
  * Configuration class
  *
@@ -19,67 +17,38 @@ public class Configuration
     /**
      * Lasers
      */
-    public JSONArray lasers;
-
-    /**
-     * Lasers JSON
-     */
-    public String lasersJSON;
+    public int[] lasers;
 
     /**
      * Hellstorms
      */
-    public JSONArray hellstorms;
-
-    /**
-     * Hellstorms JSON
-     */
-    public String hellstormsJSON;
+    public int[] hellstorms;
 
     /**
      * Generators
      */
-    public JSONArray generators;
-
-    /**
-     * Generators JSON
-     */
-    public String generatorsJSON;
+    public int[] generators;
 
     /**
      * Extras
      */
-    public JSONArray extras;
-
-    /**
-     * Extras JSON
-     */
-    public String extrasJSON;
+    public int[] extras;
 
     /**
      * Constructor
      *
      * @param id         Configuration ID
-     * @param lasers     Lasers JSON
-     * @param hellstorms Hellstorms JSON
-     * @param generators Generators JSON
-     * @param extras     Extras JSON
+     * @param lasers     Lasers
+     * @param hellstorms Hellstorms
+     * @param generators Generators
+     * @param extras     Extras
      */
-    public Configuration(int id, String lasers, String hellstorms, String generators, String extras)
+    public Configuration(int id, int[] lasers, int[] hellstorms, int[] generators, int[] extras)
     {
-        try {
-            this.id             = id;
-            this.lasersJSON     = lasers;
-            this.hellstormsJSON = hellstorms;
-            this.generatorsJSON = generators;
-            this.extrasJSON     = extras;
-
-            this.lasers     = new JSONArray(lasers);
-            this.hellstorms = new JSONArray(hellstorms);
-            this.generators = new JSONArray(generators);
-            this.extras     = new JSONArray(extras);
-        } catch(Exception e) {
-            //Empty
-        }
+        this.id         = id;
+        this.lasers     = lasers;
+        this.hellstorms = hellstorms;
+        this.generators = generators;
+        this.extras     = extras;
     }
 }
@@ -1,12 +1,12 @@
 package com.manulaiko.blackeye.simulator.account.equipment.configuration;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
 
 import com.manulaiko.blackeye.launcher.Main;
 
+import com.manulaiko.blackeye.simulator.Repository;
+
 import com.manulaiko.tabitha.Console;
 import com.manulaiko.tabitha.exceptions.NotFound;
 
@@ -19,12 +19,15 @@ import com.manulaiko.tabitha.exceptions.NotFound;
  *
  * @package com.manulaiko.blackeye.simulator.account.configuration
  */
-public class Factory
+public class Factory extends Repository<Configuration>
 {
     /**
-     * Instanced hangars
+     * Constructor
      */
-    private HashMap<Integer, Configuration> _configurations = new HashMap<>();
+    public Factory()
+    {
+        super(c -> c.id);
+    }
 
     ///////////////////////
     // Start get methods //
@@ -40,15 +43,7 @@ public class Factory
      */
     public Configuration getByID(int id) throws NotFound
     {
-        if(!this._configurations.containsKey(id)) {
-            Configuration c = this.loadByID(id);
-
-            this._configurations.put(id, c);
-
-            return c;
-        }
-
-        return this._configurations.get(id);
+        return this._getOrLoad(id, () -> this.loadByID(id));
     }
 
     /**
@@ -58,17 +53,7 @@ public class Factory
      */
     public HashMap<Integer, Configuration> getAllConfigurations()
     {
-        return this._configurations;
-    }
-
-    /**
-     * Returns the amount of loaded configurations
-     *
-     * @return Amount of loaded configurations
-     */
-    public int getAmount()
-    {
-        return this._configurations.size();
+        return this.getAll();
     }
     /////////////////////
     // End get methods //
@@ -89,21 +74,20 @@ public class Factory
     public Configuration loadByID(int id) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `accounts_equipment_configurations` WHERE `id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getConfiguration();
-            } else {
-                throw new NotFound("configuration", "id: "+ id);
+            Configuration configuration = Main.mysqlManager.queryOne(
+                "SELECT * FROM `accounts_equipment_configurations` WHERE `id`=?",
+                result -> new Builder(result).getConfiguration(),
+                id
+            );
+
+            if(configuration != null) {
+                return configuration;
             }
         } catch(SQLException e) {
-            throw new NotFound("configuration", "id: "+ id);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("configuration", "id: "+ id);
     }
 
     /**
@@ -112,15 +96,11 @@ public class Factory
     public void loadAll()
     {
         try {
-            java.sql.ResultSet result = Main.mysqlManager.query("SELECT * FROM `accounts_equipment_configurations`");
-
-            while(result.next()) {
-                Builder builder = new Builder(result);
+            Main.mysqlManager.stream("SELECT * FROM `accounts_equipment_configurations`", result -> {
+                Configuration c = new Builder(result).getConfiguration();
 
-                Configuration c = builder.getConfiguration();
-
-                this._configurations.put(c.id, c);
-            }
+                this._replace(c);
+            });
         } catch(Exception e) {
             Console.println("Couldn't load configurations!");
             Console.println(e.getMessage());
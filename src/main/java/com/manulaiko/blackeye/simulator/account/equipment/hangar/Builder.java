@@ -2,9 +2,8 @@ package com.manulaiko.blackeye.simulator.account.equipment.hangar;
 
 import java.sql.ResultSet;
 
-import org.json.JSONArray;
-
 import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.utils.Tools;
 
 /**
  * Hangar builder class
@@ -35,7 +34,7 @@ public class Builder
             this._hangar = new Hangar(
                     rs.getInt("id"),
                     rs.getInt("accounts_id"),
-                    rs.getString("resources")
+                    Builder._resources(rs.getString("resources"))
             );
 
         } catch(Exception e) {
@@ -57,7 +56,7 @@ public class Builder
             this._hangar = new Hangar(
                     hangar.id,
                     hangar.accountID,
-                    hangar.resourcesJSON
+                    hangar.resources.clone()
             );
 
         } catch(Exception e) {
@@ -66,6 +65,22 @@ public class Builder
         }
     }
 
+    /**
+     * Parses the resources column
+     *
+     * @param resources Resources JSON
+     *
+     * @return Resources, empty if the JSON is wrong
+     */
+    private static int[] _resources(String resources)
+    {
+        try {
+            return Tools.toIntArray(resources);
+        } catch(Exception e) {
+            return new int[0];
+        }
+    }
+
     /**
      * Returns the hangar
      *
@@ -1,12 +1,12 @@
 package com.manulaiko.blackeye.simulator.account.equipment.hangar;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
 
 import com.manulaiko.blackeye.launcher.Main;
 
+import com.manulaiko.blackeye.simulator.Repository;
+
 import com.manulaiko.tabitha.Console;
 import com.manulaiko.tabitha.exceptions.NotFound;
 
@@ -19,12 +19,17 @@ import com.manulaiko.tabitha.exceptions.NotFound;
  *
  * @package com.manulaiko.blackeye.simulator.account
  */
-public class Factory
+public class Factory extends Repository<Hangar>
 {
     /**
-     * Instanced hangars
+     * Constructor
      */
-    private HashMap<Integer, Hangar> _hangars = new HashMap<>();
+    public Factory()
+    {
+        super(h -> h.id);
+
+        this._addGroup("accountID", h -> h.accountID);
+    }
 
     ///////////////////////
     // Start get methods //
@@ -40,15 +45,7 @@ public class Factory
      */
     public Hangar getByID(int id) throws NotFound
     {
-        if(!this._hangars.containsKey(id)) {
-            Hangar h = this.loadByID(id);
-
-            this._hangars.put(id, h);
-
-            return h;
-        }
-
-        return this._hangars.get(id);
+        return this._getOrLoad(id, () -> this.loadByID(id));
     }
 
     /**
@@ -62,24 +59,12 @@ public class Factory
      */
     public HashMap<Integer, Hangar> getByAccountID(int id) throws NotFound
     {
-        final HashMap<Integer, Hangar> hangars = new HashMap<>();
-
-        this._hangars.forEach((Integer i, Hangar h) -> {
-            if(h.accountID == id) {
-                hangars.put(i, h);
-            }
-        });
+        HashMap<Integer, Hangar> hangars = this.findAll("accountID", id);
 
+        // Hangars are created while the server runs (for example, for new
+        // accounts), so the database is queried even if the table was loaded
         if(hangars.size() == 0) {
-            HashMap<Integer, Hangar> hangarsLoaded = this.loadByAccountID(id);
-
-            if(hangarsLoaded.size() == 0) {
-                throw new NotFound("hangars", "accounts_id: "+ id);
-            }
-
-            hangarsLoaded.forEach(this._hangars::put);
-
-            return hangarsLoaded;
+            hangars = this._getOrLoadAll("accountID", id, () -> this.loadByAccountID(id));
         }
 
         return hangars;
@@ -92,17 +77,7 @@ public class Factory
      */
     public HashMap<Integer, Hangar> getAllHangars()
     {
-        return this._hangars;
-    }
-
-    /**
-     * Returns the amount of loaded hangars
-     *
-     * @return Amount of loaded hangars
-     */
-    public int getAmount()
-    {
-        return this._hangars.size();
+        return this.getAll();
     }
     /////////////////////
     // End get methods //
@@ -123,21 +98,20 @@ public class Factory
     public Hangar loadByID(int id) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `accounts_equipment_hangars` WHERE `id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getHangar();
-            } else {
-                throw new NotFound("hangar", "id: "+ id);
+            Hangar hangar = Main.mysqlManager.queryOne(
+                "SELECT * FROM `accounts_equipment_hangars` WHERE `id`=?",
+                result -> new Builder(result).getHangar(),
+                id
+            );
+
+            if(hangar != null) {
+                return hangar;
             }
         } catch(SQLException e) {
-            throw new NotFound("hangar", "id: "+ id);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("hangar", "id: "+ id);
     }
 
     /**
@@ -151,29 +125,23 @@ public class Factory
      */
     public HashMap<Integer, Hangar> loadByAccountID(int id) throws NotFound
     {
-        try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `accounts_equipment_hangars` WHERE `accounts_id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
+        HashMap<Integer, Hangar> hangars = new HashMap<>();
 
-            HashMap<Integer, Hangar> hangars = new HashMap<>();
-
-            while(result.next()) {
-                Builder b = new Builder(result);
-                Hangar  h = b.getHangar();
+        try {
+            Main.mysqlManager.forEach("SELECT * FROM `accounts_equipment_hangars` WHERE `accounts_id`=?", result -> {
+                Hangar h = new Builder(result).getHangar();
 
                 hangars.put(h.id, h);
-            }
-
-            if(hangars.size() == 0) {
-                throw new NotFound("hangars", "accounts_id: "+ id);
-            }
-
-            return hangars;
+            }, id);
         } catch(SQLException e) {
-            throw new NotFound("hangar", "id: "+ id);
+            Console.println(e.getMessage());
+        }
+
+        if(hangars.size() == 0) {
+            throw new NotFound("hangars", "accounts_id: "+ id);
         }
+
+        return hangars;
     }
 
     /**
@@ -182,15 +150,37 @@ public class Factory
     public void loadAll()
     {
         try {
-            java.sql.ResultSet result = Main.mysqlManager.query("SELECT * FROM `accounts_equipment_hangars`");
+            Main.mysqlManager.stream("SELECT * FROM `accounts_equipment_hangars`", result -> {
+                Hangar h = new Builder(result).getHangar();
 
-            while(result.next()) {
-                Builder builder = new Builder(result);
+                this._add(h);
+            });
 
-                Hangar h = builder.getHangar();
+            this._setLoadedAll(true);
+        } catch(Exception e) {
+            Console.println("Couldn't load hangars!");
+            Console.println(e.getMessage());
+        }
+    }
 
-                this._hangars.put(h.id, h);
-            }
+    /**
+     * Loads the hangars of the accounts with the highest ids
+     *
+     * @param amount Amount of accounts
+     */
+    public void loadByLatestAccounts(int amount)
+    {
+        try {
+            Main.mysqlManager.stream(
+                "SELECT `t`.* FROM `accounts_equipment_hangars` `t` "+
+                "INNER JOIN (SELECT `id` FROM `accounts` ORDER BY `id` DESC LIMIT ?) `a` ON `t`.`accounts_id`=`a`.`id`",
+                result -> {
+                    Hangar h = new Builder(result).getHangar();
+
+                    this._add(h);
+                },
+                amount
+            );
         } catch(Exception e) {
             Console.println("Couldn't load hangars!");
             Console.println(e.getMessage());
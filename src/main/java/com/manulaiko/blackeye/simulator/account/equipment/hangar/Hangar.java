@@ -1,19 +1,36 @@
 package com.manulaiko.blackeye.simulator.account.equipment.hangar;
 
-import org.json.JSONArray;
-
+import com.manulaiko.blackeye.simulator.Persistable;
 import com.manulaiko.blackeye.simulator.account.equipment.ship.Ship;
 import com.manulaiko.blackeye.simulator.account.equipment.configuration.Configuration;
 
+import com.manulaiko.tabitha.utils.Tools;
+
 /**
  * Hangar class
  *
+ * Saved fields must be changed with their setters, so only the
+ * changed columns are updated.
+ *
  * @author Manulaiko <manulaiko@gmail.com>
  *
  * @package com.manulaiko.blackeye.simulator.account.equipment.hangar
  */
-public class Hangar
+public class Hangar extends Persistable
 {
+    /**
+     * Saved fields
+     */
+    public static final int ACCOUNT_ID = 0;
+    public static final int RESOURCES  = 1;
+
+    /**
+     * Column names, by field number
+     */
+    private static final String[] _columns = {
+        "accounts_id", "resources"
+    };
+
     /**
      * Hangar ID
      */
@@ -35,34 +52,44 @@ public class Hangar
     public Configuration configuration;
 
     /**
-     * Resources
+     * Resources, the amount of each resource
      */
-    public JSONArray resources;
-
-    /**
-     * Resources JSON
-     */
-
-    public String resourcesJSON;
+    public int[] resources;
 
     /**
      * Constructor
      *
      * @param id        Hangar ID
      * @param accountID Account's ID
-     * @param resources Resources JSON
+     * @param resources Resources
      */
-    public Hangar(int id, int accountID, String resources)
+    public Hangar(int id, int accountID, int[] resources)
     {
         this.id        = id;
         this.accountID = accountID;
+        this.resources = resources;
+    }
 
-        try {
-            this.resources     = new JSONArray(resources);
-            this.resourcesJSON = resources;
-        } catch(Exception e) {
-            //Empty
-        }
+    /**
+     * Sets account ID
+     *
+     * @param accountID Account ID
+     */
+    public void setAccountID(int accountID)
+    {
+        this.accountID = accountID;
+        this._markDirty(Hangar.ACCOUNT_ID);
+    }
+
+    /**
+     * Sets resources
+     *
+     * @param resources Resources
+     */
+    public void setResources(int[] resources)
+    {
+        this.resources = resources;
+        this._markDirty(Hangar.RESOURCES);
     }
 
     /**
@@ -183,4 +210,31 @@ public class Hangar
         //TODO
         return 0;
     }
+
+    /**
+     * Returns the column names of the saved fields
+     *
+     * @return Column names, by field number
+     */
+    public String[] getColumns()
+    {
+        return Hangar._columns;
+    }
+
+    /**
+     * Returns the value of a saved field
+     *
+     * @param field Field number
+     *
+     * @return Value written to its column
+     */
+    public Object getValue(int field)
+    {
+        switch(field) {
+            case Hangar.ACCOUNT_ID: return this.accountID;
+            case Hangar.RESOURCES:  return Tools.toJSON(this.resources);
+        }
+
+        throw new IllegalArgumentException("Hangar doesn't have field "+ field);
+    }
 }
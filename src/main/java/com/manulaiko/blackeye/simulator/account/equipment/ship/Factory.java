@@ -1,12 +1,12 @@
 package com.manulaiko.blackeye.simulator.account.equipment.ship;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
 
 import com.manulaiko.blackeye.launcher.Main;
 
+import com.manulaiko.blackeye.simulator.Repository;
+
 import com.manulaiko.tabitha.Console;
 import com.manulaiko.tabitha.exceptions.NotFound;
 
@@ -19,12 +19,15 @@ import com.manulaiko.tabitha.exceptions.NotFound;
  *
  * @package com.manulaiko.blackeye.simulator.account.ship
  */
-public class Factory
+public class Factory extends Repository<Ship>
 {
     /**
-     * Instanced hangars
+     * Constructor
      */
-    private HashMap<Integer, Ship> _ships = new HashMap<>();
+    public Factory()
+    {
+        super(s -> s.id);
+    }
 
     ///////////////////////
     // Start get methods //
@@ -40,15 +43,7 @@ public class Factory
      */
     public Ship getByID(int id) throws NotFound
     {
-        if(!this._ships.containsKey(id)) {
-            Ship s = this.loadByID(id);
-
-            this._ships.put(id, s);
-
-            return s;
-        }
-
-        return this._ships.get(id);
+        return this._getOrLoad(id, () -> this.loadByID(id));
     }
 
     /**
@@ -58,17 +53,7 @@ public class Factory
      */
     public HashMap<Integer, Ship> getAllShips()
     {
-        return this._ships;
-    }
-
-    /**
-     * Returns the amount of loaded ships
-     *
-     * @return Amount of loaded ships
-     */
-    public int getAmount()
-    {
-        return this._ships.size();
+        return this.getAll();
     }
     /////////////////////
     // End get methods //
@@ -89,21 +74,20 @@ public class Factory
     public Ship loadByID(int id) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `accounts_equipment_ships` WHERE `id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getShip();
-            } else {
-                throw new NotFound("ship", "id: "+ id);
+            Ship ship = Main.mysqlManager.queryOne(
+                "SELECT * FROM `accounts_equipment_ships` WHERE `id`=?",
+                result -> new Builder(result).getShip(),
+                id
+            );
+
+            if(ship != null) {
+                return ship;
             }
         } catch(SQLException e) {
-            throw new NotFound("ship", "id: "+ id);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("ship", "id: "+ id);
     }
 
     /**
@@ -112,15 +96,36 @@ public class Factory
     public void loadAll()
     {
         try {
-            java.sql.ResultSet result = Main.mysqlManager.query("SELECT * FROM `accounts_equipment_ships`");
-
-            while(result.next()) {
-                Builder builder = new Builder(result);
+            Main.mysqlManager.stream("SELECT * FROM `accounts_equipment_ships`", result -> {
+                Ship s = new Builder(result).getShip();
 
-                Ship s = builder.getShip();
+                this._add(s);
+            });
+        } catch(Exception e) {
+            Console.println("Couldn't load ships!");
+            Console.println(e.getMessage());
+        }
+    }
 
-                this._ships.put(s.id, s);
-            }
+    /**
+     * Loads the ships of the accounts with the highest ids
+     *
+     * @param amount Amount of accounts
+     */
+    public void loadByLatestAccounts(int amount)
+    {
+        try {
+            Main.mysqlManager.stream(
+                "SELECT `t`.* FROM `accounts_equipment_ships` `t` "+
+                "INNER JOIN `accounts_equipment_hangars` `h` ON `t`.`accounts_equipment_hangars_id`=`h`.`id` "+
+                "INNER JOIN (SELECT `id` FROM `accounts` ORDER BY `id` DESC LIMIT ?) `a` ON `h`.`accounts_id`=`a`.`id`",
+                result -> {
+                    Ship s = new Builder(result).getShip();
+
+                    this._add(s);
+                },
+                amount
+            );
         } catch(Exception e) {
             Console.println("Couldn't load ships!");
             Console.println(e.getMessage());
@@ -2,17 +2,40 @@ package com.manulaiko.blackeye.simulator.account.equipment.ship;
 
 import java.awt.Point;
 
+import com.manulaiko.blackeye.simulator.Persistable;
 import com.manulaiko.blackeye.simulator.map.Map;
 
 /**
  * Ship class
  *
+ * Saved fields must be changed with their setters, so only the
+ * changed columns are updated.
+ *
  * @author Manulaiko <manulaiko@gmail.com>
  *
  * @package com.manulaiko.blackeye.simulator.account.equipment.ship
  */
-public class Ship
+public class Ship extends Persistable
 {
+    /**
+     * Saved fields
+     */
+    public static final int HANGAR_ID = 0;
+    public static final int GFX       = 1;
+    public static final int MAP_ID    = 2;
+    public static final int SHIP_ID   = 3;
+    public static final int POSITION  = 4;
+    public static final int HEALTH    = 5;
+    public static final int NANOHULL  = 6;
+    public static final int SHIELD    = 7;
+
+    /**
+     * Column names, by field number
+     */
+    private static final String[] _columns = {
+        "accounts_equipment_hangars_id", "gfx", "maps_id", "ships_id", "position", "health", "nanohull", "shield"
+    };
+
     /**
      * Ship ID
      */
@@ -99,9 +122,100 @@ public class Ship
         this.shield       = shield;
     }
 
+    /**
+     * Sets hangar ID
+     *
+     * @param hangarID Hangar ID
+     */
+    public void setHangarID(int hangarID)
+    {
+        this.hangarID = hangarID;
+        this._markDirty(Ship.HANGAR_ID);
+    }
+
+    /**
+     * Sets graphic ID
+     *
+     * @param gfx Graphic ID
+     */
+    public void setGfx(int gfx)
+    {
+        this.gfx = gfx;
+        this._markDirty(Ship.GFX);
+    }
+
+    /**
+     * Sets map ID
+     *
+     * @param mapID Map ID
+     */
+    public void setMapID(int mapID)
+    {
+        this.mapID = mapID;
+        this._markDirty(Ship.MAP_ID);
+    }
+
+    /**
+     * Sets ships_id
+     *
+     * @param shipID ships_id
+     */
+    public void setShipID(int shipID)
+    {
+        this.shipID = shipID;
+        this._markDirty(Ship.SHIP_ID);
+    }
+
+    /**
+     * Moves the ship
+     *
+     * @param position New position
+     */
+    public void move(Point position)
+    {
+        this.position     = position;
+        this.positionJSON = "["+ position.x +","+ position.y +"]";
+        this._markDirty(Ship.POSITION);
+    }
+
+    /**
+     * Sets health points
+     *
+     * @param health Health points
+     */
+    public void setHealth(int health)
+    {
+        this.health = health;
+        this._markDirty(Ship.HEALTH);
+    }
+
+    /**
+     * Sets nanohull points
+     *
+     * @param nanohull Nanohull points
+     */
+    public void setNanohull(int nanohull)
+    {
+        this.nanohull = nanohull;
+        this._markDirty(Ship.NANOHULL);
+    }
+
+    /**
+     * Sets shield points
+     *
+     * @param shield Shield points
+     */
+    public void setShield(int shield)
+    {
+        this.shield = shield;
+        this._markDirty(Ship.SHIELD);
+    }
+
     /**
      * Sets position object
      *
+     * Used while building the ship, use `move` to change its position.
+     *
      * @param position Point position
      */
     public void setPosition(Point position)
@@ -128,4 +242,37 @@ public class Ship
     {
         this.map = map;
     }
+
+    /**
+     * Returns the column names of the saved fields
+     *
+     * @return Column names, by field number
+     */
+    public String[] getColumns()
+    {
+        return Ship._columns;
+    }
+
+    /**
+     * Returns the value of a saved field
+     *
+     * @param field Field number
+     *
+     * @return Value written to its column
+     */
+    public Object getValue(int field)
+    {
+        switch(field) {
+            case Ship.HANGAR_ID: return this.hangarID;
+            case Ship.GFX:       return this.gfx;
+            case Ship.MAP_ID:    return this.mapID;
+            case Ship.SHIP_ID:   return this.shipID;
+            case Ship.POSITION:  return this.positionJSON;
+            case Ship.HEALTH:    return this.health;
+            case Ship.NANOHULL:  return this.nanohull;
+            case Ship.SHIELD:    return this.shield;
+        }
+
+        throw new IllegalArgumentException("Ship doesn't have field "+ field);
+    }
 }
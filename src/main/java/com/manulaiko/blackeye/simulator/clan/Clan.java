@@ -1,14 +1,33 @@
 package com.manulaiko.blackeye.simulator.clan;
 
+import com.manulaiko.blackeye.simulator.Persistable;
+
 /**
  * Clan class
  *
+ * Saved fields must be changed with their setters, so only the
+ * changed columns are updated.
+ *
  * @author Manulaiko <manulaiko@gmail.com>
  *
  * @package com.manulaiko.blackeye.simulator.clan
  */
-public class Clan
+public class Clan extends Persistable
 {
+    /**
+     * Saved fields
+     */
+    public static final int TAG         = 0;
+    public static final int NAME        = 1;
+    public static final int FACTIONS_ID = 2;
+
+    /**
+     * Column names, by field number
+     */
+    private static final String[] _columns = {
+        "tag", "name", "factions_id"
+    };
+
     /**
      * Clan ID
      */
@@ -44,4 +63,69 @@ public class Clan
         this.name       = name;
         this.factionsID = factionsID;
     }
+
+    /**
+     * Sets clan tag
+     *
+     * The tag is indexed, so it must be called inside `GameManager.clans.update`.
+     *
+     * @param tag Clan tag
+     */
+    public void setTag(String tag)
+    {
+        this.tag = tag;
+        this._markDirty(Clan.TAG);
+    }
+
+    /**
+     * Sets clan name
+     *
+     * The name is indexed, so it must be called inside `GameManager.clans.update`.
+     *
+     * @param name Clan name
+     */
+    public void setName(String name)
+    {
+        this.name = name;
+        this._markDirty(Clan.NAME);
+    }
+
+    /**
+     * Sets clan faction
+     *
+     * @param factionsID Faction ID
+     */
+    public void setFactionsID(int factionsID)
+    {
+        this.factionsID = factionsID;
+        this._markDirty(Clan.FACTIONS_ID);
+    }
+
+    /**
+     * Returns the column names of the saved fields
+     *
+     * @return Column names, by field number
+     */
+    public String[] getColumns()
+    {
+        return Clan._columns;
+    }
+
+    /**
+     * Returns the value of a saved field
+     *
+     * @param field Field number
+     *
+     * @return Value written to its column
+     */
+    public Object getValue(int field)
+    {
+        switch(field) {
+            case Clan.TAG:         return this.tag;
+            case Clan.NAME:        return this.name;
+            case Clan.FACTIONS_ID: return this.factionsID;
+        }
+
+        throw new IllegalArgumentException("Clan doesn't have field "+ field);
+    }
 }
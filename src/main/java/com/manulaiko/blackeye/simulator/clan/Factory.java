@@ -1,13 +1,12 @@
 package com.manulaiko.blackeye.simulator.clan;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
-import java.util.Map.Entry;
 
 import com.manulaiko.blackeye.launcher.Main;
 
+import com.manulaiko.blackeye.simulator.Repository;
+
 import com.manulaiko.tabitha.Console;
 import com.manulaiko.tabitha.exceptions.NotFound;
 
@@ -20,12 +19,18 @@ import com.manulaiko.tabitha.exceptions.NotFound;
  *
  * @package com.manulaiko.blackeye.simulator.clan
  */
-public class Factory
+public class Factory extends Repository<Clan>
 {
     /**
-     * Instanced maps
+     * Constructor
      */
-    private HashMap<Integer, Clan> _clans = new HashMap<>();
+    public Factory()
+    {
+        super(c -> c.id);
+
+        this._addIndex("name", c -> c.name);
+        this._addIndex("tag", c -> c.tag);
+    }
 
     ///////////////////////
     // Start get methods //
@@ -41,15 +46,7 @@ public class Factory
      */
     public Clan getByID(int id) throws NotFound
     {
-        if(!this._clans.containsKey(id)) {
-            Clan c = this.loadByID(id);
-
-            this._clans.put(id, c);
-
-            return c;
-        }
-
-        return this._clans.get(id);
+        return this._getOrLoad(id, () -> this.loadByID(id));
     }
 
     /**
@@ -63,17 +60,7 @@ public class Factory
      */
     public Clan getByName(String name) throws NotFound
     {
-        for(Entry<Integer, Clan> c : this._clans.entrySet()) {
-            if(c.getValue().name.equals(name)) {
-                return c.getValue();
-            }
-        }
-
-        Clan c = this.loadByName(name);
-
-        this._clans.put(c.id, c);
-
-        return c;
+        return this._getOrLoad("name", name, () -> this.loadByName(name));
     }
 
     /**
@@ -87,17 +74,7 @@ public class Factory
      */
     public Clan getByTag(String tag) throws NotFound
     {
-        for(Entry<Integer, Clan> c : this._clans.entrySet()) {
-            if(c.getValue().tag.equals(tag)) {
-                return c.getValue();
-            }
-        }
-
-        Clan c = this.loadByTag(tag);
-
-        this._clans.put(c.id, c);
-
-        return c;
+        return this._getOrLoad("tag", tag, () -> this.loadByTag(tag));
     }
 
     /**
@@ -107,17 +84,7 @@ public class Factory
      */
     public HashMap<Integer, Clan> getAllClans()
     {
-        return this._clans;
-    }
-
-    /**
-     * Returns the amount of loaded maps
-     *
-     * @return Amount of loaded maps
-     */
-    public int getAmount()
-    {
-        return this._clans.size();
+        return this.getAll();
     }
     /////////////////////
     // End get methods //
@@ -138,21 +105,20 @@ public class Factory
     public Clan loadByID(int id) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `clans` WHERE `id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getClan();
-            } else {
-                throw new NotFound("clan", "id: "+ id);
+            Clan clan = Main.mysqlManager.queryOne(
+                "SELECT * FROM `clans` WHERE `id`=?",
+                result -> new Builder(result).getClan(),
+                id
+            );
+
+            if(clan != null) {
+                return clan;
             }
         } catch(SQLException e) {
-            throw new NotFound("clan", "id: "+ id);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("clan", "id: "+ id);
     }
 
     /**
@@ -167,21 +133,20 @@ public class Factory
     public Clan loadByName(String name) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `clans` WHERE `name`=?");
-            ps.setString(1, name);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getClan();
-            } else {
-                throw new NotFound("clan", name);
+            Clan clan = Main.mysqlManager.queryOne(
+                "SELECT * FROM `clans` WHERE `name`=?",
+                result -> new Builder(result).getClan(),
+                name
+            );
+
+            if(clan != null) {
+                return clan;
             }
         } catch(SQLException e) {
-            throw new NotFound("clan", name);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("clan", name);
     }
 
     /**
@@ -196,21 +161,20 @@ public class Factory
     public Clan loadByTag(String tag) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `clans` WHERE `tag`=?");
-            ps.setString(1, tag);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getClan();
-            } else {
-                throw new NotFound("clan", tag);
+            Clan clan = Main.mysqlManager.queryOne(
+                "SELECT * FROM `clans` WHERE `tag`=?",
+                result -> new Builder(result).getClan(),
+                tag
+            );
+
+            if(clan != null) {
+                return clan;
             }
         } catch(SQLException e) {
-            throw new NotFound("clan", tag);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("clan", tag);
     }
 
     /**
@@ -219,15 +183,11 @@ public class Factory
     public void loadAll()
     {
         try {
-            java.sql.ResultSet result = Main.mysqlManager.query("SELECT * FROM `clans`");
-
-            while(result.next()) {
-                Builder builder = new Builder(result);
+            Main.mysqlManager.forEach("SELECT * FROM `clans`", result -> {
+                Clan c = new Builder(result).getClan();
 
-                Clan c = builder.getClan();
-
-                this._clans.put(c.id, c);
-            }
+                this._replace(c);
+            });
         } catch(Exception e) {
             Console.println("Couldn't load clan!");
             Console.println(e.getMessage());
@@ -2,7 +2,6 @@ package com.manulaiko.blackeye.simulator.collectable;
 
 import java.awt.Point;
 import java.sql.ResultSet;
-import java.util.ArrayList;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -35,18 +34,14 @@ public class Builder
     public Builder(ResultSet rs)
     {
         try {
-            JSONArray rewards = new JSONArray(rs.getString("rewards"));
-            
             this._collectable = new Collectable(
                     rs.getInt("id"),
                     rs.getInt("gfx"),
                     rs.getInt("class"),
                     rs.getString("name"),
-                    rewards,
+                    Builder._rewards(new JSONArray(rs.getString("rewards"))),
                     new Point(0, 0)
             );
-            
-            this._build(rewards);
         } catch(Exception e) {
             Console.println("Couldn't build collectable!");
             Console.println(e.getMessage());
@@ -68,11 +63,9 @@ public class Builder
                     collectable.gfx,
                     collectable.classID,
                     collectable.name,
-                    collectable.rewardsJSON,
+                    collectable.rewards,
                     new Point(0, 0)
             );
-
-            this._build(collectable.rewardsJSON);
         } catch(Exception e) {
             Console.println("Couldn't clone collectable!");
             Console.println(e.getMessage());
@@ -80,22 +73,29 @@ public class Builder
     }
 
     /**
-     * Builds the collectable
-     *
-     * Adds the different rewards
+     * Parses the rewards column
      *
      * @param rewards Rewards JSON
+     *
+     * @return Available rewards
+     *
+     * @throws Exception If the JSON is wrong
      */
-    private void _build(JSONArray rewards)
+    private static Collectable.Reward[] _rewards(JSONArray rewards) throws Exception
     {
-        try {
-            for(int i = 0; i < rewards.length(); i++) {
-                this._collectable.addReward(rewards.getJSONObject(i));
-            }
-        } catch(Exception e) {
-            Console.println("Couldn't build collectable!");
-            Console.println(e.getMessage());
+        Collectable.Reward[] parsed = new Collectable.Reward[rewards.length()];
+
+        for(int i = 0; i < parsed.length; i++) {
+            JSONObject reward = rewards.getJSONObject(i);
+
+            parsed[i] = new Collectable.Reward(
+                    reward.getInt("items_id"),
+                    reward.getInt("amount"),
+                    reward.getDouble("probability")
+            );
         }
+
+        return parsed;
     }
 
     /**
@@ -1,12 +1,6 @@
 package com.manulaiko.blackeye.simulator.collectable;
 
 import java.awt.Point;
-import java.util.ArrayList;
-
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import com.manulaiko.tabitha.Console;
 
 /**
  * Collectable class
@@ -48,11 +42,6 @@ public class Collectable
      */
     public String name = "box0";
 
-    /**
-     * Rewards JSON
-     */
-    public JSONArray rewardsJSON;
-
     /**
      * Position
      */
@@ -60,8 +49,10 @@ public class Collectable
 
     /**
      * Available rewards
+     *
+     * Shared by the clones of the same collectable, it must not be changed.
      */
-    public ArrayList<Reward> rewards = new ArrayList<>();
+    public Reward[] rewards = new Reward[0];
 
     /**
      * Constructor
@@ -70,36 +61,19 @@ public class Collectable
      * @param gfx      Graphic
      * @param classID  Class
      * @param name     Name
-     * @param rewards  Rewards JSON
+     * @param rewards  Available rewards
      * @param position Position
      */
-    public Collectable(int id, int gfx, int classID, String name, JSONArray rewards, Point position)
+    public Collectable(int id, int gfx, int classID, String name, Reward[] rewards, Point position)
     {
         this.id = id;
         this.gfx = gfx;
         this.classID = classID;
         this.name = name;
-        this.rewardsJSON = rewards;
+        this.rewards = rewards;
         this.position = position;
     }
 
-    /**
-     * Adds a reward to the array
-     */
-    public void addReward(JSONObject reward)
-    {
-        try {
-            this.rewards.add(new Reward(
-                    reward.getInt("items_id"),
-                    reward.getInt("amount"),
-                    reward.getDouble("probability")
-            ));
-        } catch(Exception e) {
-            Console.println("Couldn't add reward!");
-            Console.println(e.getMessage());
-        }
-    }
-
     /**
      * Reward class
      *
@@ -107,22 +81,22 @@ public class Collectable
      *
      * @package com.manulaiko.blackeye.simulator.collectable.Collectable
      */
-    public class Reward
+    public static class Reward
     {
         /**
          * Item id
          */
-        public int itemsID;
+        public final int itemsID;
 
         /**
          * Amount
          */
-        public int amount;
+        public final int amount;
 
         /**
          * Probability
          */
-        public double probability;
+        public final double probability;
 
         /**
          * Constructor
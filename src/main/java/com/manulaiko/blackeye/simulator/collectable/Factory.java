@@ -1,13 +1,15 @@
 package com.manulaiko.blackeye.simulator.collectable;
 
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
 
 import com.manulaiko.blackeye.launcher.Main;
 
+import com.manulaiko.blackeye.simulator.Repository;
+
 import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.database.Snapshot;
 import com.manulaiko.tabitha.exceptions.NotFound;
 
 /**
@@ -19,12 +21,15 @@ import com.manulaiko.tabitha.exceptions.NotFound;
  *
  * @package com.manulaiko.blackeye.simulator.collectable
  */
-public class Factory
+public class Factory extends Repository<Collectable>
 {
     /**
-     * Instanced maps
+     * Constructor
      */
-    private HashMap<Integer, Collectable> _collectables = new HashMap<>();
+    public Factory()
+    {
+        super(c -> c.id);
+    }
 
     ///////////////////////
     // Start get methods //
@@ -40,15 +45,7 @@ public class Factory
      */
     public Collectable getByID(int id) throws NotFound
     {
-        if(!this._collectables.containsKey(id)) {
-            Collectable c = this.loadByID(id);
-
-            this._collectables.put(id, c);
-
-            return c;
-        }
-
-        return this._collectables.get(id);
+        return this._getOrLoad(id, () -> this.loadByID(id));
     }
 
     /**
@@ -58,17 +55,7 @@ public class Factory
      */
     public HashMap<Integer, Collectable> getAllCollectables()
     {
-        return this._collectables;
-    }
-
-    /**
-     * Returns the amount of loaded maps
-     *
-     * @return Amount of loaded maps
-     */
-    public int getAmount()
-    {
-        return this._collectables.size();
+        return this.getAll();
     }
     /////////////////////
     // End get methods //
@@ -89,45 +76,61 @@ public class Factory
     public Collectable loadByID(int id) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `collectables` WHERE `id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getCollectable();
-            } else {
-                throw new NotFound("collectable", "id: "+ id);
+            Collectable collectable = Main.mysqlManager.queryOne(
+                "SELECT * FROM `collectables` WHERE `id`=?",
+                result -> new Builder(result).getCollectable(),
+                id
+            );
+
+            if(collectable != null) {
+                return collectable;
             }
         } catch(SQLException e) {
-            throw new NotFound("collectable", "id: "+ id);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("collectable", "id: "+ id);
     }
     
     /**
-     * Loads all maps from database
+     * Loads all collectables from database
      */
     public void loadAll()
     {
         try {
-            java.sql.ResultSet result = Main.mysqlManager.query("SELECT * FROM `collectables`");
-
-            java.awt.Point p = new java.awt.Point(100, 100);
-
-            while(result.next()) {
-                Builder builder = new Builder(result);
-
-                Collectable m = builder.getCollectable();
+            Main.mysqlManager.forEach("SELECT * FROM `collectables`", this::_load);
+        } catch(Exception e) {
+            Console.println("Couldn't load collectable!");
+            Console.println(e.getMessage());
+        }
+    }
 
-                this._collectables.put(m.id, m);
-            }
+    /**
+     * Loads all collectables from a snapshot
+     *
+     * @param snapshot Snapshot with the `collectables` table
+     */
+    public void loadAll(Snapshot snapshot)
+    {
+        try {
+            snapshot.forEach("collectables", this::_load);
         } catch(Exception e) {
             Console.println("Couldn't load collectable!");
             Console.println(e.getMessage());
         }
     }
+
+    /**
+     * Builds and adds a loaded collectable
+     *
+     * @param result Row of the `collectables` table
+     */
+    private void _load(ResultSet result)
+    {
+        Collectable m = new Builder(result).getCollectable();
+
+        this._replace(m);
+    }
     //////////////////////
     // End load methods //
     //////////////////////
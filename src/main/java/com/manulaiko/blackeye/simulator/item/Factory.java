@@ -1,14 +1,15 @@
 package com.manulaiko.blackeye.simulator.item;
 
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
-import java.util.Map.Entry;
 
 import com.manulaiko.blackeye.launcher.Main;
 
+import com.manulaiko.blackeye.simulator.Repository;
+
 import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.database.Snapshot;
 import com.manulaiko.tabitha.exceptions.NotFound;
 
 /**
@@ -20,12 +21,18 @@ import com.manulaiko.tabitha.exceptions.NotFound;
  *
  * @package com.manulaiko.blackeye.simulator.item
  */
-public class Factory
+public class Factory extends Repository<Item>
 {
     /**
-     * Instanced maps
+     * Constructor
      */
-    private HashMap<Integer, Item> _items = new HashMap<>();
+    public Factory()
+    {
+        super(i -> i.id);
+
+        this._addIndex("name", i -> i.name);
+        this._addIndex("lootID", i -> i.lootID);
+    }
 
     ///////////////////////
     // Start get methods //
@@ -41,15 +48,7 @@ public class Factory
      */
     public Item getByID(int id) throws NotFound
     {
-        if(!this._items.containsKey(id)) {
-            Item c = this.loadByID(id);
-
-            this._items.put(id, c);
-
-            return c;
-        }
-
-        return this._items.get(id);
+        return this._getOrLoad(id, () -> this.loadByID(id));
     }
 
     /**
@@ -63,37 +62,31 @@ public class Factory
      */
     public Item getByName(String name) throws NotFound
     {
-        for(Entry<Integer, Item> i : this._items.entrySet()) {
-            if(i.getValue().name.equals(name)) {
-                return i.getValue();
-            }
-        }
-
-        Item i = this.loadByName(name);
-
-        this._items.put(i.id, i);
-
-        return i;
+        return this._getOrLoad("name", name, () -> this.loadByName(name));
     }
 
     /**
-     * Returns all items
+     * Returns given item
      *
-     * @return All items
+     * @param lootID Item loot id
+     *
+     * @return The item
+     *
+     * @throws NotFound If item doesn't exist
      */
-    public HashMap<Integer, Item> getAllItems()
+    public Item getByLootID(String lootID) throws NotFound
     {
-        return this._items;
+        return this._getOrLoad("lootID", lootID, () -> this.loadByLootID(lootID));
     }
 
     /**
-     * Returns the amount of loaded maps
+     * Returns all items
      *
-     * @return Amount of loaded maps
+     * @return All items
      */
-    public int getAmount()
+    public HashMap<Integer, Item> getAllItems()
     {
-        return this._items.size();
+        return this.getAll();
     }
     /////////////////////
     // End get methods //
@@ -114,21 +107,20 @@ public class Factory
     public Item loadByID(int id) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `items` WHERE `id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getItem();
-            } else {
-                throw new NotFound("item", "id: "+ id);
+            Item item = Main.mysqlManager.queryOne(
+                "SELECT * FROM `items` WHERE `id`=?",
+                result -> new Builder(result).getItem(),
+                id
+            );
+
+            if(item != null) {
+                return item;
             }
         } catch(SQLException e) {
-            throw new NotFound("item", "id: "+ id);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("item", "id: "+ id);
     }
 
     /**
@@ -143,21 +135,48 @@ public class Factory
     public Item loadByName(String name) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `items` WHERE `name`=?");
-            ps.setString(1, name);
-
-            ResultSet result = ps.executeQuery();
+            Item item = Main.mysqlManager.queryOne(
+                "SELECT * FROM `items` WHERE `name`=?",
+                result -> new Builder(result).getItem(),
+                name
+            );
+
+            if(item != null) {
+                return item;
+            }
+        } catch(SQLException e) {
+            Console.println(e.getMessage());
+        }
 
-            if(result.next()) {
-                Builder builder = new Builder(result);
+        throw new NotFound("item", name);
+    }
 
-                return builder.getItem();
-            } else {
-                throw new NotFound("item", name);
+    /**
+     * Builds and returns an item by its loot id
+     *
+     * @param lootID Item loot id
+     *
+     * @return The Item
+     *
+     * @throws NotFound If item doesn't exist in database
+     */
+    public Item loadByLootID(String lootID) throws NotFound
+    {
+        try {
+            Item item = Main.mysqlManager.queryOne(
+                "SELECT * FROM `items` WHERE `loot_id`=?",
+                result -> new Builder(result).getItem(),
+                lootID
+            );
+
+            if(item != null) {
+                return item;
             }
         } catch(SQLException e) {
-            throw new NotFound("item", name);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("item", "loot_id: "+ lootID);
     }
 
     /**
@@ -166,20 +185,39 @@ public class Factory
     public void loadAll()
     {
         try {
-            java.sql.ResultSet result = Main.mysqlManager.query("SELECT * FROM `items`");
-
-            while(result.next()) {
-                Builder builder = new Builder(result);
-
-                Item m = builder.getItem();
+            Main.mysqlManager.forEach("SELECT * FROM `items`", this::_load);
+        } catch(Exception e) {
+            Console.println("Couldn't load item!");
+            Console.println(e.getMessage());
+        }
+    }
 
-                this._items.put(m.id, m);
-            }
+    /**
+     * Loads all items from a snapshot
+     *
+     * @param snapshot Snapshot with the `items` table
+     */
+    public void loadAll(Snapshot snapshot)
+    {
+        try {
+            snapshot.forEach("items", this::_load);
         } catch(Exception e) {
             Console.println("Couldn't load item!");
             Console.println(e.getMessage());
         }
     }
+
+    /**
+     * Builds and adds a loaded item
+     *
+     * @param result Row of the `items` table
+     */
+    private void _load(ResultSet result)
+    {
+        Item m = new Builder(result).getItem();
+
+        this._replace(m);
+    }
     //////////////////////
     // End load methods //
     //////////////////////
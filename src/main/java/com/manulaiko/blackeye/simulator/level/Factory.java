@@ -1,14 +1,15 @@
 package com.manulaiko.blackeye.simulator.level;
 
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
-import java.util.Map.Entry;
 
 import com.manulaiko.blackeye.launcher.Main;
 
+import com.manulaiko.blackeye.simulator.Repository;
+
 import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.database.Snapshot;
 import com.manulaiko.tabitha.exceptions.NotFound;
 
 /**
@@ -20,12 +21,15 @@ import com.manulaiko.tabitha.exceptions.NotFound;
  *
  * @package com.manulaiko.blackeye.simulator.level
  */
-public class Factory
+public class Factory extends Repository<Level>
 {
     /**
-     * Instanced maps
+     * Constructor
      */
-    private HashMap<Integer, Level> _levels = new HashMap<>();
+    public Factory()
+    {
+        super(l -> l.id);
+    }
 
     ///////////////////////
     // Start get methods //
@@ -41,15 +45,7 @@ public class Factory
      */
     public Level getByID(int id) throws NotFound
     {
-        if(!this._levels.containsKey(id)) {
-            Level l = this.loadByID(id);
-
-            this._levels.put(id, l);
-
-            return l;
-        }
-
-        return this._levels.get(id);
+        return this._getOrLoad(id, () -> this.loadByID(id));
     }
 
     /**
@@ -59,17 +55,7 @@ public class Factory
      */
     public HashMap<Integer, Level> getAllLevels()
     {
-        return this._levels;
-    }
-
-    /**
-     * Returns the amount of loaded maps
-     *
-     * @return Amount of loaded maps
-     */
-    public int getAmount()
-    {
-        return this._levels.size();
+        return this.getAll();
     }
     /////////////////////
     // End get methods //
@@ -90,43 +76,61 @@ public class Factory
     public Level loadByID(int id) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `levels` WHERE `id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getLevel();
-            } else {
-                throw new NotFound("level", "id: "+ id);
+            Level level = Main.mysqlManager.queryOne(
+                "SELECT * FROM `levels` WHERE `id`=?",
+                result -> new Builder(result).getLevel(),
+                id
+            );
+
+            if(level != null) {
+                return level;
             }
         } catch(SQLException e) {
-            throw new NotFound("level", "id: "+ id);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("level", "id: "+ id);
     }
 
     /**
-     * Loads all level from database
+     * Loads all levels from database
      */
     public void loadAll()
     {
         try {
-            java.sql.ResultSet result = Main.mysqlManager.query("SELECT * FROM `levels`");
-
-            while(result.next()) {
-                Builder builder = new Builder(result);
-
-                Level l = builder.getLevel();
+            Main.mysqlManager.forEach("SELECT * FROM `levels`", this::_load);
+        } catch(Exception e) {
+            Console.println("Couldn't load level!");
+            Console.println(e.getMessage());
+        }
+    }
 
-                this._levels.put(l.id, l);
-            }
+    /**
+     * Loads all levels from a snapshot
+     *
+     * @param snapshot Snapshot with the `levels` table
+     */
+    public void loadAll(Snapshot snapshot)
+    {
+        try {
+            snapshot.forEach("levels", this::_load);
         } catch(Exception e) {
             Console.println("Couldn't load level!");
             Console.println(e.getMessage());
         }
     }
+
+    /**
+     * Builds and adds a loaded level
+     *
+     * @param result Row of the `levels` table
+     */
+    private void _load(ResultSet result)
+    {
+        Level l = new Builder(result).getLevel();
+
+        this._replace(l);
+    }
     //////////////////////
     // End load methods //
     //////////////////////
@@ -2,8 +2,6 @@ package com.manulaiko.blackeye.simulator.map;
 
 import java.awt.Point;
 import java.sql.ResultSet;
-import java.util.Map.Entry;
-import java.util.concurrent.ThreadLocalRandom;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -43,14 +41,10 @@ public class Builder
     public Builder(ResultSet rs)
     {
         try {
-            JSONArray limitsJSON   = new JSONArray(rs.getString("limits"));
-            JSONArray npcs         = new JSONArray(rs.getString("npcs"));
-            JSONArray stations     = new JSONArray(rs.getString("stations"));
-            JSONArray collectables = new JSONArray(rs.getString("collectables"));
+            JSONArray limitsJSON = new JSONArray(rs.getString("limits"));
 
             Point limits = new Point(limitsJSON.getInt(0), limitsJSON.getInt(1));
 
-
             this._map = new Map(
                     rs.getInt("id"),
                     rs.getInt("factions_id"),
@@ -58,12 +52,12 @@ public class Builder
                     rs.getBoolean("is_starter"),
                     rs.getString("name"),
                     limits,
-                    npcs,
-                    stations,
-                    collectables
+                    Builder._npcSpawns(new JSONArray(rs.getString("npcs")), limits),
+                    Builder._stations(new JSONArray(rs.getString("stations"))),
+                    Builder._collectableSpawns(new JSONArray(rs.getString("collectables")))
             );
 
-            this._build(rs.getInt("id"), limits, npcs, stations, collectables);
+            this._build();
         } catch(Exception e) {
             Console.println("Couldn't build map!");
             Console.println(e.getMessage());
@@ -80,7 +74,7 @@ public class Builder
     public Builder(Map map)
     {
         try {
-            Map m = new Map(
+            this._map = new Map(
                     map.id,
                     map.factionsID,
                     map.isPVP,
@@ -107,12 +101,12 @@ public class Builder
                      * -Manulaiko
                      */
                     map.limits,
-                    map.npcsJSON,
-                    map.stationsJSON,
-                    map.collectablesJSON
+                    map.npcSpawns,
+                    map.stationSpawns,
+                    map.collectableSpawns
             );
 
-            this._build(m.id, m.limits, m.npcsJSON, m.stationsJSON, m.collectablesJSON);
+            this._build();
         } catch(Exception e) {
             Console.println("Couldn't clone map!");
             Console.println(e.getMessage());
@@ -122,34 +116,17 @@ public class Builder
     /**
      * Builds a map
      *
-     * @param id           Map id
-     * @param limits       limits
-     * @param npcs         NPCs JSON
-     * @param stations     Stations JSON
-     * @param collectables Collectables JSON
-     *
-     * @return The map
+     * Spawns the NPCs, portals, stations and collectables of the map.
      */
-    private void _build(int id, Point limits, JSONArray npcs, JSONArray stations, JSONArray collectables)
+    private void _build()
     {
         try {
             //Load NPCs
             if(Main.configuration.getBoolean("maps.load_npcs")) {
-                //Loop through all kind of NPCs there are in map
-                for(int i = 0; i < npcs.length(); i++) {
-                    JSONObject npc = npcs.getJSONObject(i);
-
-                    //Loop through the amount of NPCs to spawn
-                    for(int j = 0; j < npc.getInt("amount"); i++) {
-                        NPC n = GameManager.npcs.cloneByID(npc.getInt("npcs_id"));
-
-                        //Create random position
-                        n.position = new Point(
-                                ThreadLocalRandom.current()
-                                                 .nextInt(0, (int) limits.getX() + 1),
-                                ThreadLocalRandom.current()
-                                                 .nextInt(0, (int) limits.getY() + 1)
-                        );
+                for(Spawn spawn : this._map.npcSpawns) {
+                    for(int i = 0; i < spawn.amount; i++) {
+                        NPC n = GameManager.npcs.cloneByID(spawn.id);
+                        n.position = spawn.randomPosition();
 
                         this.addNPC(n);
                     }
@@ -158,54 +135,27 @@ public class Builder
 
             //Load portals
             if(Main.configuration.getBoolean("maps.load_portals")) {
-                GameManager.portals.getByMapID(id).forEach((Integer i, Portal p) -> {
+                GameManager.portals.getByMapID(this._map.id).forEach((Integer i, Portal p) -> {
                     this.addPortal(p);
                 });
             }
 
             //Load stations
             if(Main.configuration.getBoolean("maps.load_stations")) {
-                //Loop through all available stations
-                for(int i = 0; i < stations.length(); i++) {
-                    JSONObject station = stations.getJSONObject(i);
-                    JSONArray position = station.getJSONArray("position");
-
+                for(Station station : this._map.stationSpawns) {
                     this.addStation(new Station(
-                            station.getInt("factions_id"),
-                            new Point(
-                                    position.getInt(0),
-                                    position.getInt(1)
-                            )
+                            station.factionsID,
+                            new Point(station.position)
                     ));
                 }
             }
 
             //Load collectables
             if(Main.configuration.getBoolean("maps.load_collectables")) {
-                //Load all available collectables
-                for(int i = 0; i < collectables.length(); i++) {
-                    JSONObject collectable = collectables.getJSONObject(i);
-
-                    JSONArray topLeft = collectable.getJSONArray("topLeft");
-                    JSONArray bottomRight = collectable.getJSONArray("bottom");
-
-                    for(int j = 0; j < collectable.getInt("amount"); j++) {
-                        //Build random position based on topLeft and bottomRight
-                        Point position = new Point(
-                                ThreadLocalRandom.current()
-                                                 .nextInt(
-                                                         topLeft.getInt(0),
-                                                         bottomRight.getInt(0) + 1
-                                                 ),
-                                ThreadLocalRandom.current()
-                                                 .nextInt(
-                                                         topLeft.getInt(1),
-                                                         bottomRight.getInt(1) + 1
-                                                 )
-                        );
-
-                        Collectable c = GameManager.collectables.cloneByID(collectable.getInt("collectables_id"));
-                        c.position = position;
+                for(Spawn spawn : this._map.collectableSpawns) {
+                    for(int i = 0; i < spawn.amount; i++) {
+                        Collectable c = GameManager.collectables.cloneByID(spawn.id);
+                        c.position = spawn.randomPosition();
 
                         this.addCollectable(c);
                     }
@@ -217,6 +167,100 @@ public class Builder
         }
     }
 
+    /**
+     * Parses the npcs column
+     *
+     * NPCs are spawned in the whole map.
+     *
+     * @param npcs   NPCs JSON
+     * @param limits Map limits
+     *
+     * @return NPC spawns
+     *
+     * @throws Exception If the JSON is wrong
+     */
+    private static Spawn[] _npcSpawns(JSONArray npcs, Point limits) throws Exception
+    {
+        Spawn[] spawns = new Spawn[npcs.length()];
+
+        for(int i = 0; i < spawns.length; i++) {
+            JSONObject npc = npcs.getJSONObject(i);
+
+            spawns[i] = new Spawn(
+                    npc.getInt("npcs_id"),
+                    npc.getInt("amount"),
+                    0,
+                    0,
+                    limits.x,
+                    limits.y
+            );
+        }
+
+        return spawns;
+    }
+
+    /**
+     * Parses the stations column
+     *
+     * @param stations Stations JSON
+     *
+     * @return Stations of the map
+     *
+     * @throws Exception If the JSON is wrong
+     */
+    private static Station[] _stations(JSONArray stations) throws Exception
+    {
+        Station[] parsed = new Station[stations.length()];
+
+        for(int i = 0; i < parsed.length; i++) {
+            JSONObject station  = stations.getJSONObject(i);
+            JSONArray  position = station.getJSONArray("position");
+
+            parsed[i] = new Station(
+                    station.getInt("factions_id"),
+                    new Point(
+                            position.getInt(0),
+                            position.getInt(1)
+                    )
+            );
+        }
+
+        return parsed;
+    }
+
+    /**
+     * Parses the collectables column
+     *
+     * Collectables are spawned between their `topLeft` and `bottom` positions.
+     *
+     * @param collectables Collectables JSON
+     *
+     * @return Collectable spawns
+     *
+     * @throws Exception If the JSON is wrong
+     */
+    private static Spawn[] _collectableSpawns(JSONArray collectables) throws Exception
+    {
+        Spawn[] spawns = new Spawn[collectables.length()];
+
+        for(int i = 0; i < spawns.length; i++) {
+            JSONObject collectable = collectables.getJSONObject(i);
+            JSONArray  topLeft     = collectable.getJSONArray("topLeft");
+            JSONArray  bottomRight = collectable.getJSONArray("bottom");
+
+            spawns[i] = new Spawn(
+                    collectable.getInt("collectables_id"),
+                    collectable.getInt("amount"),
+                    topLeft.getInt(0),
+                    topLeft.getInt(1),
+                    bottomRight.getInt(0),
+                    bottomRight.getInt(1)
+            );
+        }
+
+        return spawns;
+    }
+
     /**
      * Returns the map
      *
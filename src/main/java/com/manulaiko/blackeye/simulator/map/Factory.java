@@ -1,13 +1,14 @@
 package com.manulaiko.blackeye.simulator.map;
 
 import java.sql.ResultSet;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.HashMap;
-import java.util.Map.Entry;
 
 import com.manulaiko.blackeye.launcher.Main;
+
+import com.manulaiko.blackeye.simulator.Repository;
 import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.database.Snapshot;
 import com.manulaiko.tabitha.exceptions.NotFound;
 
 /**
@@ -19,12 +20,17 @@ import com.manulaiko.tabitha.exceptions.NotFound;
  *
  * @package com.manulaiko.blackeye.simulator.map
  */
-public class Factory
+public class Factory extends Repository<Map>
 {
     /**
-     * Instanced maps
+     * Constructor
      */
-    private HashMap<Integer, Map> _maps = new HashMap<>();
+    public Factory()
+    {
+        super(m -> m.id);
+
+        this._addIndex("name", m -> m.name);
+    }
 
     ///////////////////////
     // Start get methods //
@@ -40,15 +46,7 @@ public class Factory
      */
     public Map getByID(int id) throws NotFound
     {
-        if(!this._maps.containsKey(id)) {
-            Map m = this.loadByID(id);
-
-            this._maps.put(id, m);
-
-            return m;
-        }
-
-        return this._maps.get(id);
+        return this._getOrLoad(id, () -> this.loadByID(id));
     }
 
     /**
@@ -62,17 +60,7 @@ public class Factory
      */
     public Map getByName(String name) throws NotFound
     {
-        for(Entry<Integer, Map> m : this._maps.entrySet()) {
-            if(m.getValue().name.equals(name)) {
-                return m.getValue();
-            }
-        }
-
-        Map m = this.loadByName(name);
-
-        this._maps.put(m.id, m);
-
-        return m;
+        return this._getOrLoad("name", name, () -> this.loadByName(name));
     }
 
     /**
@@ -82,17 +70,7 @@ public class Factory
      */
     public HashMap<Integer, Map> getAllMaps()
     {
-        return this._maps;
-    }
-
-    /**
-     * Returns the amount of loaded maps
-     *
-     * @return Amount of loaded maps
-     */
-    public int getAmount()
-    {
-        return this._maps.size();
+        return this.getAll();
     }
     /////////////////////
     // End get methods //
@@ -113,21 +91,20 @@ public class Factory
     public Map loadByID(int id) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `maps` WHERE `id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getMap();
-            } else {
-                throw new NotFound("map", "id: "+ id);
+            Map map = Main.mysqlManager.queryOne(
+                "SELECT * FROM `maps` WHERE `id`=?",
+                result -> new Builder(result).getMap(),
+                id
+            );
+
+            if(map != null) {
+                return map;
             }
         } catch(SQLException e) {
-            throw new NotFound("map", "id: "+ id);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("map", "id: "+ id);
     }
 
     /**
@@ -142,21 +119,20 @@ public class Factory
     public Map loadByName(String name) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `maps` WHERE `name`=?");
-            ps.setString(1, name);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getMap();
-            } else {
-                throw new NotFound("map", name);
+            Map map = Main.mysqlManager.queryOne(
+                "SELECT * FROM `maps` WHERE `name`=?",
+                result -> new Builder(result).getMap(),
+                name
+            );
+
+            if(map != null) {
+                return map;
             }
         } catch(SQLException e) {
-            throw new NotFound("map", name);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("map", name);
     }
 
     /**
@@ -165,22 +141,39 @@ public class Factory
     public void loadAll()
     {
         try {
-            ResultSet result = Main.mysqlManager.query("SELECT * FROM `maps`");
-
-            java.awt.Point p = new java.awt.Point(100, 100);
-
-            while(result.next()) {
-                Builder builder = new Builder(result);
-                
-                Map m = builder.getMap();
+            Main.mysqlManager.forEach("SELECT * FROM `maps`", this::_load);
+        } catch(Exception e) {
+            Console.println("Couldn't load map!");
+            Console.println(e.getMessage());
+        }
+    }
 
-                this._maps.put(m.id, m);
-            }
+    /**
+     * Loads all maps from a snapshot
+     *
+     * @param snapshot Snapshot with the `maps` table
+     */
+    public void loadAll(Snapshot snapshot)
+    {
+        try {
+            snapshot.forEach("maps", this::_load);
         } catch(Exception e) {
             Console.println("Couldn't load map!");
             Console.println(e.getMessage());
         }
     }
+
+    /**
+     * Builds and adds a loaded map
+     *
+     * @param result Row of the `maps` table
+     */
+    private void _load(ResultSet result)
+    {
+        Map m = new Builder(result).getMap();
+
+        this._replace(m);
+    }
     //////////////////////
     // End load methods //
     //////////////////////
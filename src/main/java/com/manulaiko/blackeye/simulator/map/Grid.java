@@ -0,0 +1,330 @@
+package com.manulaiko.blackeye.simulator.map;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.function.Function;
+
+/**
+ * Grid class
+ *
+ * Spatial index of the objects of a map. The map is split in square
+ * cells of the same size and each object is stored in the cell of its
+ * position, so looking for the objects near a point only checks the
+ * cells around it instead of all objects of the map.
+ *
+ * The cell size is derived from the map limits, so every map has about
+ * `DIVISIONS` cells on its longest side. Objects outside the limits are
+ * stored in the closest cell of the border.
+ *
+ * When an object moves, `update` must be called so it's moved to its
+ * new cell:
+ *
+ *     npc.move(seconds);
+ *     map.npcGrid.update(npc);
+ *
+ *     ArrayList<NPC> near = map.npcGrid.inRange(ship.position, 1000);
+ *
+ * Like the map, the grid isn't synchronized, it's only used from the
+ * ticks of its map.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.blackeye.simulator.map
+ */
+public class Grid<T>
+{
+    /**
+     * Amount of cells on the longest side of the map
+     */
+    public static final int DIVISIONS = 32;
+
+    /**
+     * Min size of a cell
+     */
+    public static final int MIN_CELL_SIZE = 100;
+
+    /**
+     * Size of a cell
+     */
+    public final int cellSize;
+
+    /**
+     * Amount of columns
+     */
+    public final int columns;
+
+    /**
+     * Amount of rows
+     */
+    public final int rows;
+
+    /**
+     * Returns the position of an object
+     */
+    private Function<T, Point> _position;
+
+    /**
+     * Objects of each cell, by cell index
+     */
+    private ArrayList<ArrayList<T>> _cells;
+
+    /**
+     * Cell index of each object
+     */
+    private IdentityHashMap<T, Integer> _indexes = new IdentityHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param limits   Map size
+     * @param position Returns the position of an object
+     */
+    public Grid(Point limits, Function<T, Point> position)
+    {
+        int size = Math.max(limits.x, limits.y) / Grid.DIVISIONS;
+
+        this.cellSize  = Math.max(Grid.MIN_CELL_SIZE, size);
+        this.columns   = Math.max(1, (limits.x + this.cellSize - 1) / this.cellSize);
+        this.rows      = Math.max(1, (limits.y + this.cellSize - 1) / this.cellSize);
+        this._position = position;
+        this._cells    = new ArrayList<>(this.columns * this.rows);
+
+        for(int i = 0; i < this.columns * this.rows; i++) {
+            this._cells.add(new ArrayList<>(0));
+        }
+    }
+
+    /**
+     * Adds an object
+     *
+     * @param entity Object to add
+     */
+    public void add(T entity)
+    {
+        if(this._indexes.containsKey(entity)) {
+            this.update(entity);
+
+            return;
+        }
+
+        int index = this._index(this._position.apply(entity));
+
+        this._cells.get(index).add(entity);
+        this._indexes.put(entity, index);
+    }
+
+    /**
+     * Removes an object
+     *
+     * @param entity Object to remove
+     *
+     * @return True if the object was in the grid, false if not
+     */
+    public boolean remove(T entity)
+    {
+        Integer index = this._indexes.remove(entity);
+        if(index == null) {
+            return false;
+        }
+
+        this._remove(this._cells.get(index), entity);
+
+        return true;
+    }
+
+    /**
+     * Moves an object to the cell of its current position
+     *
+     * Objects that aren't in the grid are ignored.
+     *
+     * @param entity Moved object
+     */
+    public void update(T entity)
+    {
+        Integer old = this._indexes.get(entity);
+        if(old == null) {
+            return;
+        }
+
+        int index = this._index(this._position.apply(entity));
+        if(index == old) {
+            return;
+        }
+
+        this._remove(this._cells.get(old), entity);
+        this._cells.get(index).add(entity);
+        this._indexes.put(entity, index);
+    }
+
+    /**
+     * Returns all objects in range of a point
+     *
+     * @param center Point
+     * @param range  Max distance to the point
+     *
+     * @return Objects whose distance to the point is less or equal than range
+     */
+    public ArrayList<T> inRange(Point center, int range)
+    {
+        ArrayList<T> entities = new ArrayList<>();
+        long         squared  = (long)range * range;
+
+        int minColumn = this._column(center.x - range);
+        int maxColumn = this._column(center.x + range);
+        int minRow    = this._row(center.y - range);
+        int maxRow    = this._row(center.y + range);
+
+        for(int row = minRow; row <= maxRow; row++) {
+            for(int column = minColumn; column <= maxColumn; column++) {
+                for(T entity : this._cells.get(row * this.columns + column)) {
+                    if(Grid._distance(center, this._position.apply(entity)) <= squared) {
+                        entities.add(entity);
+                    }
+                }
+            }
+        }
+
+        return entities;
+    }
+
+    /**
+     * Returns the closest object to a point
+     *
+     * Cells are checked in rings around the cell of the point, until no
+     * unchecked cell can have a closer object.
+     *
+     * @param center Point
+     * @param range  Max distance to the point
+     *
+     * @return The closest object, null if there's none in range
+     */
+    public T nearest(Point center, int range)
+    {
+        T    nearest = null;
+        long best    = (long)range * range;
+
+        int column = this._column(center.x);
+        int row    = this._row(center.y);
+        int rings  = Math.max(this.columns, this.rows);
+
+        for(int ring = 0; ring <= rings; ring++) {
+            // Anything in this ring or further is at least this far
+            long distance = (long)Math.max(0, ring - 1) * this.cellSize;
+            if(distance * distance > best) {
+                break;
+            }
+
+            for(int y = row - ring; y <= row + ring; y++) {
+                if(y < 0 || y >= this.rows) {
+                    continue;
+                }
+
+                boolean isEdge = (y == row - ring || y == row + ring);
+                int     step   = isEdge ? 1 : Math.max(1, 2 * ring);
+
+                for(int x = column - ring; x <= column + ring; x += step) {
+                    if(x < 0 || x >= this.columns) {
+                        continue;
+                    }
+
+                    for(T entity : this._cells.get(y * this.columns + x)) {
+                        long d = Grid._distance(center, this._position.apply(entity));
+
+                        if(d <= best) {
+                            best    = d;
+                            nearest = entity;
+                        }
+                    }
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    /**
+     * Returns the amount of objects
+     *
+     * @return Amount of objects
+     */
+    public int size()
+    {
+        return this._indexes.size();
+    }
+
+    /**
+     * Returns the cell index of a position
+     *
+     * @param position Position
+     *
+     * @return Cell index
+     */
+    private int _index(Point position)
+    {
+        return this._row(position.y) * this.columns + this._column(position.x);
+    }
+
+    /**
+     * Returns the column of a x coordinate
+     *
+     * @param x Coordinate
+     *
+     * @return Column, clamped to the grid
+     */
+    private int _column(int x)
+    {
+        return Math.max(0, Math.min(this.columns - 1, Math.floorDiv(x, this.cellSize)));
+    }
+
+    /**
+     * Returns the row of a y coordinate
+     *
+     * @param y Coordinate
+     *
+     * @return Row, clamped to the grid
+     */
+    private int _row(int y)
+    {
+        return Math.max(0, Math.min(this.rows - 1, Math.floorDiv(y, this.cellSize)));
+    }
+
+    /**
+     * Removes an object from a cell
+     *
+     * The last object of the cell takes its place, the order of a cell
+     * doesn't matter.
+     *
+     * @param cell   Cell objects
+     * @param entity Object to remove
+     */
+    private void _remove(ArrayList<T> cell, T entity)
+    {
+        for(int i = 0; i < cell.size(); i++) {
+            if(cell.get(i) == entity) {
+                T last = cell.remove(cell.size() - 1);
+                if(i < cell.size()) {
+                    cell.set(i, last);
+                }
+
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the squared distance between two points
+     *
+     * @param a First point
+     * @param b Second point
+     *
+     * @return Squared distance
+     */
+    private static long _distance(Point a, Point b)
+    {
+        long x = a.x - b.x;
+        long y = a.y - b.y;
+
+        return x * x + y * y;
+    }
+}
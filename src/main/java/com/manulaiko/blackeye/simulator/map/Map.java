@@ -4,8 +4,7 @@ import java.awt.Point;
 import java.util.ArrayList;
 import java.util.HashMap;
 
-import org.json.JSONArray;
-
+import com.manulaiko.blackeye.simulator.account.Account;
 import com.manulaiko.blackeye.simulator.portal.Portal;
 import com.manulaiko.blackeye.simulator.npc.NPC;
 import com.manulaiko.blackeye.simulator.collectable.Collectable;
@@ -55,6 +54,23 @@ public class Map
      */
     public ArrayList<Station> stations = new ArrayList<>();
 
+    /**
+     * Players on the map, by account id
+     *
+     * Only changed from the ticks of the map, see {@see com.manulaiko.blackeye.simulator.map.Simulation}.
+     */
+    public HashMap<Integer, Account> players = new HashMap<>();
+
+    /**
+     * Spatial indexes of the NPCs, collectables, portals, stations and
+     * player ships, updated by the add, remove and move methods
+     */
+    public Grid<NPC>         npcGrid;
+    public Grid<Collectable> collectableGrid;
+    public Grid<Portal>      portalGrid;
+    public Grid<Station>     stationGrid;
+    public Grid<Account>     playerGrid;
+
     /**
      * Whether map is pvp or not
      */
@@ -71,19 +87,21 @@ public class Map
     public int factionsID = -1;
 
     /**
-     * NPCs' JSON
+     * NPCs spawned on the map
+     *
+     * Spawns are shared by the clones of the map, they must not be changed.
      */
-    public JSONArray npcsJSON;
+    public Spawn[] npcSpawns;
 
     /**
-     * Stations' JSON
+     * Stations placed on the map
      */
-    public JSONArray stationsJSON;
+    public Station[] stationSpawns;
 
     /**
-     * Collectables' JSON
+     * Collectables spawned on the map
      */
-    public JSONArray collectablesJSON;
+    public Spawn[] collectableSpawns;
 
     /**
      * Constructor
@@ -94,23 +112,29 @@ public class Map
      * @param isStarter    Whether map is a starter map or not
      * @param name         Map name
      * @param limits       Map limits
-     * @param npcs         NPCs' JSON
-     * @param stations     Stations' JSON
-     * @param collectables Collectables' JSON
+     * @param npcs         NPCs spawned on the map
+     * @param stations     Stations placed on the map
+     * @param collectables Collectables spawned on the map
      */
     public Map(
             int id, int factionsID, boolean isPVP, boolean isStarter, String name,
-            Point limits, JSONArray npcs, JSONArray stations, JSONArray collectables
+            Point limits, Spawn[] npcs, Station[] stations, Spawn[] collectables
     ) {
-        this.id               = id;
-        this.factionsID       = factionsID;
-        this.isPVP            = isPVP;
-        this.isStarter        = isStarter;
-        this.name             = name;
-        this.limits           = limits;
-        this.npcsJSON         = npcs;
-        this.stationsJSON     = stations;
-        this.collectablesJSON = collectables;
+        this.id                = id;
+        this.factionsID        = factionsID;
+        this.isPVP             = isPVP;
+        this.isStarter         = isStarter;
+        this.name              = name;
+        this.limits            = limits;
+        this.npcSpawns         = npcs;
+        this.stationSpawns     = stations;
+        this.collectableSpawns = collectables;
+
+        this.npcGrid         = new Grid<>(limits, n -> n.position);
+        this.collectableGrid = new Grid<>(limits, c -> c.position);
+        this.portalGrid      = new Grid<>(limits, p -> p.position);
+        this.stationGrid     = new Grid<>(limits, s -> s.position);
+        this.playerGrid      = new Grid<>(limits, a -> a.hangar.ship.position);
     }
 
     /**
@@ -126,7 +150,12 @@ public class Map
             id = 0;
         }
 
-        this.npcs.put(id--, npc);
+        NPC old = this.npcs.put(id--, npc);
+        if(old != null) {
+            this.npcGrid.remove(old);
+        }
+
+        this.npcGrid.add(npc);
     }
 
     /**
@@ -136,7 +165,12 @@ public class Map
      */
     public void addPortal(Portal portal)
     {
-        this.portals.put(portal.id, portal);
+        Portal old = this.portals.put(portal.id, portal);
+        if(old != null) {
+            this.portalGrid.remove(old);
+        }
+
+        this.portalGrid.add(portal);
     }
 
     /**
@@ -152,7 +186,57 @@ public class Map
             id = 0;
         }
 
-        this.collectables.put(id--, collectable);
+        Collectable old = this.collectables.put(id--, collectable);
+        if(old != null) {
+            this.collectableGrid.remove(old);
+        }
+
+        this.collectableGrid.add(collectable);
+    }
+
+    /**
+     * Adds a player to the map
+     *
+     * @param account Player account
+     */
+    public void addPlayer(Account account)
+    {
+        Account old = this.players.put(account.id, account);
+        if(old != null) {
+            this.playerGrid.remove(old);
+        }
+
+        this.playerGrid.add(account);
+    }
+
+    /**
+     * Moves the ship of a player
+     *
+     * @param account  Player account
+     * @param position New position
+     */
+    public void movePlayer(Account account, Point position)
+    {
+        account.hangar.ship.move(position);
+
+        this.playerGrid.update(account);
+    }
+
+    /**
+     * Removes a player from the map
+     *
+     * @param id Account id
+     *
+     * @return Removed account, null if it wasn't on the map
+     */
+    public Account removePlayer(int id)
+    {
+        Account account = this.players.remove(id);
+        if(account != null) {
+            this.playerGrid.remove(account);
+        }
+
+        return account;
     }
 
     /**
@@ -163,5 +247,6 @@ public class Map
     public void addStation(Station station)
     {
         this.stations.add(station);
+        this.stationGrid.add(station);
     }
 }
@@ -0,0 +1,497 @@
+package com.manulaiko.blackeye.simulator.map;
+
+import java.awt.Point;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.manulaiko.blackeye.launcher.GameManager;
+import com.manulaiko.blackeye.launcher.SimulationManager;
+
+import com.manulaiko.blackeye.simulator.account.Account;
+import com.manulaiko.blackeye.simulator.account.equipment.ship.Ship;
+import com.manulaiko.blackeye.simulator.npc.NPC;
+import com.manulaiko.blackeye.simulator.portal.Portal;
+
+import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.utils.Histogram;
+import com.manulaiko.tabitha.utils.RingBuffer;
+
+/**
+ * Simulation class
+ *
+ * Updates a map a fixed amount of times each second. Each update (tick)
+ * runs these phases, in order:
+ *
+ *  * Input: runs the tasks posted to the map since the last tick
+ *  * Movement: moves the NPCs towards their destination
+ *  * AI: idle NPCs pick a new destination
+ *  * Combat: attacks
+ *  * Broadcast: sends the changes to the players of the map
+ *
+ * Ticks are run by the worker of {@see com.manulaiko.blackeye.launcher.SimulationManager}
+ * that owns the map, never at the same time, so the map can only be
+ * changed from a tick. Other threads (like the connection threads) and
+ * other maps must post a task instead:
+ *
+ *     SimulationManager.get(mapID).post(() -> {
+ *         // Runs in the next tick of the map
+ *     });
+ *
+ * Players enter and leave the map with `enter` and `leave`, and jump to
+ * other maps with `jump`, that posts the player to the target map.
+ *
+ * A player can log out while it's jumping, so `leave` can be posted to
+ * the map it just left or to the target map before it's entered. The
+ * leave is forwarded to the map of the player's ship if it isn't in
+ * this one, and players that aren't logged in anymore don't enter.
+ *
+ * The time each tick takes is recorded in a histogram. If a tick takes
+ * longer than the tick period the map falls behind: it's counted as an
+ * overrun and a warning is printed.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.blackeye.simulator.map
+ */
+public class Simulation implements Runnable
+{
+    /**
+     * Max amount of tasks waiting for the next tick
+     */
+    public static final int INPUT_CAPACITY = 4096;
+
+    /**
+     * Chance of an idle NPC to start moving on each tick
+     */
+    public static final double WANDER_CHANCE = 0.01;
+
+    /**
+     * Max distance an NPC moves each time
+     */
+    public static final int WANDER_DISTANCE = 1000;
+
+    /**
+     * Min time in milliseconds between overrun warnings
+     */
+    public static final int WARNING_INTERVAL = 5000;
+
+    /**
+     * Phase names
+     */
+    public static final String[] PHASES = {"input", "movement", "AI", "combat", "broadcast"};
+
+    /**
+     * Simulated map
+     */
+    public Map map;
+
+    /**
+     * Time between ticks, in nanoseconds
+     */
+    public final long period;
+
+    /**
+     * Tick durations, in microseconds
+     */
+    public Histogram durations = new Histogram(100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000);
+
+    /**
+     * Tasks posted for the next tick
+     */
+    private RingBuffer<Runnable> _input = new RingBuffer<>(Simulation.INPUT_CAPACITY);
+
+    /**
+     * Time spent in each phase, in nanoseconds
+     */
+    private AtomicLongArray _phases = new AtomicLongArray(Simulation.PHASES.length);
+
+    /**
+     * Amount of ticks
+     */
+    private AtomicLong _ticks = new AtomicLong();
+
+    /**
+     * Amount of ticks that took longer than the period
+     */
+    private AtomicLong _overruns = new AtomicLong();
+
+    /**
+     * Amount of rejected tasks
+     */
+    private AtomicLong _rejected = new AtomicLong();
+
+    /**
+     * Recent average duration of the ticks, in nanoseconds
+     */
+    private volatile long _load = 0;
+
+    /**
+     * Longest delay of a tick from its planned start, in nanoseconds
+     */
+    private volatile long _maxLag = 0;
+
+    /**
+     * Start of the first tick, in nanoseconds
+     */
+    private long _start = 0;
+
+    /**
+     * Time of the last overrun warning, in milliseconds
+     */
+    private long _lastWarning = 0;
+
+    /**
+     * Constructor
+     *
+     * @param map      Map to simulate
+     * @param tickRate Ticks per second
+     */
+    public Simulation(Map map, int tickRate)
+    {
+        this.map    = map;
+        this.period = TimeUnit.SECONDS.toNanos(1) / tickRate;
+    }
+
+    /**
+     * Posts a task to run in the next tick
+     *
+     * Can be called from any thread.
+     *
+     * @param task Task to run
+     *
+     * @return True if the task was posted, false if there are too many
+     *         tasks waiting
+     */
+    public boolean post(Runnable task)
+    {
+        if(this._input.offer(task)) {
+            return true;
+        }
+
+        this._rejected.incrementAndGet();
+
+        return false;
+    }
+
+    /**
+     * Runs a tick
+     *
+     * Exceptions are printed instead of thrown, so the next ticks still run.
+     */
+    public void run()
+    {
+        try {
+            this.tick();
+        } catch(Throwable e) {
+            this._error("tick", e);
+        }
+    }
+
+    /**
+     * Runs a tick
+     */
+    public void tick()
+    {
+        long start = System.nanoTime();
+        long tick  = this._ticks.getAndIncrement();
+
+        if(tick == 0) {
+            this._start = start;
+        }
+
+        long lag = start - (this._start + tick * this.period);
+        if(lag > this._maxLag) {
+            this._maxLag = lag;
+        }
+
+        double seconds = this.period / (double)TimeUnit.SECONDS.toNanos(1);
+        long   time    = start;
+
+        this._input();
+        time = this._phase(0, time);
+
+        this._movement(seconds);
+        time = this._phase(1, time);
+
+        this._ai();
+        time = this._phase(2, time);
+
+        this._combat();
+        time = this._phase(3, time);
+
+        this._broadcast();
+        time = this._phase(4, time);
+
+        long duration = time - start;
+        this.durations.record(TimeUnit.NANOSECONDS.toMicros(duration));
+        this._load += (duration - this._load) / 16;
+
+        if(duration > this.period) {
+            this._overruns.incrementAndGet();
+
+            long now = System.currentTimeMillis();
+            if(now - this._lastWarning >= Simulation.WARNING_INTERVAL) {
+                this._lastWarning = now;
+
+                Console.warning(
+                        "Map {} is falling behind: tick took {}ms, the period is {}ms",
+                        this.map.id, TimeUnit.NANOSECONDS.toMillis(duration), TimeUnit.NANOSECONDS.toMillis(this.period)
+                );
+            }
+        }
+    }
+
+    /**
+     * Adds a player to the map
+     *
+     * Can be called from any thread, the player is added in the next tick
+     * if it's still logged in.
+     *
+     * @param account Player account
+     *
+     * @return True if the player will be added, false if there are too
+     *         many tasks waiting
+     */
+    public boolean enter(Account account)
+    {
+        return this.post(() -> {
+            if(GameManager.accounts.isPinned(account.id)) {
+                this.map.addPlayer(account);
+            }
+        });
+    }
+
+    /**
+     * Removes a player from the map
+     *
+     * Can be called from any thread, the player is removed in the next tick.
+     * If it jumped to another map meanwhile, it's removed from that one.
+     *
+     * @param account Player account
+     *
+     * @return True if the player will be removed, false if there are too
+     *         many tasks waiting
+     */
+    public boolean leave(Account account)
+    {
+        return this.post(() -> {
+            if(this.map.removePlayer(account.id) != null || account.hangar == null || account.hangar.ship == null) {
+                return;
+            }
+
+            Simulation current = SimulationManager.get(account.hangar.ship.mapID);
+            if(current != null && current != this) {
+                current.leave(account);
+            }
+        });
+    }
+
+    /**
+     * Moves a player to the target map of a portal
+     *
+     * Must be called from a tick of this map. The player is removed from
+     * this map right away and added to the target map in its next tick,
+     * by its own worker.
+     *
+     * @param account Player account
+     * @param portal  Portal of this map
+     *
+     * @return True if the player jumped, false if it isn't in this map
+     *         or the target map isn't simulated
+     */
+    public boolean jump(Account account, Portal portal)
+    {
+        Simulation target = SimulationManager.get(portal.targetMapsID);
+
+        if(target == null || this.map.removePlayer(account.id) == null) {
+            return false;
+        }
+
+        Ship ship = account.hangar.ship;
+        ship.setMapID(target.map.id);
+        ship.setMap(target.map);
+        ship.move(new Point(portal.targetPosition));
+
+        if(!target.enter(account)) {
+            Console.warning("Map {} is full of tasks, player {} couldn't jump", target.map.id, account.id);
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the recent average duration of the ticks
+     *
+     * @return Average duration, in nanoseconds
+     */
+    public long getLoad()
+    {
+        return this._load;
+    }
+
+    /**
+     * Returns the amount of ticks
+     *
+     * @return Amount of ticks
+     */
+    public long getTicks()
+    {
+        return this._ticks.get();
+    }
+
+    /**
+     * Returns the amount of ticks that took longer than the period
+     *
+     * @return Amount of overruns
+     */
+    public long getOverruns()
+    {
+        return this._overruns.get();
+    }
+
+    /**
+     * Prints the status of the simulation
+     */
+    public void showStatus()
+    {
+        long ticks = this._ticks.get();
+
+        Console.println(
+            "Map "+ this.map.id +" ("+ this.map.name +"): "+ ticks +" ticks, "+
+            this._overruns.get() +" overruns, "+ this._rejected.get() +" rejected tasks, "+
+            TimeUnit.NANOSECONDS.toMillis(this._maxLag) +"ms max lag."
+        );
+        Console.println(
+            "    Tick duration: "+ this.durations.getAverage() +"us average, "+
+            this.durations.percentile(99) +"us p99, "+ this.durations.getMax() +"us max."
+        );
+
+        StringBuilder phases = new StringBuilder("    Phases (average):");
+        for(int i = 0; i < Simulation.PHASES.length; i++) {
+            long average = (ticks == 0) ? 0 : TimeUnit.NANOSECONDS.toMicros(this._phases.get(i)) / ticks;
+
+            phases.append(" ").append(Simulation.PHASES[i]).append(" ").append(average).append("us");
+        }
+        Console.println(phases.toString());
+    }
+
+    /**
+     * Records the time of a phase
+     *
+     * @param phase Phase index
+     * @param start Start of the phase, in nanoseconds
+     *
+     * @return End of the phase, in nanoseconds
+     */
+    private long _phase(int phase, long start)
+    {
+        long end = System.nanoTime();
+
+        this._phases.addAndGet(phase, end - start);
+
+        return end;
+    }
+
+    /**
+     * Prints an exception of a tick
+     *
+     * The exception class is printed with its message, as many exceptions
+     * (like `NullPointerException`) don't have one. The stack trace is
+     * printed too if the debug level is enabled.
+     *
+     * @param what Failed part of the tick
+     * @param e    Thrown exception
+     */
+    private void _error(String what, Throwable e)
+    {
+        Console.error("Map {} {} failed: {}", this.map.id, what, e.toString());
+
+        if(Console.isEnabled(Console.DEBUG)) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs the posted tasks
+     *
+     * Only the tasks posted before the tick started are run, tasks
+     * posted meanwhile wait for the next tick.
+     */
+    private void _input()
+    {
+        long amount = this._input.getWritten() - this._input.getRead();
+
+        for(long i = 0; i < amount; i++) {
+            Runnable task = this._input.poll();
+            if(task == null) {
+                return;
+            }
+
+            try {
+                task.run();
+            } catch(Exception e) {
+                this._error("task", e);
+            }
+        }
+    }
+
+    /**
+     * Moves the NPCs
+     *
+     * @param seconds Time since the last tick
+     */
+    private void _movement(double seconds)
+    {
+        for(NPC npc : this.map.npcs.values()) {
+            if(npc.move(seconds)) {
+                this.map.npcGrid.update(npc);
+            }
+        }
+    }
+
+    /**
+     * Makes the idle NPCs wander around the map
+     */
+    private void _ai()
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for(NPC npc : this.map.npcs.values()) {
+            if(npc.destination != null || random.nextDouble() >= Simulation.WANDER_CHANCE) {
+                continue;
+            }
+
+            int x = npc.position.x + random.nextInt(-Simulation.WANDER_DISTANCE, Simulation.WANDER_DISTANCE + 1);
+            int y = npc.position.y + random.nextInt(-Simulation.WANDER_DISTANCE, Simulation.WANDER_DISTANCE + 1);
+
+            npc.destination = new Point(
+                    Math.max(0, Math.min(this.map.limits.x, x)),
+                    Math.max(0, Math.min(this.map.limits.y, y))
+            );
+        }
+    }
+
+    /**
+     * Runs the attacks
+     *
+     * There's no combat yet, the phase is kept so its time is measured
+     * once there is.
+     */
+    private void _combat()
+    {
+        //empty
+    }
+
+    /**
+     * Sends the changes to the players of the map
+     *
+     * There are no packets for NPC movement yet, the phase is kept so
+     * its time is measured once there are.
+     */
+    private void _broadcast()
+    {
+        //empty
+    }
+}
@@ -0,0 +1,75 @@
+package com.manulaiko.blackeye.simulator.map;
+
+import java.awt.Point;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spawn class
+ *
+ * An amount of NPCs or collectables of the same kind placed in random
+ * positions of an area of the map.
+ *
+ * Spawns are parsed once from the `npcs` and `collectables` columns of
+ * the map and shared by its clones, they can't be changed.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.blackeye.simulator.map
+ */
+public class Spawn
+{
+    /**
+     * ID of the spawned NPC or collectable
+     */
+    public final int id;
+
+    /**
+     * Amount to spawn
+     */
+    public final int amount;
+
+    /**
+     * Top left corner of the area
+     */
+    public final int minX;
+    public final int minY;
+
+    /**
+     * Bottom right corner of the area
+     */
+    public final int maxX;
+    public final int maxY;
+
+    /**
+     * Constructor
+     *
+     * @param id     ID of the spawned NPC or collectable
+     * @param amount Amount to spawn
+     * @param minX   Left side of the area
+     * @param minY   Top side of the area
+     * @param maxX   Right side of the area
+     * @param maxY   Bottom side of the area
+     */
+    public Spawn(int id, int amount, int minX, int minY, int maxX, int maxY)
+    {
+        this.id     = id;
+        this.amount = amount;
+        this.minX   = minX;
+        this.minY   = minY;
+        this.maxX   = maxX;
+        this.maxY   = maxY;
+    }
+
+    /**
+     * Returns a random position of the area
+     *
+     * @return Random position, sides included
+     */
+    public Point randomPosition()
+    {
+        return new Point(
+                ThreadLocalRandom.current().nextInt(this.minX, this.maxX + 1),
+                ThreadLocalRandom.current().nextInt(this.minY, this.maxY + 1)
+        );
+    }
+}
@@ -39,8 +39,6 @@ public class Builder
     public Builder(ResultSet rs)
     {
         try {
-            JSONObject reward = new JSONObject(rs.getString("reward"));
-            
             this._npc = new NPC(
                     rs.getInt("id"),
                     rs.getInt("gfx"),
@@ -52,8 +50,8 @@ public class Builder
                     rs.getInt("speed"),
                     rs.getInt("aiType")
             );
-            
-            this._build(reward);
+
+            this._npc.setReward(Builder._reward(new JSONObject(rs.getString("reward"))));
         } catch(Exception e) {
             Console.println("Couldn't build npc!");
             Console.println(e.getMessage());
@@ -82,7 +80,7 @@ public class Builder
                     npc.aiType
             );
 
-            this._build(npc.rewardJSON);
+            this._npc.setReward(npc.reward);
         } catch(Exception e) {
             Console.println("Couldn't clone npc!");
             Console.println(e.getMessage());
@@ -90,11 +88,30 @@ public class Builder
     }
 
     /**
-     * Sets the reward
+     * Parses the reward column
+     *
+     * @param reward Reward JSON
+     *
+     * @return The reward
+     *
+     * @throws Exception If the JSON is wrong
      */
-    private void _build(JSONObject reward)
+    private static NPC.Reward _reward(JSONObject reward) throws Exception
     {
-        this._npc.setReward(reward);
+        JSONArray json      = reward.getJSONArray("resources");
+        int[]     resources = new int[json.length()];
+
+        for(int i = 0; i < resources.length; i++) {
+            resources[i] = json.getInt(i);
+        }
+
+        return new NPC.Reward(
+                reward.getInt("experience"),
+                reward.getInt("honor"),
+                reward.getInt("credits"),
+                reward.getInt("uridium"),
+                resources
+        );
     }
     
     /**
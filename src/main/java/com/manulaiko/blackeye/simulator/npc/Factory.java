@@ -1,13 +1,14 @@
 package com.manulaiko.blackeye.simulator.npc;
 
 import java.sql.ResultSet;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.HashMap;
-import java.util.Map.Entry;
 
 import com.manulaiko.blackeye.launcher.Main;
+
+import com.manulaiko.blackeye.simulator.Repository;
 import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.database.Snapshot;
 import com.manulaiko.tabitha.exceptions.NotFound;
 
 /**
@@ -19,12 +20,17 @@ import com.manulaiko.tabitha.exceptions.NotFound;
  *
  * @package com.manulaiko.blackeye.simulator.npc
  */
-public class Factory
+public class Factory extends Repository<NPC>
 {
     /**
-     * Instanced maps
+     * Constructor
      */
-    private HashMap<Integer, NPC> _npcs = new HashMap<>();
+    public Factory()
+    {
+        super(n -> n.id);
+
+        this._addIndex("name", n -> n.name);
+    }
 
     ///////////////////////
     // Start get methods //
@@ -40,15 +46,7 @@ public class Factory
      */
     public NPC getByID(int id) throws NotFound
     {
-        if(!this._npcs.containsKey(id)) {
-            NPC n = this.loadByID(id);
-
-            this._npcs.put(id, n);
-
-            return n;
-        }
-
-        return this._npcs.get(id);
+        return this._getOrLoad(id, () -> this.loadByID(id));
     }
 
     /**
@@ -62,17 +60,7 @@ public class Factory
      */
     public NPC getByName(String name) throws NotFound
     {
-        for(Entry<Integer, NPC> n : this._npcs.entrySet()) {
-            if(n.getValue().name.equals(name)) {
-                return n.getValue();
-            }
-        }
-
-        NPC n = this.loadByName(name);
-
-        this._npcs.put(n.id, n);
-
-        return n;
+        return this._getOrLoad("name", name, () -> this.loadByName(name));
     }
 
     /**
@@ -82,17 +70,7 @@ public class Factory
      */
     public HashMap<Integer, NPC> getAllNPCs()
     {
-        return this._npcs;
-    }
-
-    /**
-     * Returns the amount of loaded maps
-     *
-     * @return Amount of loaded maps
-     */
-    public int getAmount()
-    {
-        return this._npcs.size();
+        return this.getAll();
     }
     /////////////////////
     // End get methods //
@@ -113,21 +91,20 @@ public class Factory
     public NPC loadByID(int id) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `npcs` WHERE `id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getNPC();
-            } else {
-                throw new NotFound("npc", "id: "+ id);
+            NPC npc = Main.mysqlManager.queryOne(
+                "SELECT * FROM `npcs` WHERE `id`=?",
+                result -> new Builder(result).getNPC(),
+                id
+            );
+
+            if(npc != null) {
+                return npc;
             }
         } catch(SQLException e) {
-            throw new NotFound("npc", "id: "+ id);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("npc", "id: "+ id);
     }
 
     /**
@@ -142,43 +119,61 @@ public class Factory
     public NPC loadByName(String name) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `npcs` WHERE `name`=?");
-            ps.setString(1, name);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getNPC();
-            } else {
-                throw new NotFound("npc", name);
+            NPC npc = Main.mysqlManager.queryOne(
+                "SELECT * FROM `npcs` WHERE `name`=?",
+                result -> new Builder(result).getNPC(),
+                name
+            );
+
+            if(npc != null) {
+                return npc;
             }
         } catch(SQLException e) {
-            throw new NotFound("npc", name);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("npc", name);
     }
 
     /**
-     * Loads all maps from database
+     * Loads all NPCs from database
      */
     public void loadAll()
     {
         try {
-            ResultSet result = Main.mysqlManager.query("SELECT * FROM `npcs`");
-
-            while(result.next()) {
-                Builder builder = new Builder(result);
-                
-                NPC m = builder.getNPC();
+            Main.mysqlManager.forEach("SELECT * FROM `npcs`", this::_load);
+        } catch(Exception e) {
+            Console.println("Couldn't load npc!");
+            Console.println(e.getMessage());
+        }
+    }
 
-                this._npcs.put(m.id, m);
-            }
+    /**
+     * Loads all NPCs from a snapshot
+     *
+     * @param snapshot Snapshot with the `npcs` table
+     */
+    public void loadAll(Snapshot snapshot)
+    {
+        try {
+            snapshot.forEach("npcs", this::_load);
         } catch(Exception e) {
             Console.println("Couldn't load npc!");
             Console.println(e.getMessage());
         }
     }
+
+    /**
+     * Builds and adds a loaded NPC
+     *
+     * @param result Row of the `npcs` table
+     */
+    private void _load(ResultSet result)
+    {
+        NPC m = new Builder(result).getNPC();
+
+        this._replace(m);
+    }
     //////////////////////
     // End load methods //
     //////////////////////
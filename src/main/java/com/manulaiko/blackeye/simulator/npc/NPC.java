@@ -1,12 +1,6 @@
 package com.manulaiko.blackeye.simulator.npc;
 
 import java.awt.Point;
-import java.util.HashMap;
-
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import com.manulaiko.tabitha.Console;
 
 /**
  * NPC class
@@ -32,6 +26,11 @@ public class NPC
      */
     public Point position = new Point(0, 0);
 
+    /**
+     * Position the NPC is flying to, null if it isn't moving
+     */
+    public Point destination = null;
+
     /**
      * Graphic
      */
@@ -82,11 +81,6 @@ public class NPC
      */
     public Reward reward;
 
-    /**
-     * Reward json
-     */
-    public JSONObject rewardJSON;
-
     /**
      * Constructor
      *
@@ -119,53 +113,85 @@ public class NPC
 
     /**
      * Sets the reward object
+     *
+     * Rewards are immutable, clones share the reward of their template.
+     *
+     * @param reward Reward
+     */
+    public void setReward(Reward reward)
+    {
+        this.reward = reward;
+    }
+
+    /**
+     * Moves the NPC towards its destination
+     *
+     * The NPC flies `speed` units each second, once it reaches its
+     * destination it stops.
+     *
+     * @param seconds Elapsed time
+     *
+     * @return True if the NPC moved, false if it isn't moving
      */
-    public void setReward(JSONObject reward)
+    public boolean move(double seconds)
     {
-        try {
-            this.reward = new Reward(
-                    reward.getInt("experience"),
-                    reward.getInt("honor"),
-                    reward.getInt("credits"),
-                    reward.getInt("uridium"),
-                    reward.getJSONArray("resources")
-            );
-            this.rewardJSON = reward;
-        } catch(Exception e) {
-            Console.println("Couldn't set reward!");
-            Console.println(e.getMessage());
+        if(this.destination == null) {
+            return false;
         }
+
+        double x        = this.destination.x - this.position.x;
+        double y        = this.destination.y - this.position.y;
+        double distance = Math.sqrt(x * x + y * y);
+        double step     = this.speed * seconds;
+
+        if(step >= distance) {
+            this.position.setLocation(this.destination);
+            this.destination = null;
+
+            return true;
+        }
+
+        this.position.setLocation(
+                this.position.x + Math.round(x * step / distance),
+                this.position.y + Math.round(y * step / distance)
+        );
+
+        return true;
     }
 
     /**
      * Reward class
+     *
+     * @author Manulaiko <manulaiko@gmail.com>
+     *
+     * @package com.manulaiko.blackeye.simulator.npc.NPC
      */
-    public class Reward
+    public static class Reward
     {
         /**
          * Experience points
          */
-        public int experience;
+        public final int experience;
 
         /**
          * Honor points
          */
-        public int honor;
+        public final int honor;
 
         /**
          * Credits
          */
-        public int credits;
+        public final int credits;
 
         /**
          * Uridium
          */
-        public int uridium;
+        public final int uridium;
 
         /**
-         * Resources
+         * Cargobox resources, the amount of each resource
          */
-        public HashMap<Integer, Integer> resources = new HashMap<>();
+        public final int[] resources;
 
         /**
          * Constructor
@@ -176,21 +202,13 @@ public class NPC
          * @param uridium    Uridium
          * @param resources  Cargobox resources
          */
-        public Reward(int experience, int honor, int credits, int uridium, JSONArray resources)
+        public Reward(int experience, int honor, int credits, int uridium, int[] resources)
         {
-            try {
-                this.experience = experience;
-                this.honor = honor;
-                this.credits = credits;
-                this.uridium = uridium;
-
-                for(int i = 0; i < resources.length(); i++) {
-                    this.resources.put(i, resources.getInt(i));
-                }
-            } catch(Exception e) {
-                Console.println("Couldn't instance reward!");
-                Console.println(e.getMessage());
-            }
+            this.experience = experience;
+            this.honor      = honor;
+            this.credits    = credits;
+            this.uridium    = uridium;
+            this.resources  = resources;
         }
     }
 }
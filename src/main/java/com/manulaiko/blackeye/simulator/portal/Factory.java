@@ -1,13 +1,14 @@
 package com.manulaiko.blackeye.simulator.portal;
 
 import java.sql.ResultSet;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.HashMap;
-import java.util.Map.Entry;
 
 import com.manulaiko.blackeye.launcher.Main;
+
+import com.manulaiko.blackeye.simulator.Repository;
 import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.database.Snapshot;
 import com.manulaiko.tabitha.exceptions.NotFound;
 
 /**
@@ -19,12 +20,17 @@ import com.manulaiko.tabitha.exceptions.NotFound;
  *
  * @package com.manulaiko.blackeye.simulator.portal
  */
-public class Factory
+public class Factory extends Repository<Portal>
 {
     /**
-     * Instanced portals
+     * Constructor
      */
-    private HashMap<Integer, Portal> _portals = new HashMap<>();
+    public Factory()
+    {
+        super(p -> p.id);
+
+        this._addGroup("mapID", p -> p.mapsID);
+    }
 
     ///////////////////////
     // Start get methods //
@@ -40,39 +46,28 @@ public class Factory
      */
     public Portal getByID(int id) throws NotFound
     {
-        if(!this._portals.containsKey(id)) {
-            Portal m = this.loadByID(id);
-
-            this._portals.put(id, m);
-
-            return m;
-        }
-
-        return this._portals.get(id);
+        return this._getOrLoad(id, () -> this.loadByID(id));
     }
 
     /**
-     * Returns given portal
+     * Returns the portals of a map
      *
      * This method will only load portals if there's no
-     * portal with given maps_id
+     * portal with given maps_id and the portals table
+     * wasn't loaded yet.
      *
      * @param id Map id
      *
-     * @return The portal
+     * @return The portals, empty if the map has none
+     *
+     * @throws NotFound If portals aren't loaded and map has none in database
      */
     public HashMap<Integer, Portal> getByMapID(int id) throws NotFound
     {
-        HashMap<Integer, Portal> portals = new HashMap<>();
-
-        for(Entry<Integer, Portal> portal : this._portals.entrySet()) {
-            if(portal.getValue().mapsID == id) {
-                portals.put(portal.getKey(), portal.getValue());
-            }
-        }
+        HashMap<Integer, Portal> portals = this.findAll("mapID", id);
 
-        if(portals.size() == 0) {
-            portals = this.loadByMapID(id);
+        if(portals.size() == 0 && !this.isLoadedAll()) {
+            portals = this._getOrLoadAll("mapID", id, () -> this.loadByMapID(id));
         }
 
         return portals;
@@ -85,17 +80,7 @@ public class Factory
      */
     public HashMap<Integer, Portal> getAllPortals()
     {
-        return this._portals;
-    }
-
-    /**
-     * Returns the amount of loaded portals
-     *
-     * @return Amount of loaded portals
-     */
-    public int getAmount()
-    {
-        return this._portals.size();
+        return this.getAll();
     }
     /////////////////////
     // End get methods //
@@ -116,21 +101,20 @@ public class Factory
     public Portal loadByID(int id) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `maps_portals` WHERE `id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getPortal();
-            } else {
-                throw new NotFound("portal", "id: "+ id);
+            Portal portal = Main.mysqlManager.queryOne(
+                "SELECT * FROM `maps_portals` WHERE `id`=?",
+                result -> new Builder(result).getPortal(),
+                id
+            );
+
+            if(portal != null) {
+                return portal;
             }
         } catch(SQLException e) {
-            throw new NotFound("portal", "id: "+ id);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("portal", "id: "+ id);
     }
 
     /**
@@ -144,23 +128,18 @@ public class Factory
      */
     public HashMap<Integer, Portal> loadByMapID(int id) throws NotFound
     {
-        try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `maps_portals` WHERE `maps_id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-            HashMap<Integer, Portal> portals = new HashMap<>();
-
-            while(result.next()) {
-                Builder builder = new Builder(result);
-
-                portals.put(result.getInt("id"), builder.getPortal());
-            }
+        HashMap<Integer, Portal> portals = new HashMap<>();
 
-            if(portals.size() > 0) {
-                return portals;
-            }
+        try {
+            Main.mysqlManager.forEach("SELECT * FROM `maps_portals` WHERE `maps_id`=?", result -> {
+                portals.put(result.getInt("id"), new Builder(result).getPortal());
+            }, id);
         } catch(SQLException e) {
+            Console.println(e.getMessage());
+        }
+
+        if(portals.size() > 0) {
+            return portals;
         }
 
         throw new NotFound("portals", "maps_id: "+ id);
@@ -172,20 +151,43 @@ public class Factory
     public void loadAll()
     {
         try {
-            ResultSet result = Main.mysqlManager.query("SELECT * FROM `maps_portals`");
+            Main.mysqlManager.forEach("SELECT * FROM `maps_portals`", this::_load);
 
-            while(result.next()) {
-                Builder builder = new Builder(result);
+            this._setLoadedAll(true);
+        } catch(Exception e) {
+            Console.println("Couldn't load portal!");
+            Console.println(e.getMessage());
+        }
+    }
 
-                Portal m = builder.getPortal();
+    /**
+     * Loads all portals from a snapshot
+     *
+     * @param snapshot Snapshot with the `maps_portals` table
+     */
+    public void loadAll(Snapshot snapshot)
+    {
+        try {
+            snapshot.forEach("maps_portals", this::_load);
 
-                this._portals.put(m.id, m);
-            }
+            this._setLoadedAll(true);
         } catch(Exception e) {
             Console.println("Couldn't load portal!");
             Console.println(e.getMessage());
         }
     }
+
+    /**
+     * Builds and adds a loaded portal
+     *
+     * @param result Row of the `maps_portals` table
+     */
+    private void _load(ResultSet result)
+    {
+        Portal m = new Builder(result).getPortal();
+
+        this._replace(m);
+    }
     //////////////////////
     // End load methods //
     //////////////////////
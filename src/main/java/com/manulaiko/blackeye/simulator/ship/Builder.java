@@ -32,8 +32,6 @@ public class Builder
     public Builder(ResultSet rs)
     {
         try {
-            JSONObject reward = new JSONObject(rs.getString("reward"));
-            
             this._ship = new Ship(
                     rs.getInt("id"),
                     rs.getInt("items_id"),
@@ -44,8 +42,8 @@ public class Builder
                     rs.getInt("generators"),
                     rs.getInt("extras")
             );
-            
-            this._build(reward);
+
+            this._build(new JSONObject(rs.getString("reward")));
         } catch(Exception e) {
             Console.println("Couldn't build ship!");
             Console.println(e.getMessage());
@@ -74,7 +72,7 @@ public class Builder
                     ship.extras
             );
 
-            this._build(ship.rewardJSON);
+            this._ship.setReward(ship.reward);
         } catch(Exception e) {
             Console.println("Couldn't clone ship!");
             Console.println(e.getMessage());
@@ -84,13 +82,18 @@ public class Builder
     /**
      * Builds a ship
      *
-     * @param reward Reward
+     * Parses the reward column.
      *
-     * @return The ship
+     * @param reward Reward JSON
+     *
+     * @throws Exception If the JSON is wrong
      */
-    private void _build(JSONObject reward)
+    private void _build(JSONObject reward) throws Exception
     {
-        this._ship.setReward(reward);
+        this._ship.setReward(new Ship.Reward(
+                reward.getInt("experience"),
+                reward.getInt("honor")
+        ));
     }
 
     /**
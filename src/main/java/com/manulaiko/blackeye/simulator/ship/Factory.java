@@ -1,13 +1,14 @@
 package com.manulaiko.blackeye.simulator.ship;
 
 import java.sql.ResultSet;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.HashMap;
-import java.util.Map.Entry;
 
 import com.manulaiko.blackeye.launcher.Main;
+
+import com.manulaiko.blackeye.simulator.Repository;
 import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.database.Snapshot;
 import com.manulaiko.tabitha.exceptions.NotFound;
 
 /**
@@ -19,12 +20,17 @@ import com.manulaiko.tabitha.exceptions.NotFound;
  *
  * @package com.manulaiko.blackeye.simulator.ship
  */
-public class Factory
+public class Factory extends Repository<Ship>
 {
     /**
-     * Instanced ships
+     * Constructor
      */
-    private HashMap<Integer, Ship> _ships = new HashMap<>();
+    public Factory()
+    {
+        super(s -> s.id);
+
+        this._addIndex("itemsID", s -> s.itemsID);
+    }
 
     ///////////////////////
     // Start get methods //
@@ -40,15 +46,7 @@ public class Factory
      */
     public Ship getByID(int id) throws NotFound
     {
-        if(!this._ships.containsKey(id)) {
-            Ship s = this.loadByID(id);
-
-            this._ships.put(id, s);
-
-            return s;
-        }
-
-        return this._ships.get(id);
+        return this._getOrLoad(id, () -> this.loadByID(id));
     }
 
     /**
@@ -62,17 +60,7 @@ public class Factory
      */
     public Ship getByItemID(int id) throws NotFound
     {
-        for(Entry<Integer, Ship> s : this._ships.entrySet()) {
-            if(s.getValue().itemsID == id) {
-                return s.getValue();
-            }
-        }
-
-        Ship s = this.loadByItemID(id);
-
-        this._ships.put(s.id, s);
-
-        return s;
+        return this._getOrLoad("itemsID", id, () -> this.loadByItemID(id));
     }
 
     /**
@@ -82,17 +70,7 @@ public class Factory
      */
     public HashMap<Integer, Ship> getAllShips()
     {
-        return this._ships;
-    }
-
-    /**
-     * Returns the amount of loaded ships
-     *
-     * @return Amount of loaded ships
-     */
-    public int getAmount()
-    {
-        return this._ships.size();
+        return this.getAll();
     }
     /////////////////////
     // End get methods //
@@ -113,21 +91,20 @@ public class Factory
     public Ship loadByID(int id) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `ships` WHERE `id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getShip();
-            } else {
-                throw new NotFound("ship", "id: "+ id);
+            Ship ship = Main.mysqlManager.queryOne(
+                "SELECT * FROM `ships` WHERE `id`=?",
+                result -> new Builder(result).getShip(),
+                id
+            );
+
+            if(ship != null) {
+                return ship;
             }
         } catch(SQLException e) {
-            throw new NotFound("ship", "id: "+ id);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("ship", "id: "+ id);
     }
 
     /**
@@ -142,21 +119,20 @@ public class Factory
     public Ship loadByItemID(int id) throws NotFound
     {
         try {
-            PreparedStatement ps = Main.mysqlManager.prepare("SELECT * FROM `ships` WHERE `items_id`=?");
-            ps.setInt(1, id);
-
-            ResultSet result = ps.executeQuery();
-
-            if(result.next()) {
-                Builder builder = new Builder(result);
-
-                return builder.getShip();
-            } else {
-                throw new NotFound("ship", "items_id: "+ id);
+            Ship ship = Main.mysqlManager.queryOne(
+                "SELECT * FROM `ships` WHERE `items_id`=?",
+                result -> new Builder(result).getShip(),
+                id
+            );
+
+            if(ship != null) {
+                return ship;
             }
         } catch(SQLException e) {
-            throw new NotFound("ship", "items_id: "+ id);
+            Console.println(e.getMessage());
         }
+
+        throw new NotFound("ship", "items_id: "+ id);
     }
 
     /**
@@ -165,20 +141,39 @@ public class Factory
     public void loadAll()
     {
         try {
-            ResultSet result = Main.mysqlManager.query("SELECT * FROM `ships`");
-
-            while(result.next()) {
-                Builder builder = new Builder(result);
-                
-                Ship s = builder.getShip();
+            Main.mysqlManager.forEach("SELECT * FROM `ships`", this::_load);
+        } catch(Exception e) {
+            Console.println("Couldn't load ship!");
+            Console.println(e.getMessage());
+        }
+    }
 
-                this._ships.put(s.id, s);
-            }
+    /**
+     * Loads all ships from a snapshot
+     *
+     * @param snapshot Snapshot with the `ships` table
+     */
+    public void loadAll(Snapshot snapshot)
+    {
+        try {
+            snapshot.forEach("ships", this::_load);
         } catch(Exception e) {
             Console.println("Couldn't load ship!");
             Console.println(e.getMessage());
         }
     }
+
+    /**
+     * Builds and adds a loaded ship
+     *
+     * @param result Row of the `ships` table
+     */
+    private void _load(ResultSet result)
+    {
+        Ship s = new Builder(result).getShip();
+
+        this._replace(s);
+    }
     //////////////////////
     // End load methods //
     //////////////////////
@@ -1,9 +1,5 @@
 package com.manulaiko.blackeye.simulator.ship;
 
-import org.json.JSONObject;
-
-import com.manulaiko.tabitha.Console;
-
 /**
  * Ship class
  *
@@ -58,11 +54,6 @@ public class Ship
      */
     public Reward reward;
 
-    /**
-     * Reward JSON
-     */
-    public JSONObject rewardJSON;
-
     /**
      * Constructor
      *
@@ -90,20 +81,13 @@ public class Ship
     /**
      * Sets the reward
      *
-     * @param reward Reward JSON
+     * Rewards are immutable, clones share the reward of their template.
+     *
+     * @param reward Reward
      */
-    public void setReward(JSONObject reward)
+    public void setReward(Reward reward)
     {
-        try {
-            this.reward = new Reward(
-                    reward.getInt("experience"),
-                    reward.getInt("honor")
-            );
-            this.rewardJSON = reward;
-        } catch(Exception e) {
-            Console.println("Couldn't set reward!");
-            Console.println(e.getMessage());
-        }
+        this.reward = reward;
     }
 
     /**
@@ -113,17 +97,17 @@ public class Ship
      *
      * @package com.manulaiko.blackeye.simulator.ship.Ship
      */
-    public class Reward
+    public static class Reward
     {
         /**
          * Experience points
          */
-        public int experience;
+        public final int experience;
 
         /**
          * Honor points
          */
-        public int honor;
+        public final int honor;
 
         /**
          * Constructor
@@ -3,7 +3,10 @@ package com.manulaiko.tabitha;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+import com.manulaiko.tabitha.utils.RingBuffer;
 import com.manulaiko.tabitha.utils.Tools;
 
 /**
@@ -11,6 +14,28 @@ import com.manulaiko.tabitha.utils.Tools;
  * 
  * This class is used to interact with the console.
  * It has methods for printing strings and reading input.
+ *
+ * Printing is asynchronous: messages are added to a lock-free
+ * {@see com.manulaiko.tabitha.utils.RingBuffer} and written to `System.out`
+ * by a background thread, so callers never wait for the console.
+ * {@see com.manulaiko.tabitha.Console#flush} waits until all the messages
+ * are written, it's called before reading input and when the JVM exits.
+ * If the buffer is full for too long, messages are dropped and counted.
+ *
+ * Messages have a level, the ones below the level set with
+ * {@see com.manulaiko.tabitha.Console#setLevel} are discarded without
+ * being built. `print` and `println` use the info level. The leveled
+ * methods format their message on the writer thread, replacing each
+ * `{}` with the next argument:
+ *
+ *     Console.debug("Loaded {} maps in {}ms", maps.size(), time);
+ *
+ * Arguments that change after the call (like reused buffers) must
+ * be converted to strings first, guarded with `isEnabled`:
+ *
+ *     if(Console.isEnabled(Console.TRACE)) {
+ *         Console.trace("Packet received: {}", packet.toString());
+ *     }
  * 
  * @author Manulaiko
  *
@@ -33,8 +58,182 @@ public class Console
     public static final String ANSI_BOLD       = "\u001B[1m";
     public static final String ANSI_BOLD_RESET = "\u001B[21m";
     public static final String ANSI_BLINK      = "\u001B[5m";
+
+    public static final int TRACE   = 0;
+    public static final int DEBUG   = 1;
+    public static final int INFO    = 2;
+    public static final int WARNING = 3;
+    public static final int ERROR   = 4;
     /* End constant definition */
+
+    /**
+     * Level names, indexed by level
+     */
+    private static final String[] LEVELS = {"trace", "debug", "info", "warning", "error"};
+
+    /**
+     * Capacity of the message buffer
+     */
+    private static final int CAPACITY = 8192;
+
+    /**
+     * Current level
+     */
+    private static volatile int _level = Console.INFO;
+
+    /**
+     * Messages waiting to be written
+     */
+    private static RingBuffer<Message> _buffer = new RingBuffer<>(Console.CAPACITY);
+
+    /**
+     * Amount of dropped messages
+     */
+    private static AtomicLong _dropped = new AtomicLong();
+
+    /**
+     * Writer thread
+     */
+    private static Thread _writer = Console._startWriter();
     
+    /**
+     * Sets the level
+     *
+     * Messages below this level are discarded.
+     *
+     * @param level New level
+     */
+    public static void setLevel(int level)
+    {
+        Console._level = level;
+    }
+
+    /**
+     * Returns the level
+     *
+     * @return Current level
+     */
+    public static int getLevel()
+    {
+        return Console._level;
+    }
+
+    /**
+     * Checks whether messages of given level are printed or not
+     *
+     * @param level Level to check
+     *
+     * @return True if messages of this level are printed, false if not
+     */
+    public static boolean isEnabled(int level)
+    {
+        return level >= Console._level;
+    }
+
+    /**
+     * Returns the level with given name
+     *
+     * @param name Level name (trace, debug, info, warning, error)
+     *
+     * @return Level, info if name isn't a level
+     */
+    public static int parseLevel(String name)
+    {
+        for(int i = 0; i < Console.LEVELS.length; i++) {
+            if(Console.LEVELS[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+
+        return Console.INFO;
+    }
+
+    /**
+     * Returns the amount of messages dropped because the buffer was full
+     *
+     * @return Amount of dropped messages
+     */
+    public static long getDropped()
+    {
+        return Console._dropped.get();
+    }
+
+    /**
+     * Prints a trace message
+     *
+     * @param format Message, each `{}` is replaced with the next argument
+     * @param args   Arguments
+     */
+    public static void trace(String format, Object... args)
+    {
+        Console.log(Console.TRACE, format, args);
+    }
+
+    /**
+     * Prints a debug message
+     *
+     * @param format Message, each `{}` is replaced with the next argument
+     * @param args   Arguments
+     */
+    public static void debug(String format, Object... args)
+    {
+        Console.log(Console.DEBUG, format, args);
+    }
+
+    /**
+     * Prints an info message
+     *
+     * @param format Message, each `{}` is replaced with the next argument
+     * @param args   Arguments
+     */
+    public static void info(String format, Object... args)
+    {
+        Console.log(Console.INFO, format, args);
+    }
+
+    /**
+     * Prints a warning message
+     *
+     * @param format Message, each `{}` is replaced with the next argument
+     * @param args   Arguments
+     */
+    public static void warning(String format, Object... args)
+    {
+        Console.log(Console.WARNING, format, args);
+    }
+
+    /**
+     * Prints an error message
+     *
+     * @param format Message, each `{}` is replaced with the next argument
+     * @param args   Arguments
+     */
+    public static void error(String format, Object... args)
+    {
+        Console.log(Console.ERROR, format, args);
+    }
+
+    /**
+     * Prints a message
+     *
+     * The message is formatted by the writer thread.
+     *
+     * @param level  Message level
+     * @param format Message, each `{}` is replaced with the next argument
+     * @param args   Arguments
+     */
+    public static void log(int level, String format, Object... args)
+    {
+        if(!Console.isEnabled(level)) {
+            return;
+        }
+
+        Message message = new Message(level, format, true, false);
+        message.args    = args;
+
+        Console._offer(message);
+    }
+
     /**
      * Short method for {@see com.manulaiko.tabitha.Console.print}
      * 
@@ -42,12 +241,7 @@ public class Console
      */
     public static void print(String... strings)
     {
-        String str = "";
-        for(String s : strings) {
-            str += s;
-        }
-        
-        print(false, str);
+        print(false, strings);
     }
     
     /**
@@ -57,12 +251,7 @@ public class Console
      */
     public static void println(String... strings)
     {
-        String str = "";
-        for(String s : strings) {
-            str += s;
-        }
-        
-        println(false, str);
+        println(false, strings);
     }
     
     /**
@@ -81,13 +270,9 @@ public class Console
      */
     public static void print(boolean showInfo, String... strings)
     {
-        String str = "";
-        
-        for(String s : strings) {
-            str += s;
+        if(Console.isEnabled(Console.INFO)) {
+            _print(Console._concat(strings), false, showInfo);
         }
-        
-        _print(str, showInfo);
     }
     
     /**
@@ -106,24 +291,35 @@ public class Console
      */
     public static void println(boolean showInfo, String... strings)
     {
-        String str = "";
-        
-        for(String s : strings) {
-            str += s;
+        if(Console.isEnabled(Console.INFO)) {
+            _print(Console._concat(strings), true, showInfo);
+        }
+    }
+
+    /**
+     * Waits until all the messages are written
+     */
+    public static void flush()
+    {
+        long written = Console._buffer.getWritten();
+        long timeout = System.nanoTime() + 1000000000L;
+
+        while(Console._buffer.getRead() < written && Console._writer.isAlive() && System.nanoTime() < timeout) {
+            LockSupport.unpark(Console._writer);
+            Thread.yield();
         }
-        
-        _print(str+"\n", showInfo);
     }
     
     /**
-     * Actually prints the string to the console
+     * Queues the string to be printed
      * 
      * @param string   String to print
+     * @param newLine  Whether to end the line or not
      * @param showInfo Whether to show or not calling method info
      */
-    private static void _print(String string, boolean showInfo)
+    private static void _print(String string, boolean newLine, boolean showInfo)
     {
-        String caller = "";
+        Message message = new Message(Console.INFO, string, newLine, showInfo);
 
         if(showInfo) {
             //Get caller method
@@ -133,22 +329,118 @@ public class Console
                 String cls = aSt.getClassName();
 
                 if(!cls.equals("com.manulaiko.tabitha.Console") && !cls.equals("java.lang.Thread")) {
-                    caller = aSt.getClassName() + "::" + aSt.getMethodName() + " (" + aSt.getLineNumber() + ")";
+                    message.caller = aSt.getClassName() + "::" + aSt.getMethodName() + " (" + aSt.getLineNumber() + ")";
 
                     break;
                 }
             }
+        }
+
+        Console._offer(message);
+    }
+
+    /**
+     * Adds a message to the buffer
+     *
+     * If the buffer is full, the writer gets some time to make room
+     * before the message is dropped.
+     *
+     * @param message Message to add
+     */
+    private static void _offer(Message message)
+    {
+        for(int i = 0; i < 1000; i++) {
+            if(Console._buffer.offer(message)) {
+                return;
+            }
+
+            LockSupport.unpark(Console._writer);
+            Thread.yield();
+        }
 
-            //Build date
-            DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
-            Date date = new Date();
+        Console._dropped.incrementAndGet();
+    }
 
-            System.out.print(ANSI_BLACK+"["+dateFormat.format(date)+"]"+ANSI_YELLOW+" (" + caller + ")"+ANSI_BLACK+": "+ANSI_RESET);
+    /**
+     * Concatenates strings
+     *
+     * @param strings Strings to concatenate
+     *
+     * @return Concatenated strings
+     */
+    private static String _concat(String... strings)
+    {
+        if(strings.length == 1) {
+            return strings[0];
         }
 
-        System.out.print(string);
+        StringBuilder str = new StringBuilder();
+        for(String s : strings) {
+            str.append(s);
+        }
+
+        return str.toString();
     }
-    
+
+    /**
+     * Starts the writer thread
+     *
+     * @return Writer thread
+     */
+    private static Thread _startWriter()
+    {
+        Thread writer = new Thread(Console::_write, "Console-Writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(Console::flush));
+
+        return writer;
+    }
+
+    /**
+     * Writes queued messages to `System.out` until the JVM exits
+     */
+    private static void _write()
+    {
+        DateFormat    dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
+        StringBuilder str        = new StringBuilder();
+        long          dropped    = 0;
+
+        while(true) {
+            Message message;
+            boolean wrote = false;
+
+            while((message = Console._buffer.poll()) != null) {
+                str.setLength(0);
+
+                // Arguments are formatted here, a throwing `toString` mustn't stop the writer
+                try {
+                    message.appendTo(str, dateFormat);
+                } catch(Throwable e) {
+                    str.setLength(0);
+                    str.append("Couldn't format console message: ").append(e.toString()).append('\n');
+                }
+
+                System.out.print(str);
+                wrote = true;
+            }
+
+            if(Console._dropped.get() != dropped) {
+                dropped = Console._dropped.get();
+
+                System.out.println(dropped +" console messages dropped so far.");
+                wrote = true;
+            }
+
+            if(wrote) {
+                System.out.flush();
+            }
+
+            LockSupport.parkNanos(1000000);
+        }
+    }
+
     /**
      * Returns a string from input
      * 
@@ -156,6 +448,8 @@ public class Console
      */
     public static String readLine()
     {
+        Console.flush();
+
         return Tools.in.nextLine();
     }
     
@@ -166,6 +460,107 @@ public class Console
      */
     public static int readInt()
     {
+        Console.flush();
+
         return Tools.in.nextInt();
     }
+
+    /**
+     * Queued message
+     *
+     * @author Manulaiko <manulaiko@gmail.com>
+     *
+     * @package com.manulaiko.tabitha
+     */
+    private static class Message
+    {
+        /**
+         * Level
+         */
+        public int level;
+
+        /**
+         * Creation time
+         */
+        public long time;
+
+        /**
+         * Text, or format if `args` is set
+         */
+        public String text;
+
+        /**
+         * Format arguments
+         */
+        public Object[] args;
+
+        /**
+         * Calling method, set if info must be shown
+         */
+        public String caller;
+
+        /**
+         * Whether to end the line or not
+         */
+        public boolean newLine;
+
+        /**
+         * Whether to show date and calling method or not
+         */
+        public boolean showInfo;
+
+        /**
+         * Constructor
+         *
+         * @param level    Level
+         * @param text     Text
+         * @param newLine  Whether to end the line or not
+         * @param showInfo Whether to show date and calling method or not
+         */
+        public Message(int level, String text, boolean newLine, boolean showInfo)
+        {
+            this.level    = level;
+            this.time     = System.currentTimeMillis();
+            this.text     = text;
+            this.newLine  = newLine;
+            this.showInfo = showInfo;
+        }
+
+        /**
+         * Appends the formatted message
+         *
+         * @param str        Builder to append to
+         * @param dateFormat Date format for the info
+         */
+        public void appendTo(StringBuilder str, DateFormat dateFormat)
+        {
+            if(this.showInfo) {
+                str.append(ANSI_BLACK).append("[").append(dateFormat.format(new Date(this.time))).append("]")
+                   .append(ANSI_YELLOW).append(" (").append(this.caller).append(")")
+                   .append(ANSI_BLACK).append(": ").append(ANSI_RESET);
+            }
+            if(this.level != Console.INFO) {
+                str.append(Console.LEVELS[this.level].toUpperCase()).append(": ");
+            }
+
+            if(this.args == null) {
+                str.append(this.text);
+            } else {
+                int arg = 0;
+                int i   = 0;
+                int j;
+                while((j = this.text.indexOf("{}", i)) >= 0 && arg < this.args.length) {
+                    str.append(this.text, i, j).append(this.args[arg++]);
+
+                    i = j + 2;
+                }
+
+                str.append(this.text, i, this.text.length());
+            }
+
+            if(this.newLine) {
+                str.append('\n');
+            }
+        }
+    }
 }
@@ -157,6 +157,27 @@ public class IniConfiguration implements IConfiguration
         return Long.parseLong(this.getString(name));
     }
 
+    /**
+     * Returns given configuration parameter as an int
+     *
+     * If the parameter is not set, `defaultValue` is returned instead.
+     *
+     * @param name         Configuration parameter
+     * @param defaultValue Value to return if parameter isn't set
+     *
+     * @return Given configuration parameter value
+     */
+    public int getInt(String name, int defaultValue)
+    {
+        String value = this.getString(name);
+
+        if(value.isEmpty()) {
+            return defaultValue;
+        }
+
+        return Integer.parseInt(value);
+    }
+
     /**
      * Returns given configuration parameter as a string
      *
@@ -201,6 +222,27 @@ public class IniConfiguration implements IConfiguration
         return ret;
     }
 
+    /**
+     * Returns given configuration parameter as a string
+     *
+     * If the parameter is not set, `defaultValue` is returned instead.
+     *
+     * @param name         Configuration parameter
+     * @param defaultValue Value to return if parameter isn't set
+     *
+     * @return Given configuration parameter value
+     */
+    public String getString(String name, String defaultValue)
+    {
+        String value = this.getString(name);
+
+        if(value.isEmpty()) {
+            return defaultValue;
+        }
+
+        return value;
+    }
+
     /**
      * Returns given configuration parameter as a boolean
      *
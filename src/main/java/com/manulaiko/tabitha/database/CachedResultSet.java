@@ -0,0 +1,359 @@
+package com.manulaiko.tabitha.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import java.math.BigDecimal;
+
+import java.nio.charset.StandardCharsets;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Cached result set class
+ *
+ * Copies all the rows of a result set to memory, so the statement and
+ * the connection that produced it can be released right away.
+ *
+ * The copy is a {@see java.sql.ResultSet} proxy that can be moved
+ * forward with `next` and read with any `getX` method, by column
+ * label or index. Values are converted to the type of the getter the
+ * same way the driver does for the common types.
+ *
+ * Example:
+ *
+ *     ResultSet result = CachedResultSet.copy(statement.executeQuery());
+ *     statement.close();
+ *
+ *     while(result.next()) {
+ *         result.getInt("id");
+ *     }
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.tabitha.database
+ */
+public class CachedResultSet implements InvocationHandler
+{
+    /**
+     * Column indexes by lower case label
+     */
+    private HashMap<String, Integer> _columns = new HashMap<>();
+
+    /**
+     * Rows
+     */
+    private ArrayList<Object[]> _rows = new ArrayList<>();
+
+    /**
+     * Metadata of the original result set
+     */
+    private ResultSetMetaData _metaData;
+
+    /**
+     * Current row index
+     */
+    private int _row = -1;
+
+    /**
+     * Whether the last read value was null or not
+     */
+    private boolean _wasNull = false;
+
+    /**
+     * Whether the result set is closed or not
+     */
+    private boolean _isClosed = false;
+
+    /**
+     * Copies a result set and closes it
+     *
+     * @param result Result set to copy
+     *
+     * @return Cached copy
+     *
+     * @throws SQLException If the result set couldn't be read
+     */
+    public static ResultSet copy(ResultSet result) throws SQLException
+    {
+        return CachedResultSet.copy(result, 0);
+    }
+
+    /**
+     * Copies the first rows of a result set and closes it
+     *
+     * @param result Result set to copy
+     * @param limit  Max amount of rows to copy, 0 for all
+     *
+     * @return Cached copy
+     *
+     * @throws SQLException If the result set couldn't be read
+     */
+    public static ResultSet copy(ResultSet result, int limit) throws SQLException
+    {
+        CachedResultSet cached = new CachedResultSet();
+
+        try {
+            cached._metaData = result.getMetaData();
+
+            int columns = cached._metaData.getColumnCount();
+            for(int i = columns; i > 0; i--) {
+                cached._columns.put(cached._metaData.getColumnLabel(i).toLowerCase(), i);
+            }
+
+            while(result.next()) {
+                Object[] row = new Object[columns];
+
+                for(int i = 0; i < columns; i++) {
+                    row[i] = result.getObject(i + 1);
+                }
+
+                cached._rows.add(row);
+
+                if(cached._rows.size() == limit) {
+                    break;
+                }
+            }
+        } finally {
+            result.close();
+        }
+
+        return CachedResultSet._proxy(cached);
+    }
+
+    /**
+     * Creates a result set from rows read somewhere else
+     *
+     * It has no metadata.
+     *
+     * @param columns Column labels
+     * @param rows    Rows, a value for each column
+     *
+     * @return Cached result set
+     */
+    public static ResultSet create(String[] columns, ArrayList<Object[]> rows)
+    {
+        CachedResultSet cached = new CachedResultSet();
+        cached._rows           = rows;
+
+        for(int i = columns.length; i > 0; i--) {
+            cached._columns.put(columns[i - 1].toLowerCase(), i);
+        }
+
+        return CachedResultSet._proxy(cached);
+    }
+
+    /**
+     * Creates the proxy of a cached result set
+     *
+     * @param cached Cached result set
+     *
+     * @return Result set proxy
+     */
+    private static ResultSet _proxy(CachedResultSet cached)
+    {
+        return (ResultSet)Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[]{ResultSet.class},
+            cached
+        );
+    }
+
+    /**
+     * Handles a method call on the proxy
+     *
+     * @param proxy  Proxy instance
+     * @param method Called method
+     * @param args   Arguments
+     *
+     * @return Method result
+     *
+     * @throws Throwable If the method isn't supported or the column doesn't exist
+     */
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        String name = method.getName();
+
+        switch(name) {
+            case "next":
+                if(this._row < this._rows.size()) {
+                    this._row++;
+                }
+
+                return this._row < this._rows.size();
+
+            case "close":
+                this._isClosed = true;
+                this._rows.clear();
+
+                return null;
+
+            case "isClosed":
+                return this._isClosed;
+
+            case "wasNull":
+                return this._wasNull;
+
+            case "getMetaData":
+                return this._metaData;
+
+            case "getRow":
+                return (this._row < this._rows.size()) ? this._row + 1 : 0;
+
+            case "beforeFirst":
+                this._row = -1;
+
+                return null;
+
+            case "findColumn":
+                return this._column(args[0]);
+
+            case "getStatement":
+                return null;
+
+            case "toString":
+                return "CachedResultSet("+ this._rows.size() +" rows)";
+
+            case "hashCode":
+                return System.identityHashCode(proxy);
+
+            case "equals":
+                return proxy == args[0];
+        }
+
+        if(name.startsWith("get") && args != null && args.length == 1) {
+            if(this._row < 0 || this._row >= this._rows.size()) {
+                throw new SQLException("No current row");
+            }
+
+            Object value = this._rows.get(this._row)[this._column(args[0]) - 1];
+            this._wasNull = (value == null);
+
+            return CachedResultSet._convert(value, method.getReturnType());
+        }
+
+        throw new SQLFeatureNotSupportedException("CachedResultSet doesn't support "+ name);
+    }
+
+    /**
+     * Returns the index of a column
+     *
+     * @param column Column label or index
+     *
+     * @return Column index
+     *
+     * @throws SQLException If the column doesn't exist
+     */
+    private int _column(Object column) throws SQLException
+    {
+        if(column instanceof Integer) {
+            return (Integer)column;
+        }
+
+        Integer index = this._columns.get(column.toString().toLowerCase());
+        if(index == null) {
+            throw new SQLException("Column '"+ column +"' not found");
+        }
+
+        return index;
+    }
+
+    /**
+     * Converts a value to the return type of a getter
+     *
+     * @param value Value
+     * @param type  Return type
+     *
+     * @return Converted value
+     */
+    private static Object _convert(Object value, Class<?> type)
+    {
+        if(value == null) {
+            if(type == boolean.class) {
+                return false;
+            }
+            if(type.isPrimitive()) {
+                return CachedResultSet._number(0, type);
+            }
+
+            return null;
+        }
+
+        if(type == String.class) {
+            if(value instanceof byte[]) {
+                return new String((byte[])value, StandardCharsets.UTF_8);
+            }
+            if(value instanceof Boolean) {
+                return ((Boolean)value) ? "1" : "0";
+            }
+
+            return value.toString();
+        }
+
+        if(type == boolean.class) {
+            if(value instanceof Boolean) {
+                return value;
+            }
+            if(value instanceof Number) {
+                return ((Number)value).doubleValue() != 0;
+            }
+
+            String str = value.toString().trim();
+
+            return str.equals("1") || str.equalsIgnoreCase("true");
+        }
+
+        if(type.isPrimitive()) {
+            if(value instanceof Number) {
+                return CachedResultSet._number((Number)value, type);
+            }
+            if(value instanceof Boolean) {
+                return CachedResultSet._number(((Boolean)value) ? 1 : 0, type);
+            }
+
+            return CachedResultSet._number(new BigDecimal(value.toString().trim()), type);
+        }
+
+        if(type == BigDecimal.class && !(value instanceof BigDecimal)) {
+            return new BigDecimal(value.toString());
+        }
+
+        return value;
+    }
+
+    /**
+     * Converts a number to a primitive type
+     *
+     * @param number Number
+     * @param type   Primitive type
+     *
+     * @return Converted number
+     */
+    private static Object _number(Number number, Class<?> type)
+    {
+        if(type == int.class) {
+            return number.intValue();
+        }
+        if(type == long.class) {
+            return number.longValue();
+        }
+        if(type == double.class) {
+            return number.doubleValue();
+        }
+        if(type == float.class) {
+            return number.floatValue();
+        }
+        if(type == short.class) {
+            return number.shortValue();
+        }
+
+        return number.byteValue();
+    }
+}
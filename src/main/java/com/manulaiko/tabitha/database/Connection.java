@@ -6,6 +6,12 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.manulaiko.tabitha.Console;
 import com.manulaiko.tabitha.exceptions.database.ConnectionFailed;
 
 /**
@@ -20,11 +26,20 @@ import com.manulaiko.tabitha.exceptions.database.ConnectionFailed;
  *  * A string being the username
  *  * A string being the password
  *  * A string being the name of the database
+ *
+ * Optionally it also accepts the min and max size of a
+ * {@see com.manulaiko.tabitha.database.Pool}. In pooled mode each call
+ * to `query` or `update`, and each execution of a statement returned by
+ * `prepare`, borrows a connection and returns it once the query is done,
+ * so queries from different threads run in parallel. Result sets are
+ * copied to memory before the connection is returned, see
+ * {@see com.manulaiko.tabitha.database.CachedResultSet}.
  * 
  * Example:
  * 
  *     try {
  *         Connection connection = new Connection("localhost", (short)3306, "root", "", "tabitha");
+ *         Connection pooled     = new Connection("localhost", (short)3306, "root", "", "tabitha", 2, 8);
  *     } catch(ConnectionFailed e) {
  *         Console.println("Couldn't connect to database server!");
  *     }
@@ -61,9 +76,39 @@ public class Connection
     private String _database;
     
     /**
-     * Connection object
+     * Connection object, null in pooled mode
      */
     private java.sql.Connection _connection;
+
+    /**
+     * Connection pool, null if not pooled
+     */
+    private Pool _pool;
+
+    /**
+     * Cached statements of each database connection
+     */
+    private ConcurrentHashMap<java.sql.Connection, StatementCache> _statements = new ConcurrentHashMap<>();
+
+    /**
+     * Max amount of cached statements per database connection
+     */
+    private int _statementCacheSize = StatementCache.DEFAULT_SIZE;
+
+    /**
+     * Amount of rows fetched at once by `stream`
+     */
+    private int _fetchSize = 1000;
+
+    /**
+     * Amount of statements taken from the cache
+     */
+    private AtomicLong _statementHits = new AtomicLong();
+
+    /**
+     * Amount of statements prepared because they weren't cached
+     */
+    private AtomicLong _statementMisses = new AtomicLong();
     
     /**
      * Constructor
@@ -85,7 +130,7 @@ public class Connection
         this._database = database;
         
         try {
-            this._connection = DriverManager.getConnection("jdbc:mysql://"+ this._host +":"+ this._port +"/"+ this._database, this._username, this._password);
+            this._connection = DriverManager.getConnection(this._url(), this._username, this._password);
         } catch(Exception e) {
             System.out.println(e.getMessage());
             throw new ConnectionFailed();
@@ -93,38 +138,523 @@ public class Connection
     }
     
     /**
-     * Returns a statement object
-     * 
+     * Constructor
+     *
+     * Starts a connection pool.
+     *
+     * @param host     Server host
+     * @param port     Server port
+     * @param username Authentication user name
+     * @param password Authentication password
+     * @param database Database name
+     * @param minSize  Min amount of connections of the pool
+     * @param maxSize  Max amount of connections of the pool
+     *
+     * @throws com.manulaiko.tabitha.exceptions.database.ConnectionFailed If couldn't connect to the server
+     */
+    public Connection(String host, short port, String username, String password, String database, int minSize, int maxSize) throws ConnectionFailed
+    {
+        this._host     = host;
+        this._port     = port;
+        this._username = username;
+        this._password = password;
+        this._database = database;
+
+        try {
+            this._pool = new Pool(this._url(), this._username, this._password, minSize, maxSize);
+            this._pool.setDiscardListener(connection -> {
+                StatementCache cache = this._statements.remove(connection);
+
+                if(cache != null) {
+                    cache.close();
+                }
+            });
+        } catch(Exception e) {
+            System.out.println(e.getMessage());
+            throw new ConnectionFailed();
+        }
+    }
+
+    /**
+     * Checks whether the connection is pooled or not
+     *
+     * @return True if queries use a connection pool, false if not
+     */
+    public boolean isPooled()
+    {
+        return this._pool != null;
+    }
+
+    /**
+     * Sets the amount of rows fetched at once by `stream`
+     *
+     * @param fetchSize Amount of rows fetched at once
+     */
+    public void setFetchSize(int fetchSize)
+    {
+        this._fetchSize = fetchSize;
+    }
+
+    /**
+     * Sets the max amount of cached statements per database connection
+     *
+     * Only affects connections that haven't cached any statement yet.
+     *
+     * @param size Max amount of cached statements
+     */
+    public void setStatementCacheSize(int size)
+    {
+        this._statementCacheSize = size;
+    }
+
+    /**
+     * Sets leak detection threshold of the pool
+     *
+     * @param threshold Time in milliseconds a connection can be borrowed before it's reported, 0 disables leak detection
+     */
+    public void setLeakDetectionThreshold(long threshold)
+    {
+        if(this._pool != null) {
+            this._pool.setLeakDetectionThreshold(threshold);
+        }
+    }
+
+    /**
+     * Borrows a database connection
+     *
+     * It must be returned with {@see com.manulaiko.tabitha.database.Connection#release}.
+     * If the connection isn't pooled, the single connection is returned.
+     *
+     * @return Database connection
+     *
+     * @throws SQLException If no connection is available
+     */
+    public java.sql.Connection borrow() throws SQLException
+    {
+        if(this._pool == null) {
+            return this._connection;
+        }
+
+        return this._pool.borrow();
+    }
+
+    /**
+     * Returns a borrowed database connection
+     *
+     * @param connection Borrowed connection
+     */
+    public void release(java.sql.Connection connection)
+    {
+        if(this._pool != null) {
+            this._pool.release(connection);
+        }
+    }
+
+    /**
+     * Prints the status of the connection
+     */
+    public void showStatus()
+    {
+        int cached = 0;
+        for(StatementCache cache : this._statements.values()) {
+            cached += cache.getAmount();
+        }
+
+        if(this._pool == null) {
+            Console.println("Using a single connection to "+ this._host +":"+ this._port +"/"+ this._database +".");
+        } else {
+            Console.println("Using a connection pool to "+ this._host +":"+ this._port +"/"+ this._database +".");
+            this._pool.showStatus();
+        }
+
+        Console.println(
+            cached +" cached statements, "+ this._statementHits.get() +" cache hits, "+
+            this._statementMisses.get() +" prepared."
+        );
+    }
+
+    /**
+     * Executes a query and returns its result
+     *
+     * The result is copied to memory and the statement is closed
+     * before returning, see {@see com.manulaiko.tabitha.database.CachedResultSet}.
+     * For parametrized or frequent queries use `queryOne`, `queryAll` or `forEach`.
+     *
+     * @param query SQL query
+     *
+     * @return Query result
+     *
      * @throws SQLException 
      */
     public ResultSet query(String query) throws SQLException
     {
-        Statement st = this._connection.createStatement();
-        
-        return st.executeQuery(query);
+        java.sql.Connection connection = this.borrow();
+
+        try(Statement st = connection.createStatement()) {
+            return CachedResultSet.copy(st.executeQuery(query));
+        } finally {
+            this.release(connection);
+        }
     }
     
     /**
      * Executes an UPDATE query
+     *
+     * @param query SQL query
+     *
+     * @return Amount of affected rows
      * 
      * @throws SQLException 
      */
     public int update(String query) throws SQLException
     {
-        Statement st = this._connection.createStatement();
-        
-        return st.executeUpdate(query);
+        java.sql.Connection connection = this.borrow();
+
+        try(Statement st = connection.createStatement()) {
+            return st.executeUpdate(query);
+        } finally {
+            this.release(connection);
+        }
     }
     
     /**
      * Returns a prepared statement object
+     *
+     * The statement isn't cached, the caller must close it.
      * 
+     * @param query SQL query
+     *
+     * @return Prepared statement
+     *
      * @throws SQLException 
      */
     public PreparedStatement prepare(String query) throws SQLException
     {
+        if(this._pool != null) {
+            return PooledStatement.create(this, query);
+        }
+
         PreparedStatement st = this._connection.prepareStatement(query);
         
         return st;
     }
+
+    /**
+     * Executes a query and maps its first row
+     *
+     * Example:
+     *
+     *     Account account = connection.queryOne(
+     *         "SELECT * FROM `accounts` WHERE `id`=?",
+     *         result -> new Builder(result).getAccount(),
+     *         id
+     *     );
+     *
+     * @param query      SQL query
+     * @param mapper     Builds the object from the row
+     * @param parameters Query parameters
+     *
+     * @return Mapped row, null if the query returned no rows
+     *
+     * @throws SQLException If the query failed
+     */
+    public <T> T queryOne(String query, IRowMapper<T> mapper, Object... parameters) throws SQLException
+    {
+        ArrayList<T> rows = new ArrayList<>(1);
+
+        this._select(query, parameters, 1, result -> rows.add(mapper.map(result)));
+
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Executes a query and maps all its rows
+     *
+     * @param query      SQL query
+     * @param mapper     Builds an object from each row
+     * @param parameters Query parameters
+     *
+     * @return Mapped rows
+     *
+     * @throws SQLException If the query failed
+     */
+    public <T> ArrayList<T> queryAll(String query, IRowMapper<T> mapper, Object... parameters) throws SQLException
+    {
+        ArrayList<T> rows = new ArrayList<>();
+
+        this._select(query, parameters, 0, result -> rows.add(mapper.map(result)));
+
+        return rows;
+    }
+
+    /**
+     * Executes a query and handles each row
+     *
+     * @param query      SQL query
+     * @param handler    Handles each row
+     * @param parameters Query parameters
+     *
+     * @throws SQLException If the query failed
+     */
+    public void forEach(String query, IRowHandler handler, Object... parameters) throws SQLException
+    {
+        this._select(query, parameters, 0, handler);
+    }
+
+    /**
+     * Executes a query and handles each row as it's fetched
+     *
+     * Unlike `forEach`, rows are fetched from the server in blocks of
+     * the fetch size (see {@see com.manulaiko.tabitha.database.Connection#setFetchSize})
+     * instead of reading the whole result to memory first, so it's meant
+     * for loading big tables. The statement isn't cached.
+     *
+     * The connection is borrowed while the rows are handled, so a handler
+     * that runs queries borrows a second one. It's meant to be used by a
+     * single thread while loading, not from the connection threads.
+     *
+     * @param query      SQL query
+     * @param handler    Handles each row
+     * @param parameters Query parameters
+     *
+     * @throws SQLException If the query failed
+     */
+    public void stream(String query, IRowHandler handler, Object... parameters) throws SQLException
+    {
+        java.sql.Connection connection = this.borrow();
+
+        try(PreparedStatement statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(this._fetchSize);
+            Connection._bind(statement, parameters);
+
+            try(ResultSet result = statement.executeQuery()) {
+                while(result.next()) {
+                    handler.handle(result);
+                }
+            }
+        } finally {
+            this.release(connection);
+        }
+    }
+
+    /**
+     * Executes an INSERT, UPDATE or DELETE query
+     *
+     * @param query      SQL query
+     * @param parameters Query parameters
+     *
+     * @return Amount of affected rows
+     *
+     * @throws SQLException If the query failed
+     */
+    public int execute(String query, Object... parameters) throws SQLException
+    {
+        java.sql.Connection connection = this.borrow();
+
+        try {
+            StatementCache    cache     = this._cache(connection);
+            PreparedStatement statement = this._take(cache, connection, query);
+            boolean           reusable  = false;
+
+            try {
+                Connection._bind(statement, parameters);
+
+                int rows = statement.executeUpdate();
+                reusable = true;
+
+                return rows;
+            } finally {
+                this._putBack(cache, query, statement, reusable);
+            }
+        } finally {
+            this.release(connection);
+        }
+    }
+
+    /**
+     * Executes an INSERT, UPDATE or DELETE query once for each parameter list
+     *
+     * All executions are sent to the server in a single batch.
+     *
+     * @param query      SQL query
+     * @param parameters Parameters of each execution
+     *
+     * @return Amount of affected rows of each execution
+     *
+     * @throws SQLException If the batch failed
+     */
+    public int[] executeBatch(String query, List<Object[]> parameters) throws SQLException
+    {
+        if(parameters.isEmpty()) {
+            return new int[0];
+        }
+
+        java.sql.Connection connection = this.borrow();
+
+        try {
+            StatementCache    cache     = this._cache(connection);
+            PreparedStatement statement = this._take(cache, connection, query);
+            boolean           reusable  = false;
+
+            try {
+                for(Object[] p : parameters) {
+                    Connection._bind(statement, p);
+                    statement.addBatch();
+                }
+
+                int[] rows = statement.executeBatch();
+                reusable = true;
+
+                return rows;
+            } finally {
+                if(!reusable) {
+                    try {
+                        statement.clearBatch();
+                    } catch(SQLException e) {
+                        //Empty
+                    }
+                }
+
+                this._putBack(cache, query, statement, reusable);
+            }
+        } finally {
+            this.release(connection);
+        }
+    }
+
+    /**
+     * Executes a query with a cached statement and handles its rows
+     *
+     * Rows are copied to memory and the connection is released before
+     * they're handled, so handlers can run queries too (like a builder
+     * loading the hangars of an account) without holding two connections
+     * of the pool at once.
+     *
+     * @param query      SQL query
+     * @param parameters Query parameters
+     * @param limit      Max amount of rows to handle, 0 for all
+     * @param handler    Handles each row
+     *
+     * @throws SQLException If the query failed
+     */
+    private void _select(String query, Object[] parameters, int limit, IRowHandler handler) throws SQLException
+    {
+        java.sql.Connection connection = this.borrow();
+        ResultSet           rows;
+
+        try {
+            StatementCache    cache     = this._cache(connection);
+            PreparedStatement statement = this._take(cache, connection, query);
+            boolean           reusable  = false;
+
+            try {
+                Connection._bind(statement, parameters);
+
+                rows     = CachedResultSet.copy(statement.executeQuery(), limit);
+                reusable = true;
+            } finally {
+                this._putBack(cache, query, statement, reusable);
+            }
+        } finally {
+            this.release(connection);
+        }
+
+        while(rows.next()) {
+            handler.handle(rows);
+        }
+    }
+
+    /**
+     * Returns the JDBC url
+     *
+     * Cursor fetch makes the driver honor the fetch size of `stream`,
+     * and keeps prepared statements on the server so cached statements
+     * aren't parsed again. Rewritten batches send `executeBatch` in as
+     * few round trips as possible.
+     *
+     * @return JDBC url
+     */
+    private String _url()
+    {
+        return "jdbc:mysql://"+ this._host +":"+ this._port +"/"+ this._database +"?useCursorFetch=true&rewriteBatchedStatements=true";
+    }
+
+    /**
+     * Returns the statement cache of a database connection
+     *
+     * @param connection Database connection
+     *
+     * @return Statement cache
+     */
+    private StatementCache _cache(java.sql.Connection connection)
+    {
+        return this._statements.computeIfAbsent(connection, c -> new StatementCache(this._statementCacheSize));
+    }
+
+    /**
+     * Takes a cached statement or prepares a new one
+     *
+     * @param cache      Statement cache
+     * @param connection Database connection
+     * @param query      SQL query
+     *
+     * @return Prepared statement
+     *
+     * @throws SQLException If the statement couldn't be prepared
+     */
+    private PreparedStatement _take(StatementCache cache, java.sql.Connection connection, String query) throws SQLException
+    {
+        PreparedStatement statement = cache.take(query);
+
+        if(statement != null) {
+            this._statementHits.incrementAndGet();
+
+            return statement;
+        }
+
+        this._statementMisses.incrementAndGet();
+
+        return connection.prepareStatement(query);
+    }
+
+    /**
+     * Puts a statement back in the cache
+     *
+     * Statements that failed are closed instead.
+     *
+     * @param cache     Statement cache
+     * @param query     SQL query
+     * @param statement Prepared statement
+     * @param reusable  Whether the statement can be reused or not
+     */
+    private void _putBack(StatementCache cache, String query, PreparedStatement statement, boolean reusable)
+    {
+        try {
+            if(reusable) {
+                statement.clearParameters();
+                cache.put(query, statement);
+
+                return;
+            }
+
+            statement.close();
+        } catch(SQLException e) {
+            //Empty
+        }
+    }
+
+    /**
+     * Sets the parameters of a statement
+     *
+     * @param statement  Prepared statement
+     * @param parameters Parameters
+     *
+     * @throws SQLException If a parameter couldn't be set
+     */
+    private static void _bind(PreparedStatement statement, Object[] parameters) throws SQLException
+    {
+        for(int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+    }
 }
@@ -0,0 +1,25 @@
+package com.manulaiko.tabitha.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Row handler interface
+ *
+ * Handles the current row of a result set.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.tabitha.database
+ */
+public interface IRowHandler
+{
+    /**
+     * Handles the current row
+     *
+     * @param result Result set, positioned on the row to handle
+     *
+     * @throws SQLException If a column couldn't be read
+     */
+    void handle(ResultSet result) throws SQLException;
+}
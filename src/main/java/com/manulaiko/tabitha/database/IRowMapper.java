@@ -0,0 +1,27 @@
+package com.manulaiko.tabitha.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Row mapper interface
+ *
+ * Builds an object from the current row of a result set.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.tabitha.database
+ */
+public interface IRowMapper<T>
+{
+    /**
+     * Maps the current row
+     *
+     * @param result Result set, positioned on the row to map
+     *
+     * @return Mapped object
+     *
+     * @throws SQLException If a column couldn't be read
+     */
+    T map(ResultSet result) throws SQLException;
+}
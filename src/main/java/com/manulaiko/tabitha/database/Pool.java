@@ -0,0 +1,490 @@
+package com.manulaiko.tabitha.database;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.manulaiko.tabitha.Console;
+
+/**
+ * Pool class
+ *
+ * Keeps a set of connections to the database server that are
+ * borrowed and released by the threads that execute queries.
+ *
+ * The pool opens connections on demand up to the max size and keeps
+ * at least the min size open. Connections idle for a while are
+ * validated before being borrowed, and the ones idle for too long
+ * above the min size are closed.
+ *
+ * Connections borrowed for longer than the leak detection threshold
+ * are reported once, with the stack trace of the code that borrowed them.
+ *
+ * Example:
+ *
+ *     Pool pool = new Pool("jdbc:mysql://localhost:3306/tabitha", "root", "", 2, 8);
+ *
+ *     java.sql.Connection connection = pool.borrow();
+ *     try {
+ *         // Use connection
+ *     } finally {
+ *         pool.release(connection);
+ *     }
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.tabitha.database
+ */
+public class Pool
+{
+    /**
+     * Time in milliseconds a connection can be idle before it's validated on borrow
+     */
+    public static final long VALIDATION_INTERVAL = 5000;
+
+    /**
+     * Time in milliseconds a connection above min size can be idle before it's closed
+     */
+    public static final long IDLE_TIMEOUT = 60000;
+
+    /**
+     * Time in milliseconds a thread waits for a connection when the pool is exhausted
+     */
+    public static final long BORROW_TIMEOUT = 30000;
+
+    /**
+     * JDBC url
+     */
+    private String _url;
+
+    /**
+     * Username
+     */
+    private String _username;
+
+    /**
+     * Password
+     */
+    private String _password;
+
+    /**
+     * Min amount of connections
+     */
+    private int _minSize;
+
+    /**
+     * Max amount of connections
+     */
+    private int _maxSize;
+
+    /**
+     * Time in milliseconds a connection can be borrowed before it's reported, 0 disables leak detection
+     */
+    private long _leakDetectionThreshold = 0;
+
+    /**
+     * Idle connections, the most recently used first
+     */
+    private LinkedBlockingDeque<Idle> _idle = new LinkedBlockingDeque<>();
+
+    /**
+     * Borrowed connections
+     */
+    private ConcurrentHashMap<java.sql.Connection, Lease> _leased = new ConcurrentHashMap<>();
+
+    /**
+     * Amount of open connections
+     */
+    private AtomicInteger _size = new AtomicInteger();
+
+    /**
+     * Amount of borrows
+     */
+    private AtomicLong _borrows = new AtomicLong();
+
+    /**
+     * Amount of borrows that had to wait for a connection
+     */
+    private AtomicLong _waits = new AtomicLong();
+
+    /**
+     * Amount of reported leaks
+     */
+    private AtomicLong _leaks = new AtomicLong();
+
+    /**
+     * Called with each connection before it's closed
+     */
+    private Consumer<java.sql.Connection> _discardListener;
+
+    /**
+     * Validates, shrinks and checks for leaks
+     */
+    private ScheduledExecutorService _maintenance;
+
+    /**
+     * Constructor
+     *
+     * @param url      JDBC url
+     * @param username Authentication user name
+     * @param password Authentication password
+     * @param minSize  Min amount of connections
+     * @param maxSize  Max amount of connections
+     *
+     * @throws SQLException If the min amount of connections couldn't be opened
+     */
+    public Pool(String url, String username, String password, int minSize, int maxSize) throws SQLException
+    {
+        this._url      = url;
+        this._username = username;
+        this._password = password;
+        this._maxSize  = Math.max(1, maxSize);
+        this._minSize  = Math.max(1, Math.min(minSize, this._maxSize));
+
+        for(int i = 0; i < this._minSize; i++) {
+            this._size.incrementAndGet();
+            this._idle.addLast(new Idle(this._open()));
+        }
+
+        this._maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Database-Pool");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        this._maintenance.scheduleWithFixedDelay(this::_maintain, 5, 5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Sets leak detection threshold
+     *
+     * @param threshold Time in milliseconds a connection can be borrowed before it's reported, 0 disables leak detection
+     */
+    public void setLeakDetectionThreshold(long threshold)
+    {
+        this._leakDetectionThreshold = threshold;
+    }
+
+    /**
+     * Sets discard listener
+     *
+     * It's called with each connection the pool closes, so resources
+     * bound to it (like cached statements) can be released.
+     *
+     * @param listener Discard listener
+     */
+    public void setDiscardListener(Consumer<java.sql.Connection> listener)
+    {
+        this._discardListener = listener;
+    }
+
+    /**
+     * Borrows a connection
+     *
+     * It must be released with {@see com.manulaiko.tabitha.database.Pool#release}.
+     *
+     * @return Connection
+     *
+     * @throws SQLException If no connection was available in time or it couldn't be opened
+     */
+    public java.sql.Connection borrow() throws SQLException
+    {
+        this._borrows.incrementAndGet();
+
+        java.sql.Connection connection = null;
+        while(connection == null) {
+            Idle idle = this._idle.pollFirst();
+
+            if(idle == null) {
+                idle = this._grow();
+            }
+            if(idle == null) {
+                this._waits.incrementAndGet();
+
+                try {
+                    idle = this._idle.pollFirst(Pool.BORROW_TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                if(idle == null) {
+                    throw new SQLException("Timeout waiting for a database connection ("+ this._maxSize +" in use)");
+                }
+            }
+
+            if(this._isValid(idle)) {
+                connection = idle.connection;
+            } else {
+                this._discard(idle.connection);
+            }
+        }
+
+        Lease lease = new Lease();
+        if(this._leakDetectionThreshold > 0) {
+            lease.stack = new Throwable("Borrowed here");
+        }
+        this._leased.put(connection, lease);
+
+        return connection;
+    }
+
+    /**
+     * Returns a borrowed connection to the pool
+     *
+     * @param connection Borrowed connection
+     */
+    public void release(java.sql.Connection connection)
+    {
+        Lease lease = this._leased.remove(connection);
+        if(lease == null) {
+            return;
+        }
+
+        if(lease.reported) {
+            Console.warning("Leaked database connection released after {}ms", System.currentTimeMillis() - lease.time);
+        }
+
+        try {
+            if(connection.isClosed()) {
+                this._discard(connection);
+
+                return;
+            }
+        } catch(SQLException e) {
+            this._discard(connection);
+
+            return;
+        }
+
+        this._idle.addFirst(new Idle(connection));
+    }
+
+    /**
+     * Closes all connections
+     */
+    public void close()
+    {
+        this._maintenance.shutdownNow();
+
+        Idle idle;
+        while((idle = this._idle.pollFirst()) != null) {
+            this._discard(idle.connection);
+        }
+        for(java.sql.Connection connection : this._leased.keySet()) {
+            this._discard(connection);
+        }
+        this._leased.clear();
+    }
+
+    /**
+     * Prints pool status
+     */
+    public void showStatus()
+    {
+        Console.println(
+            "Pool has "+ this._size.get() +" connections ("+ this._leased.size() +" borrowed, "+ this._idle.size() +" idle), "+
+            "min "+ this._minSize +", max "+ this._maxSize +"."
+        );
+        Console.println(this._borrows.get() +" borrows, "+ this._waits.get() +" had to wait, "+ this._leaks.get() +" leaks reported.");
+    }
+
+    /**
+     * Opens a new connection if the pool isn't full
+     *
+     * @return New idle connection, null if the pool is full
+     *
+     * @throws SQLException If the connection couldn't be opened
+     */
+    private Idle _grow() throws SQLException
+    {
+        int size;
+        do {
+            size = this._size.get();
+
+            if(size >= this._maxSize) {
+                return null;
+            }
+        } while(!this._size.compareAndSet(size, size + 1));
+
+        try {
+            return new Idle(this._open());
+        } catch(SQLException e) {
+            this._size.decrementAndGet();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a connection
+     *
+     * @return Connection
+     *
+     * @throws SQLException If the connection couldn't be opened
+     */
+    private java.sql.Connection _open() throws SQLException
+    {
+        return DriverManager.getConnection(this._url, this._username, this._password);
+    }
+
+    /**
+     * Checks whether an idle connection can be used or not
+     *
+     * Only connections idle for longer than the validation interval
+     * are tested against the server.
+     *
+     * @param idle Idle connection
+     *
+     * @return True if the connection can be used, false if not
+     */
+    private boolean _isValid(Idle idle)
+    {
+        try {
+            if(System.currentTimeMillis() - idle.time < Pool.VALIDATION_INTERVAL) {
+                return !idle.connection.isClosed();
+            }
+
+            return idle.connection.isValid(2);
+        } catch(SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes a connection and removes it from the pool
+     *
+     * @param connection Connection to close
+     */
+    private void _discard(java.sql.Connection connection)
+    {
+        this._size.decrementAndGet();
+
+        if(this._discardListener != null) {
+            this._discardListener.accept(connection);
+        }
+
+        try {
+            connection.close();
+        } catch(SQLException e) {
+            //Empty
+        }
+    }
+
+    /**
+     * Reports leaks, closes connections idle for too long and opens the min amount of connections
+     */
+    private void _maintain()
+    {
+        long now = System.currentTimeMillis();
+
+        if(this._leakDetectionThreshold > 0) {
+            for(Map.Entry<java.sql.Connection, Lease> entry : this._leased.entrySet()) {
+                Lease lease = entry.getValue();
+
+                if(!lease.reported && now - lease.time > this._leakDetectionThreshold) {
+                    lease.reported = true;
+                    this._leaks.incrementAndGet();
+
+                    StringBuilder stack = new StringBuilder();
+                    for(StackTraceElement element : lease.stack.getStackTrace()) {
+                        stack.append("\n    at ").append(element);
+                    }
+
+                    Console.warning("Database connection borrowed {}ms ago wasn't released{}", now - lease.time, stack.toString());
+                }
+            }
+        }
+
+        while(this._size.get() > this._minSize) {
+            Idle idle = this._idle.pollLast();
+            if(idle == null) {
+                break;
+            }
+
+            if(now - idle.time < Pool.IDLE_TIMEOUT) {
+                this._idle.addLast(idle);
+
+                break;
+            }
+
+            this._discard(idle.connection);
+        }
+
+        try {
+            while(this._size.get() < this._minSize) {
+                Idle idle = this._grow();
+                if(idle == null) {
+                    break;
+                }
+
+                this._idle.addLast(idle);
+            }
+        } catch(SQLException e) {
+            Console.warning("Couldn't open database connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Idle connection
+     *
+     * @author Manulaiko <manulaiko@gmail.com>
+     *
+     * @package com.manulaiko.tabitha.database
+     */
+    private static class Idle
+    {
+        /**
+         * Connection
+         */
+        public java.sql.Connection connection;
+
+        /**
+         * Time since the connection is idle
+         */
+        public long time = System.currentTimeMillis();
+
+        /**
+         * Constructor
+         *
+         * @param connection Connection
+         */
+        public Idle(java.sql.Connection connection)
+        {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * Borrowed connection information
+     *
+     * @author Manulaiko <manulaiko@gmail.com>
+     *
+     * @package com.manulaiko.tabitha.database
+     */
+    private static class Lease
+    {
+        /**
+         * Time when the connection was borrowed
+         */
+        public long time = System.currentTimeMillis();
+
+        /**
+         * Where the connection was borrowed, only set if leak detection is enabled
+         */
+        public Throwable stack;
+
+        /**
+         * Whether the leak was reported or not
+         */
+        public volatile boolean reported = false;
+    }
+}
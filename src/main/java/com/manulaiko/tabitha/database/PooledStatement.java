@@ -0,0 +1,267 @@
+package com.manulaiko.tabitha.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+
+import java.util.ArrayList;
+
+/**
+ * Pooled statement class
+ *
+ * A {@see java.sql.PreparedStatement} proxy that isn't bound to a
+ * database connection.
+ *
+ * Parameters set with the `setX` methods are recorded. When the
+ * statement is executed a connection is borrowed from the pool, the
+ * real statement is prepared, the parameters are replayed and, once
+ * it's executed, the connection is released. Result sets and generated
+ * keys are returned as {@see com.manulaiko.tabitha.database.CachedResultSet}.
+ *
+ * This lets the code written for a single connection, that prepares
+ * statements and never closes them, use a pool without changes.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.tabitha.database
+ */
+public class PooledStatement implements InvocationHandler
+{
+    /**
+     * Database connection
+     */
+    private Connection _connection;
+
+    /**
+     * SQL query
+     */
+    private String _query;
+
+    /**
+     * Recorded `setX` calls
+     */
+    private ArrayList<Call> _parameters = new ArrayList<>();
+
+    /**
+     * Recorded batches
+     */
+    private ArrayList<ArrayList<Call>> _batches = new ArrayList<>();
+
+    /**
+     * Result of the last execution
+     */
+    private ResultSet _result;
+
+    /**
+     * Generated keys of the last execution
+     */
+    private ResultSet _generatedKeys;
+
+    /**
+     * Update count of the last execution
+     */
+    private int _updateCount = -1;
+
+    /**
+     * Creates a pooled statement
+     *
+     * @param connection Database connection
+     * @param query      SQL query
+     *
+     * @return Statement proxy
+     */
+    public static PreparedStatement create(Connection connection, String query)
+    {
+        PooledStatement statement = new PooledStatement();
+        statement._connection     = connection;
+        statement._query          = query;
+
+        return (PreparedStatement)Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(),
+            new Class<?>[]{PreparedStatement.class},
+            statement
+        );
+    }
+
+    /**
+     * Handles a method call on the proxy
+     *
+     * @param proxy  Proxy instance
+     * @param method Called method
+     * @param args   Arguments
+     *
+     * @return Method result
+     *
+     * @throws Throwable If the method isn't supported or the query failed
+     */
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        String name = method.getName();
+
+        if(name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+            this._parameters.add(new Call(method, args));
+
+            return null;
+        }
+
+        switch(name) {
+            case "executeQuery":
+            case "executeUpdate":
+            case "execute":
+            case "executeBatch":
+                if(args != null && args.length > 0) {
+                    throw new SQLFeatureNotSupportedException("Pooled statements can only execute their prepared query");
+                }
+
+                return this._execute(name);
+
+            case "addBatch":
+                this._batches.add(new ArrayList<>(this._parameters));
+
+                return null;
+
+            case "clearBatch":
+                this._batches.clear();
+
+                return null;
+
+            case "clearParameters":
+                this._parameters.clear();
+
+                return null;
+
+            case "getResultSet":
+                return this._result;
+
+            case "getGeneratedKeys":
+                return this._generatedKeys;
+
+            case "getUpdateCount":
+                return this._updateCount;
+
+            case "close":
+            case "closeOnCompletion":
+                return null;
+
+            case "isClosed":
+                return false;
+
+            case "toString":
+                return "PooledStatement("+ this._query +")";
+
+            case "hashCode":
+                return System.identityHashCode(proxy);
+
+            case "equals":
+                return proxy == args[0];
+        }
+
+        throw new SQLFeatureNotSupportedException("PooledStatement doesn't support "+ name);
+    }
+
+    /**
+     * Executes the statement on a borrowed connection
+     *
+     * @param name Name of the execute method
+     *
+     * @return Execution result
+     *
+     * @throws Throwable If the query failed
+     */
+    private Object _execute(String name) throws Throwable
+    {
+        java.sql.Connection connection = this._connection.borrow();
+
+        try(PreparedStatement statement = connection.prepareStatement(this._query, Statement.RETURN_GENERATED_KEYS)) {
+            Object result;
+
+            if(name.equals("executeBatch")) {
+                for(ArrayList<Call> batch : this._batches) {
+                    PooledStatement._replay(statement, batch);
+                    statement.addBatch();
+                }
+                this._batches.clear();
+
+                result = statement.executeBatch();
+            } else {
+                PooledStatement._replay(statement, this._parameters);
+
+                result = PreparedStatement.class.getMethod(name).invoke(statement);
+            }
+
+            this._result      = null;
+            this._updateCount = statement.getUpdateCount();
+
+            if(result instanceof ResultSet) {
+                this._result = CachedResultSet.copy((ResultSet)result);
+
+                return this._result;
+            }
+            if(name.equals("execute") && (Boolean)result) {
+                this._result = CachedResultSet.copy(statement.getResultSet());
+            }
+            if(!name.equals("executeQuery")) {
+                this._generatedKeys = CachedResultSet.copy(statement.getGeneratedKeys());
+            }
+
+            return result;
+        } catch(InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            this._connection.release(connection);
+        }
+    }
+
+    /**
+     * Replays recorded `setX` calls on a statement
+     *
+     * @param statement Statement
+     * @param calls     Recorded calls
+     *
+     * @throws Throwable If a parameter couldn't be set
+     */
+    private static void _replay(PreparedStatement statement, ArrayList<Call> calls) throws Throwable
+    {
+        for(Call call : calls) {
+            call.method.invoke(statement, call.args);
+        }
+    }
+
+    /**
+     * Recorded method call
+     *
+     * @author Manulaiko <manulaiko@gmail.com>
+     *
+     * @package com.manulaiko.tabitha.database
+     */
+    private static class Call
+    {
+        /**
+         * Method
+         */
+        public Method method;
+
+        /**
+         * Arguments
+         */
+        public Object[] args;
+
+        /**
+         * Constructor
+         *
+         * @param method Method
+         * @param args   Arguments
+         */
+        public Call(Method method, Object[] args)
+        {
+            this.method = method;
+            this.args   = args;
+        }
+    }
+}
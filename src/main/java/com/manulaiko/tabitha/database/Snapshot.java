@@ -0,0 +1,402 @@
+package com.manulaiko.tabitha.database;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.math.BigDecimal;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot class
+ *
+ * Binary copy of some database tables stored in a file, so they can
+ * be loaded again without querying the database.
+ *
+ * The file starts with a header that has the format version and a
+ * checksum given by the application (for example, of the schema of the
+ * tables), followed by the rows of each table. Values are stored with
+ * their type, so they're read back as the same Java objects the driver
+ * returned.
+ *
+ * The file is memory-mapped when it's opened, and the rows of a table
+ * are only decoded when they're read.
+ *
+ * Example:
+ *
+ *     Snapshot.write(new File("static.snapshot"), checksum, connection, "items", "levels");
+ *
+ *     Snapshot snapshot = Snapshot.open(new File("static.snapshot"), checksum);
+ *     if(snapshot != null) {
+ *         snapshot.forEach("items", result -> {
+ *             result.getInt("id");
+ *         });
+ *     }
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.tabitha.database
+ */
+public class Snapshot
+{
+    /**
+     * First bytes of a snapshot file
+     */
+    public static final int MAGIC = 0x54534E50;
+
+    /**
+     * Version of the file format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Value types
+     */
+    private static final byte _NULL    = 0;
+    private static final byte _INT     = 1;
+    private static final byte _LONG    = 2;
+    private static final byte _DOUBLE  = 3;
+    private static final byte _BOOLEAN = 4;
+    private static final byte _STRING  = 5;
+    private static final byte _BYTES   = 6;
+
+    /**
+     * Time when the snapshot was written
+     */
+    public long created;
+
+    /**
+     * Content of each table
+     */
+    private HashMap<String, ByteBuffer> _tables = new HashMap<>();
+
+    /**
+     * Writes a snapshot of some tables
+     *
+     * The snapshot is written to a temporary file that replaces the
+     * old one once it's complete, so a crash while writing doesn't
+     * leave a broken snapshot.
+     *
+     * @param file       Snapshot file
+     * @param checksum   Checksum stored in the header
+     * @param connection Database connection
+     * @param tables     Tables to copy
+     *
+     * @throws SQLException If a table couldn't be read
+     * @throws IOException  If the file couldn't be written
+     */
+    public static void write(File file, long checksum, Connection connection, String... tables) throws SQLException, IOException
+    {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream      out  = new DataOutputStream(data);
+
+        for(String table : tables) {
+            byte[] content = Snapshot._table(connection, table);
+
+            out.writeUTF(table);
+            out.writeInt(content.length);
+            out.write(content);
+        }
+        out.flush();
+
+        byte[] bytes = data.toByteArray();
+        CRC32  crc   = new CRC32();
+        crc.update(bytes);
+
+        File temporary = new File(file.getPath() +".tmp");
+
+        try(DataOutputStream header = new DataOutputStream(new FileOutputStream(temporary))) {
+            header.writeInt(Snapshot.MAGIC);
+            header.writeInt(Snapshot.VERSION);
+            header.writeLong(checksum);
+            header.writeLong(System.currentTimeMillis());
+            header.writeLong(crc.getValue());
+            header.writeInt(tables.length);
+            header.write(bytes);
+        }
+
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens a snapshot
+     *
+     * @param file     Snapshot file
+     * @param checksum Expected checksum
+     *
+     * @return The snapshot, null if the file doesn't exist, is broken or
+     *         has another version or checksum
+     */
+    public static Snapshot open(File file, long checksum)
+    {
+        if(!file.isFile()) {
+            return null;
+        }
+
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if(
+                buffer.remaining() < 36             ||
+                buffer.getInt() != Snapshot.MAGIC   ||
+                buffer.getInt() != Snapshot.VERSION ||
+                buffer.getLong() != checksum
+            ) {
+                return null;
+            }
+
+            Snapshot snapshot = new Snapshot();
+            snapshot.created  = buffer.getLong();
+
+            long expected = buffer.getLong();
+            int  tables   = buffer.getInt();
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if(crc.getValue() != expected) {
+                return null;
+            }
+
+            for(int i = 0; i < tables; i++) {
+                String     name    = Snapshot._string(buffer, buffer.getShort() & 0xFFFF);
+                int        length  = buffer.getInt();
+                ByteBuffer content = buffer.slice();
+
+                content.limit(length);
+                buffer.position(buffer.position() + length);
+
+                snapshot._tables.put(name, content);
+            }
+
+            return snapshot;
+        } catch(Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether the snapshot has a table or not
+     *
+     * @param table Table name
+     *
+     * @return True if the table is in the snapshot, false if not
+     */
+    public boolean has(String table)
+    {
+        return this._tables.containsKey(table);
+    }
+
+    /**
+     * Handles each row of a table
+     *
+     * @param table   Table name
+     * @param handler Row handler
+     *
+     * @throws SQLException If the table isn't in the snapshot or the handler failed
+     */
+    public void forEach(String table, IRowHandler handler) throws SQLException
+    {
+        ByteBuffer content = this._tables.get(table);
+        if(content == null) {
+            throw new SQLException("Table '"+ table +"' isn't in the snapshot");
+        }
+
+        ByteBuffer buffer = content.duplicate();
+
+        String[] columns = new String[buffer.getInt()];
+        for(int i = 0; i < columns.length; i++) {
+            columns[i] = Snapshot._string(buffer, buffer.getShort() & 0xFFFF);
+        }
+
+        int                 amount = buffer.getInt();
+        ArrayList<Object[]> rows   = new ArrayList<>(amount);
+        for(int i = 0; i < amount; i++) {
+            Object[] row = new Object[columns.length];
+
+            for(int j = 0; j < columns.length; j++) {
+                row[j] = Snapshot._read(buffer);
+            }
+
+            rows.add(row);
+        }
+
+        ResultSet result = CachedResultSet.create(columns, rows);
+        while(result.next()) {
+            handler.handle(result);
+        }
+    }
+
+    /**
+     * Copies the rows of a table
+     *
+     * @param connection Database connection
+     * @param table      Table name
+     *
+     * @return Table content
+     *
+     * @throws SQLException If the table couldn't be read
+     */
+    private static byte[] _table(Connection connection, String table) throws SQLException
+    {
+        ByteArrayOutputStream rows   = new ByteArrayOutputStream();
+        DataOutputStream      out    = new DataOutputStream(rows);
+        ArrayList<String>     labels = new ArrayList<>();
+        int[]                 amount = {0};
+
+        connection.stream("SELECT * FROM `"+ table +"`", result -> {
+            ResultSetMetaData metaData = result.getMetaData();
+
+            if(labels.isEmpty()) {
+                for(int i = 1; i <= metaData.getColumnCount(); i++) {
+                    labels.add(metaData.getColumnLabel(i));
+                }
+            }
+
+            try {
+                for(int i = 1; i <= labels.size(); i++) {
+                    Snapshot._write(out, result.getObject(i));
+                }
+            } catch(IOException e) {
+                throw new SQLException(e);
+            }
+
+            amount[0]++;
+        });
+
+        try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream(rows.size() + 1024);
+            DataOutputStream      header  = new DataOutputStream(content);
+
+            header.writeInt(labels.size());
+            for(String label : labels) {
+                header.writeUTF(label);
+            }
+            header.writeInt(amount[0]);
+            header.flush();
+
+            rows.writeTo(content);
+
+            return content.toByteArray();
+        } catch(IOException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    /**
+     * Writes a value with its type
+     *
+     * Types without their own code are written as strings.
+     *
+     * @param out   Output stream
+     * @param value Value to write
+     *
+     * @throws IOException If the value couldn't be written
+     */
+    private static void _write(DataOutputStream out, Object value) throws IOException
+    {
+        if(value == null) {
+            out.writeByte(Snapshot._NULL);
+        } else if(value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(Snapshot._INT);
+            out.writeInt(((Number)value).intValue());
+        } else if(value instanceof Long) {
+            out.writeByte(Snapshot._LONG);
+            out.writeLong((Long)value);
+        } else if(value instanceof Double || value instanceof Float) {
+            out.writeByte(Snapshot._DOUBLE);
+            out.writeDouble(((Number)value).doubleValue());
+        } else if(value instanceof Boolean) {
+            out.writeByte(Snapshot._BOOLEAN);
+            out.writeBoolean((Boolean)value);
+        } else if(value instanceof byte[]) {
+            out.writeByte(Snapshot._BYTES);
+            out.writeInt(((byte[])value).length);
+            out.write((byte[])value);
+        } else {
+            String str = (value instanceof BigDecimal) ? ((BigDecimal)value).toPlainString() : value.toString();
+            byte[] utf = str.getBytes(StandardCharsets.UTF_8);
+
+            out.writeByte(Snapshot._STRING);
+            out.writeInt(utf.length);
+            out.write(utf);
+        }
+    }
+
+    /**
+     * Reads a value written by `_write`
+     *
+     * @param buffer Buffer positioned on the value
+     *
+     * @return Value
+     *
+     * @throws SQLException If the type is unknown
+     */
+    private static Object _read(ByteBuffer buffer) throws SQLException
+    {
+        byte type = buffer.get();
+
+        switch(type) {
+            case Snapshot._NULL:
+                return null;
+
+            case Snapshot._INT:
+                return buffer.getInt();
+
+            case Snapshot._LONG:
+                return buffer.getLong();
+
+            case Snapshot._DOUBLE:
+                return buffer.getDouble();
+
+            case Snapshot._BOOLEAN:
+                return buffer.get() != 0;
+
+            case Snapshot._STRING:
+                return Snapshot._string(buffer, buffer.getInt());
+
+            case Snapshot._BYTES:
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+
+                return bytes;
+        }
+
+        throw new SQLException("Unknown snapshot value type "+ type);
+    }
+
+    /**
+     * Reads an UTF-8 string
+     *
+     * Table and column names are written with `writeUTF`, its modified
+     * UTF-8 only differs for characters they don't have.
+     *
+     * @param buffer Buffer positioned on the string
+     * @param length Length in bytes
+     *
+     * @return String
+     */
+    private static String _string(ByteBuffer buffer, int length)
+    {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,131 @@
+package com.manulaiko.tabitha.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Statement cache class
+ *
+ * Keeps the prepared statements of a database connection, keyed by
+ * their SQL text, so each query is prepared once per connection.
+ *
+ * Statements are taken out of the cache while they're being used and
+ * put back once the result set is closed. A thread that asks for a
+ * query that is already in use (for example, a nested lookup of the
+ * same table while iterating it) gets a cache miss and prepares its
+ * own statement, which is closed when put back if the cache already
+ * has one.
+ *
+ * The least recently used statements are closed once the cache is full.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.tabitha.database
+ */
+public class StatementCache
+{
+    /**
+     * Default max amount of statements per connection
+     */
+    public static final int DEFAULT_SIZE = 64;
+
+    /**
+     * Max amount of statements
+     */
+    private int _size;
+
+    /**
+     * Statements by SQL text, least recently used first
+     */
+    private LinkedHashMap<String, PreparedStatement> _statements;
+
+    /**
+     * Constructor
+     *
+     * @param size Max amount of statements
+     */
+    public StatementCache(int size)
+    {
+        this._size       = Math.max(1, size);
+        this._statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest)
+            {
+                if(this.size() <= StatementCache.this._size) {
+                    return false;
+                }
+
+                StatementCache._close(eldest.getValue());
+
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Takes a statement out of the cache
+     *
+     * @param query SQL query
+     *
+     * @return Cached statement, null if there's none
+     */
+    public synchronized PreparedStatement take(String query)
+    {
+        return this._statements.remove(query);
+    }
+
+    /**
+     * Puts a statement back in the cache
+     *
+     * @param query     SQL query
+     * @param statement Prepared statement
+     */
+    public synchronized void put(String query, PreparedStatement statement)
+    {
+        if(this._statements.containsKey(query)) {
+            StatementCache._close(statement);
+
+            return;
+        }
+
+        this._statements.put(query, statement);
+    }
+
+    /**
+     * Returns the amount of cached statements
+     *
+     * @return Amount of cached statements
+     */
+    public synchronized int getAmount()
+    {
+        return this._statements.size();
+    }
+
+    /**
+     * Closes all cached statements
+     */
+    public synchronized void close()
+    {
+        for(PreparedStatement statement : this._statements.values()) {
+            StatementCache._close(statement);
+        }
+
+        this._statements.clear();
+    }
+
+    /**
+     * Closes a statement
+     *
+     * @param statement Statement to close
+     */
+    private static void _close(PreparedStatement statement)
+    {
+        try {
+            statement.close();
+        } catch(SQLException e) {
+            //Empty
+        }
+    }
+}
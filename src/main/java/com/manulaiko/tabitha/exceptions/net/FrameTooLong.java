@@ -0,0 +1,31 @@
+package com.manulaiko.tabitha.exceptions.net;
+
+/**
+ * Frame too long exception
+ *
+ * Occurs when a received packet exceeds the max frame size
+ * before its delimiter arrives.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.tabitha.exceptions.net
+ */
+public class FrameTooLong extends Exception
+{
+    /**
+     * Max frame size
+     */
+    public int maxSize = 0;
+
+    /**
+     * Constructor
+     *
+     * @param maxSize Max frame size
+     */
+    public FrameTooLong(int maxSize)
+    {
+        super("Received a packet longer than "+ maxSize +" bytes");
+
+        this.maxSize = maxSize;
+    }
+}
@@ -1,24 +1,114 @@
 package com.manulaiko.tabitha.net;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 import java.net.Socket;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
 import com.manulaiko.tabitha.Console;
+import com.manulaiko.tabitha.exceptions.net.FrameTooLong;
 
 /**
  * Connection class
  *
- * This class is used when the server accepts a connection
+ * This class is used when the server accepts a connection.
+ *
+ * Depending on the transport of the server that accepted the socket
+ * the connection works in one of these modes:
+ *  * Blocking: a thread is started that executes `run`, which reads
+ *    the socket input stream. The thread is created by the server's
+ *    {@see com.manulaiko.tabitha.net.ReaderThreads} so it can be a virtual thread.
+ *  * Non-blocking: the socket channel is registered on an
+ *    {@see com.manulaiko.tabitha.net.EventLoop} that calls
+ *    {@see com.manulaiko.tabitha.net.Connection#onRead} each time data arrives.
+ *
+ * In both modes the received bytes are split in packets by a
+ * {@see com.manulaiko.tabitha.net.FrameDecoder} which calls
+ * {@see com.manulaiko.tabitha.net.Connection#onFrame}. By default the frame
+ * is decoded as an UTF-8 string and passed to
+ * {@see com.manulaiko.tabitha.net.Connection#onPacket}, subclasses can
+ * override `onFrame` to parse the bytes directly.
+ *
+ * Connections exceeding the max frame size are closed.
+ *
+ * Written packets are batched: they're appended to a buffer that is
+ * written to the socket with a single call when
+ * {@see com.manulaiko.tabitha.net.Connection#flush} is called, when the buffer
+ * reaches the max batch size or when the max latency passes. The connection
+ * flushes after handling each chunk of received data, so all the packets
+ * sent while handling it are coalesced. Code sending packets outside a
+ * handler (like a simulation tick) should call `flush` when it's done.
+ * A max latency of 0 disables batching.
+ *
+ * Batches whose max latency passed are flushed by a single shared timer
+ * thread. It never writes to a socket itself: non-blocking connections
+ * only hand the batch to their event loop, and blocking connections are
+ * flushed in a writer thread, so a slow client only delays its own packets.
+ *
+ * The batch is guarded by a `ReentrantLock` instead of a monitor, because
+ * socket writes are done while holding it and a virtual thread blocked
+ * inside a `synchronized` block pins its carrier thread.
+ *
+ * Handlers that reply once a future completes (like a load in a database
+ * thread) use {@see com.manulaiko.tabitha.net.Connection#reply}, so their
+ * replies are sent in the order their packets were received even if the
+ * futures complete in another order. Replies of packets handled right
+ * away aren't delayed by them.
+ *
+ * Reading starts once the server adds the connection with
+ * {@see com.manulaiko.tabitha.net.Server#addConnection}.
  *
  * @author Manulaiko <manulaiko@gmail.com>
  *
  * @package com.manulaiko.tabitha.net
  */
-public abstract class Connection extends Thread
+public abstract class Connection extends Thread implements FrameDecoder.Handler
 {
+    /**
+     * Size of the read buffer of blocking connections
+     */
+    public static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Flushes batches whose max latency passed
+     */
+    private static final ScheduledExecutorService _scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Connection-Flusher");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    /**
+     * Flushes the batches of blocking connections whose max latency passed
+     *
+     * Threads are reused and only created while the existing ones are
+     * blocked writing, at most one for each connection.
+     */
+    private static final ExecutorService _writers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Connection-Writer");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
     /**
      * Connection ID
      */
@@ -29,11 +119,104 @@ public abstract class Connection extends Thread
      */
     protected Socket _socket;
 
+    /**
+     * Socket channel, only set for non-blocking connections
+     */
+    protected SocketChannel _channel;
+
+    /**
+     * Event loop that drives this connection, only set for non-blocking connections
+     */
+    protected EventLoop _eventLoop;
+
     /**
      * Thread object
      */
     protected Thread _thread;
 
+    /**
+     * Socket output stream, only set for blocking connections
+     */
+    private OutputStream _out;
+
+    /**
+     * Frame decoder
+     */
+    protected FrameDecoder _decoder = new FrameDecoder(this);
+
+    /**
+     * UTF-8 bytes of the characters being written, reused between writes
+     */
+    private byte[] _encoded = new byte[256];
+
+    /**
+     * Lock for `_encoded`
+     */
+    private final ReentrantLock _encodedLock = new ReentrantLock();
+
+    /**
+     * Packets waiting to be flushed
+     */
+    private byte[] _batch = new byte[1024];
+
+    /**
+     * Amount of bytes in `_batch`
+     */
+    private int _batchLength = 0;
+
+    /**
+     * Amount of packets in `_batch`
+     */
+    private int _batchPackets = 0;
+
+    /**
+     * Whether a flush is scheduled or not
+     */
+    private boolean _isFlushScheduled = false;
+
+    /**
+     * Lock for the batch and the socket output stream
+     */
+    private final ReentrantLock _batchLock = new ReentrantLock();
+
+    /**
+     * Size in bytes that makes a batch to be flushed
+     */
+    protected int _maxBatchSize = 8192;
+
+    /**
+     * Max time in milliseconds a packet waits in the batch, 0 disables batching
+     */
+    protected long _maxLatency = 0;
+
+    /**
+     * Amount of flushes
+     *
+     * The flush counters are only written with `_batchLock` held, and
+     * are volatile so the status command reads their last values.
+     */
+    protected volatile long _flushes = 0;
+
+    /**
+     * Amount of flushed packets
+     */
+    protected volatile long _flushedPackets = 0;
+
+    /**
+     * Amount of flushed bytes
+     */
+    protected volatile long _flushedBytes = 0;
+
+    /**
+     * Completed once the last reply has run
+     */
+    private AtomicReference<CompletableFuture<Void>> _replies = new AtomicReference<>(CompletableFuture.completedFuture(null));
+
+    /**
+     * Data waiting to be written by the event loop
+     */
+    ConcurrentLinkedQueue<ByteBuffer> _outbound = new ConcurrentLinkedQueue<>();
+
     /**
      * Constructor
      *
@@ -41,14 +224,393 @@ public abstract class Connection extends Thread
      */
     public Connection(Socket socket)
     {
-        this._socket = socket;
+        this._socket  = socket;
+        this._channel = socket.getChannel();
+    }
+
+    /**
+     * Sets max frame size
+     *
+     * @param maxFrameSize Max size of a packet in bytes
+     */
+    public void setMaxFrameSize(int maxFrameSize)
+    {
+        this._decoder.setMaxSize(maxFrameSize);
+    }
+
+    /**
+     * Sets batching limits
+     *
+     * @param maxBatchSize Size in bytes that makes a batch to be flushed
+     * @param maxLatency   Max time in milliseconds a packet waits in the batch, 0 disables batching
+     */
+    public void setBatching(int maxBatchSize, long maxLatency)
+    {
+        this._batchLock.lock();
+        try {
+            this._maxBatchSize = maxBatchSize;
+            this._maxLatency   = maxLatency;
+        } finally {
+            this._batchLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the amount of flushes
+     *
+     * @return Amount of flushes
+     */
+    public long getFlushes()
+    {
+        return this._flushes;
+    }
+
+    /**
+     * Returns the amount of flushed packets
+     *
+     * @return Amount of flushed packets
+     */
+    public long getFlushedPackets()
+    {
+        return this._flushedPackets;
     }
 
     /**
-     * Closes the socket
+     * Returns the amount of flushed bytes
+     *
+     * @return Amount of flushed bytes
+     */
+    public long getFlushedBytes()
+    {
+        return this._flushedBytes;
+    }
+
+    /**
+     * Checks whether this connection is driven by an event loop or not
+     *
+     * @return True if connection is non-blocking, false if not
+     */
+    public boolean isNonBlocking()
+    {
+        return this._channel != null;
+    }
+
+    /**
+     * Starts reading packets
+     *
+     * Blocking connections start a thread that executes `run`,
+     * non-blocking connections are registered on given event loop.
+     *
+     * @param eventLoop Event loop that will drive the connection (ignored for blocking connections)
+     * @param threads   Factory for the reader thread (ignored for non-blocking connections)
+     *
+     * @throws IOException If the connection couldn't be started
+     */
+    public void listen(EventLoop eventLoop, ThreadFactory threads) throws IOException
+    {
+        if(this.isNonBlocking()) {
+            this._eventLoop = eventLoop;
+
+            this._channel.configureBlocking(false);
+            this._eventLoop.register(this);
+
+            return;
+        }
+
+        this._out    = this._socket.getOutputStream();
+        this._thread = threads.newThread(this);
+
+        this._thread.start();
+    }
+
+    /**
+     * Reads the socket input stream until it's closed
+     *
+     * Only used by blocking connections.
+     */
+    public void run()
+    {
+        byte[]     bytes  = new byte[Connection.BUFFER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        try {
+            InputStream in = this._socket.getInputStream();
+
+            int read;
+            while((read = in.read(bytes)) != -1) {
+                buffer.limit(read).position(0);
+
+                if(!this.onRead(buffer)) {
+                    return;
+                }
+            }
+        } catch(IOException e) {
+            Console.println("Couldn't read packet!");
+            Console.println(e.getMessage());
+        }
+
+        this.close();
+    }
+
+    /**
+     * Handles received data
+     *
+     * Splits the data in packets delimited by a null, new line or
+     * return char and calls `onFrame` for each complete packet.
+     *
+     * @param data Received data
+     *
+     * @return False if the connection was closed, true if not
+     */
+    public boolean onRead(ByteBuffer data)
+    {
+        try {
+            this._decoder.decode(data);
+            this.flush();
+
+            return true;
+        } catch(FrameTooLong e) {
+            Console.println(e.getMessage() +", closing connection "+ this.id);
+
+            this.close();
+
+            return false;
+        }
+    }
+
+    /**
+     * Handles a complete frame
+     *
+     * Decodes the frame as an UTF-8 string and calls `onPacket`.
+     *
+     * @param bytes  Array containing the frame
+     * @param offset Index of the first byte of the frame
+     * @param length Length of the frame
+     */
+    public void onFrame(byte[] bytes, int offset, int length)
+    {
+        this.onPacket(new String(bytes, offset, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Handles a complete packet
+     *
+     * @param packet Received packet
+     */
+    public abstract void onPacket(String packet);
+
+    /**
+     * Runs a reply once a future completes
+     *
+     * The reply runs after the replies passed before it, in the thread
+     * that completes the last of them. The next reply runs even if this
+     * one throws.
+     *
+     * @param result Future the reply waits for
+     * @param reply  Called with the result of the future, or with its exception
+     */
+    public <T> void reply(CompletableFuture<T> result, BiConsumer<? super T, ? super Throwable> reply)
+    {
+        CompletableFuture<Void> done     = new CompletableFuture<>();
+        CompletableFuture<Void> previous = this._replies.getAndSet(done);
+
+        previous.thenCompose(ignored -> result.handle((value, e) -> {
+            try {
+                reply.accept(value, e);
+            } catch(Throwable e1) {
+                Console.error("Reply of connection {} failed: {}", this.id, e1.toString());
+            }
+
+            return null;
+        })).whenComplete((ignored, e) -> done.complete(null));
+    }
+
+    /**
+     * Writes a string to the socket
+     *
+     * @param str String to write
+     */
+    protected void write(String str)
+    {
+        byte[] data = str.getBytes(StandardCharsets.UTF_8);
+
+        this._write(data, data.length, false);
+    }
+
+    /**
+     * Writes a sequence of characters to the socket
+     *
+     * The characters are encoded as UTF-8 in a buffer reused between
+     * writes, so builders can be written without creating a string.
+     *
+     * @param chars Characters to write
+     */
+    protected void write(CharSequence chars)
+    {
+        this._encodedLock.lock();
+        try {
+            int length = chars.length();
+            if(this._encoded.length < length * 3) {
+                this._encoded = new byte[Math.max(length * 3, this._encoded.length * 2)];
+            }
+
+            byte[] bytes = this._encoded;
+            int    n     = 0;
+            for(int i = 0; i < length; i++) {
+                char c = chars.charAt(i);
+
+                if(c < 0x80) {
+                    bytes[n++] = (byte)c;
+                } else if(c < 0x800) {
+                    bytes[n++] = (byte)(0xC0 | (c >> 6));
+                    bytes[n++] = (byte)(0x80 | (c & 0x3F));
+                } else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+
+                    bytes[n++] = (byte)(0xF0 | (codePoint >> 18));
+                    bytes[n++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[n++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[n++] = (byte)(0x80 | (codePoint & 0x3F));
+                } else if(Character.isSurrogate(c)) {
+                    bytes[n++] = '?';
+                } else {
+                    bytes[n++] = (byte)(0xE0 | (c >> 12));
+                    bytes[n++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                    bytes[n++] = (byte)(0x80 | (c & 0x3F));
+                }
+            }
+
+            this._write(bytes, n, true);
+        } finally {
+            this._encodedLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the batched packets to the socket
+     */
+    public void flush()
+    {
+        this._batchLock.lock();
+        try {
+            this._isFlushScheduled = false;
+
+            if(this._batchLength == 0) {
+                return;
+            }
+
+            this._flushes++;
+            this._flushedPackets += this._batchPackets;
+            this._flushedBytes   += this._batchLength;
+
+            this._send(this._batch, this._batchLength, true);
+
+            this._batchLength  = 0;
+            this._batchPackets = 0;
+        } finally {
+            this._batchLock.unlock();
+        }
+    }
+
+    /**
+     * Adds bytes to the batch
+     *
+     * If batching is disabled the bytes are sent right away.
+     *
+     * @param data   Bytes to write
+     * @param length Amount of bytes to write
+     * @param copy   Whether `data` is reused by the caller
+     */
+    private void _write(byte[] data, int length, boolean copy)
+    {
+        this._batchLock.lock();
+        try {
+            if(this._maxLatency <= 0) {
+                this._flushes++;
+                this._flushedPackets++;
+                this._flushedBytes += length;
+
+                this._send(data, length, copy);
+
+                return;
+            }
+
+            if(this._batchLength + length > this._maxBatchSize) {
+                this.flush();
+            }
+
+            if(this._batchLength + length > this._batch.length) {
+                this._batch = Arrays.copyOf(this._batch, Math.max(this._batchLength + length, this._batch.length * 2));
+            }
+
+            System.arraycopy(data, 0, this._batch, this._batchLength, length);
+            this._batchLength += length;
+            this._batchPackets++;
+
+            if(this._batchLength >= this._maxBatchSize) {
+                this.flush();
+            } else if(!this._isFlushScheduled) {
+                this._isFlushScheduled = true;
+
+                Connection._scheduler.schedule(this::_scheduledFlush, this._maxLatency, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            this._batchLock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the batch once its max latency passed
+     *
+     * Runs in the shared timer thread, so blocking connections are
+     * flushed in a writer thread instead.
+     */
+    private void _scheduledFlush()
+    {
+        if(this.isNonBlocking()) {
+            this.flush();
+
+            return;
+        }
+
+        Connection._writers.execute(this::flush);
+    }
+
+    /**
+     * Writes bytes to the socket
+     *
+     * Must be called with `_batchLock` held, so writes don't interleave.
+     *
+     * @param data   Bytes to write
+     * @param length Amount of bytes to write
+     * @param copy   Whether `data` is reused by the caller, so the event loop must get a copy
+     */
+    private void _send(byte[] data, int length, boolean copy)
+    {
+        if(this.isNonBlocking()) {
+            this._eventLoop.write(this, ByteBuffer.wrap(copy ? Arrays.copyOf(data, length) : data, 0, length));
+
+            return;
+        }
+
+        try {
+            this._out.write(data, 0, length);
+            this._out.flush();
+        } catch(IOException e) {
+            Console.println("Couldn't write to socket!");
+            Console.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Flushes the batched packets and closes the socket
      */
     public void close()
     {
+        if(!this._socket.isClosed()) {
+            this.flush();
+        }
+
         try {
             this._socket.close();
         } catch(IOException e) {
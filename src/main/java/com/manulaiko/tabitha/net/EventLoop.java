@@ -0,0 +1,310 @@
+package com.manulaiko.tabitha.net;
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.manulaiko.tabitha.Console;
+
+/**
+ * Event loop class
+ *
+ * Drives non-blocking connections with a single thread.
+ *
+ * Each loop owns a selector on which the channels of the connections
+ * registered with {@see com.manulaiko.tabitha.net.EventLoop#register}
+ * are polled for incoming data. When a channel is readable the
+ * received bytes are handed to {@see com.manulaiko.tabitha.net.Connection#onRead}.
+ *
+ * Outgoing data is queued with {@see com.manulaiko.tabitha.net.EventLoop#write}
+ * from any thread and written by the loop thread once the channel accepts it.
+ *
+ * A server running in non-blocking mode starts a small pool of loops
+ * and spreads its connections among them.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.tabitha.net
+ */
+public class EventLoop implements Runnable
+{
+    /**
+     * Size of the read buffer
+     */
+    public static final int BUFFER_SIZE = 16384;
+
+    /**
+     * Loop name
+     */
+    private String _name;
+
+    /**
+     * Selector
+     */
+    private Selector _selector;
+
+    /**
+     * Thread instance
+     */
+    private Thread _thread;
+
+    /**
+     * Whether the loop is running or not
+     */
+    private volatile boolean _isRunning = false;
+
+    /**
+     * Connections waiting to be registered on the selector
+     */
+    private ConcurrentLinkedQueue<Connection> _registrations = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Connections that have queued data to write
+     */
+    private ConcurrentLinkedQueue<Connection> _writes = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Read buffer, shared by all connections of this loop
+     *
+     * It's a heap buffer so the frame decoder can hand out
+     * slices of its array.
+     */
+    private ByteBuffer _buffer = ByteBuffer.allocate(EventLoop.BUFFER_SIZE);
+
+    /**
+     * Constructor
+     *
+     * @param name Loop name, used as thread name
+     *
+     * @throws IOException If the selector couldn't be opened
+     */
+    public EventLoop(String name) throws IOException
+    {
+        this._name     = name;
+        this._selector = Selector.open();
+    }
+
+    /**
+     * Starts the loop
+     */
+    public void start()
+    {
+        this._isRunning = true;
+
+        this._thread = new Thread(this, this._name);
+        this._thread.setDaemon(true);
+        this._thread.start();
+    }
+
+    /**
+     * Stops the loop and closes all its connections
+     */
+    public void stop()
+    {
+        this._isRunning = false;
+        this._selector.wakeup();
+    }
+
+    /**
+     * Registers a connection on this loop
+     *
+     * The registration is done by the loop thread, so this method can
+     * be called from any thread.
+     *
+     * @param connection Connection to register
+     */
+    public void register(Connection connection)
+    {
+        this._registrations.add(connection);
+        this._selector.wakeup();
+    }
+
+    /**
+     * Queues data to be written to a connection
+     *
+     * @param connection Connection to write to
+     * @param data       Data to write
+     */
+    public void write(Connection connection, ByteBuffer data)
+    {
+        connection._outbound.add(data);
+
+        this._writes.add(connection);
+        this._selector.wakeup();
+    }
+
+    /**
+     * Returns loop name
+     *
+     * @return Loop name
+     */
+    public String getName()
+    {
+        return this._name;
+    }
+
+    /**
+     * Returns the amount of connections registered on this loop
+     *
+     * @return Amount of connections
+     */
+    public int getAmount()
+    {
+        return this._selector.keys().size();
+    }
+
+    /**
+     * Polls the selector until the loop is stopped
+     */
+    public void run()
+    {
+        while(this._isRunning) {
+            try {
+                this._selector.select();
+
+                this._register();
+                this._flush();
+
+                Iterator<SelectionKey> keys = this._selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    this._handle(key);
+                }
+            } catch(IOException e) {
+                Console.println("Event loop "+ this._name +" failed!");
+                Console.println(e.getMessage());
+            }
+        }
+
+        for(SelectionKey key : this._selector.keys()) {
+            ((Connection)key.attachment()).close();
+        }
+
+        try {
+            this._selector.close();
+        } catch(IOException e) {
+            //Empty
+        }
+    }
+
+    /**
+     * Registers pending connections on the selector
+     */
+    private void _register()
+    {
+        Connection connection;
+        while((connection = this._registrations.poll()) != null) {
+            try {
+                connection._channel.register(this._selector, SelectionKey.OP_READ, connection);
+            } catch(IOException e) {
+                Console.println("Couldn't register connection!");
+                Console.println(e.getMessage());
+
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Writes queued data of pending connections
+     */
+    private void _flush()
+    {
+        Connection connection;
+        while((connection = this._writes.poll()) != null) {
+            this._write(connection);
+        }
+    }
+
+    /**
+     * Handles a selected key
+     *
+     * @param key Selected key
+     */
+    private void _handle(SelectionKey key)
+    {
+        Connection connection = (Connection)key.attachment();
+
+        try {
+            if(key.isReadable()) {
+                this._read(connection);
+            }
+
+            if(key.isValid() && key.isWritable()) {
+                this._write(connection);
+            }
+        } catch(CancelledKeyException e) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Reads available data from a connection
+     *
+     * @param connection Connection to read from
+     */
+    private void _read(Connection connection)
+    {
+        try {
+            this._buffer.clear();
+
+            int read = connection._channel.read(this._buffer);
+            if(read < 0) {
+                connection.close();
+
+                return;
+            }
+
+            this._buffer.flip();
+            connection.onRead(this._buffer);
+        } catch(IOException e) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Writes as much queued data as the channel accepts
+     *
+     * If the channel can't accept all the data, the loop will
+     * wait for it to become writable.
+     *
+     * @param connection Connection to write to
+     */
+    private void _write(Connection connection)
+    {
+        SocketChannel channel = connection._channel;
+        SelectionKey  key     = channel.keyFor(this._selector);
+
+        if(key == null || !key.isValid()) {
+            return;
+        }
+
+        try {
+            ByteBuffer data;
+            while((data = connection._outbound.peek()) != null) {
+                channel.write(data);
+
+                if(data.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+
+                    return;
+                }
+
+                connection._outbound.poll();
+            }
+
+            key.interestOps(SelectionKey.OP_READ);
+        } catch(IOException e) {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.manulaiko.tabitha.net;
+
+import java.nio.ByteBuffer;
+
+import com.manulaiko.tabitha.exceptions.net.FrameTooLong;
+
+/**
+ * Frame decoder class
+ *
+ * Splits received bytes in frames delimited by a null, new line
+ * or return char.
+ *
+ * Frames are handed to the {@see com.manulaiko.tabitha.net.FrameDecoder.Handler}
+ * as slices of a byte array, no objects are created per frame:
+ *  * If the frame is complete inside the received buffer and the buffer
+ *    is backed by an array, the slice points to that array.
+ *  * Otherwise the bytes are copied to a reusable array that grows up to
+ *    the max frame size.
+ *
+ * The slice is only valid during the call to the handler, it must be
+ * copied (or decoded into a String) if it's needed later.
+ *
+ * Example:
+ *
+ *     FrameDecoder decoder = new FrameDecoder((bytes, offset, length) -> {
+ *         Console.println(new String(bytes, offset, length, StandardCharsets.UTF_8));
+ *     });
+ *
+ *     decoder.decode(ByteBuffer.wrap("Hello\0World\0".getBytes()));
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.tabitha.net
+ */
+public class FrameDecoder
+{
+    /**
+     * Default max frame size
+     */
+    public static final int DEFAULT_MAX_SIZE = 16384;
+
+    /**
+     * Frame handler
+     */
+    private Handler _handler;
+
+    /**
+     * Max frame size
+     */
+    private int _maxSize = FrameDecoder.DEFAULT_MAX_SIZE;
+
+    /**
+     * Bytes of the frame being received
+     */
+    private byte[] _frame = new byte[256];
+
+    /**
+     * Amount of bytes in `_frame`
+     */
+    private int _length = 0;
+
+    /**
+     * Constructor
+     *
+     * @param handler Frame handler
+     */
+    public FrameDecoder(Handler handler)
+    {
+        this._handler = handler;
+    }
+
+    /**
+     * Sets max frame size
+     *
+     * @param maxSize Max frame size in bytes
+     */
+    public void setMaxSize(int maxSize)
+    {
+        this._maxSize = maxSize;
+    }
+
+    /**
+     * Returns max frame size
+     *
+     * @return Max frame size in bytes
+     */
+    public int getMaxSize()
+    {
+        return this._maxSize;
+    }
+
+    /**
+     * Decodes received bytes
+     *
+     * Calls the handler for each complete frame, the bytes of an
+     * incomplete frame are kept until its delimiter arrives.
+     *
+     * @param data Received bytes
+     *
+     * @throws FrameTooLong If a frame exceeds the max frame size
+     */
+    public void decode(ByteBuffer data) throws FrameTooLong
+    {
+        while(data.hasRemaining()) {
+            int start = data.position();
+            int end   = FrameDecoder._indexOfDelimiter(data, start, data.limit());
+
+            if(end < 0) {
+                this._append(data, start, data.limit());
+                data.position(data.limit());
+
+                return;
+            }
+
+            if(this._length == 0 && data.hasArray()) {
+                if(end - start > this._maxSize) {
+                    throw new FrameTooLong(this._maxSize);
+                }
+
+                if(end > start) {
+                    this._handler.onFrame(data.array(), data.arrayOffset() + start, end - start);
+                }
+            } else {
+                this._append(data, start, end);
+
+                if(this._length > 0) {
+                    int length   = this._length;
+                    this._length = 0;
+
+                    this._handler.onFrame(this._frame, 0, length);
+                }
+            }
+
+            data.position(end + 1);
+        }
+    }
+
+    /**
+     * Discards the bytes of the frame being received
+     */
+    public void reset()
+    {
+        this._length = 0;
+    }
+
+    /**
+     * Copies bytes to the frame being received
+     *
+     * @param data  Received bytes
+     * @param start Index of the first byte to copy
+     * @param end   Index after the last byte to copy
+     *
+     * @throws FrameTooLong If the frame exceeds the max frame size
+     */
+    private void _append(ByteBuffer data, int start, int end) throws FrameTooLong
+    {
+        int length = this._length + (end - start);
+        if(length > this._maxSize) {
+            this._length = 0;
+
+            throw new FrameTooLong(this._maxSize);
+        }
+
+        if(length > this._frame.length) {
+            byte[] frame = new byte[Math.min(Math.max(length, this._frame.length * 2), this._maxSize)];
+            System.arraycopy(this._frame, 0, frame, 0, this._length);
+
+            this._frame = frame;
+        }
+
+        ByteBuffer slice = data.duplicate();
+        slice.limit(end).position(start);
+        slice.get(this._frame, this._length, end - start);
+
+        this._length = length;
+    }
+
+    /**
+     * Finds the next delimiter
+     *
+     * @param data  Bytes to search in
+     * @param start Index to start searching from
+     * @param end   Index to stop searching at
+     *
+     * @return Index of the delimiter, -1 if there's no delimiter
+     */
+    private static int _indexOfDelimiter(ByteBuffer data, int start, int end)
+    {
+        for(int i = start; i < end; i++) {
+            byte b = data.get(i);
+
+            if(b == 0x00 || b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Frame handler
+     *
+     * @author Manulaiko <manulaiko@gmail.com>
+     *
+     * @package com.manulaiko.tabitha.net
+     */
+    public interface Handler
+    {
+        /**
+         * Handles a complete frame
+         *
+         * @param bytes  Array containing the frame
+         * @param offset Index of the first byte of the frame
+         * @param length Length of the frame
+         */
+        void onFrame(byte[] bytes, int offset, int length);
+    }
+}
@@ -0,0 +1,139 @@
+package com.manulaiko.tabitha.net;
+
+import java.lang.reflect.Method;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.manulaiko.tabitha.Console;
+
+/**
+ * Reader threads class
+ *
+ * Creates the threads that run the read loop of blocking connections.
+ *
+ * The constructor accepts as parameter the kind of threads to create:
+ *  * `platform` (default): regular threads, the stack size can be
+ *    lowered with {@see com.manulaiko.tabitha.net.ReaderThreads#setStackSize}
+ *    to hold more idle connections with less memory.
+ *  * `virtual`: virtual threads, a blocked read doesn't hold a platform
+ *    thread so thousands of idle connections cost little memory.
+ *    They're only available when running on Java 21 or newer, on
+ *    older runtimes platform threads are used instead.
+ *
+ * Example:
+ *
+ *     ReaderThreads threads = new ReaderThreads("virtual");
+ *
+ *     threads.newThread(connection).start();
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.tabitha.net
+ */
+public class ReaderThreads implements ThreadFactory
+{
+    /* Start constant definition */
+    public static final String MODE_PLATFORM = "platform";
+    public static final String MODE_VIRTUAL  = "virtual";
+    /* End constant definition */
+
+    /**
+     * Virtual thread factory, null if virtual threads aren't available
+     */
+    private static ThreadFactory _virtual = ReaderThreads._findVirtualThreadFactory();
+
+    /**
+     * Mode used to create the threads
+     */
+    private String _mode = ReaderThreads.MODE_PLATFORM;
+
+    /**
+     * Stack size of platform threads in bytes, 0 for JVM's default
+     */
+    private long _stackSize = 0;
+
+    /**
+     * Created threads counter, used for naming platform threads
+     */
+    private AtomicInteger _count = new AtomicInteger();
+
+    /**
+     * Constructor
+     *
+     * @param mode Kind of threads to create (`platform` or `virtual`)
+     */
+    public ReaderThreads(String mode)
+    {
+        if(!mode.equalsIgnoreCase(ReaderThreads.MODE_VIRTUAL)) {
+            return;
+        }
+
+        if(ReaderThreads._virtual == null) {
+            Console.println("Virtual threads aren't available on Java "+ System.getProperty("java.version") +", using platform threads.");
+
+            return;
+        }
+
+        this._mode = ReaderThreads.MODE_VIRTUAL;
+    }
+
+    /**
+     * Sets the stack size of platform threads
+     *
+     * @param stackSize Stack size in bytes, 0 for JVM's default
+     */
+    public void setStackSize(long stackSize)
+    {
+        this._stackSize = Math.max(0, stackSize);
+    }
+
+    /**
+     * Returns the mode used to create the threads
+     *
+     * @return `platform` or `virtual`
+     */
+    public String getMode()
+    {
+        return this._mode;
+    }
+
+    /**
+     * Creates a new, not started, thread
+     *
+     * @param runnable Code the thread will run
+     *
+     * @return The thread
+     */
+    public Thread newThread(Runnable runnable)
+    {
+        if(this._mode.equals(ReaderThreads.MODE_VIRTUAL)) {
+            return ReaderThreads._virtual.newThread(runnable);
+        }
+
+        Thread thread = new Thread(null, runnable, "Connection-"+ this._count.incrementAndGet(), this._stackSize);
+        thread.setDaemon(true);
+
+        return thread;
+    }
+
+    /**
+     * Looks up `Thread.ofVirtual().factory()`
+     *
+     * It's done with reflection so the library still builds
+     * and runs on Java 8.
+     *
+     * @return Virtual thread factory or null if not available
+     */
+    private static ThreadFactory _findVirtualThreadFactory()
+    {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+
+            return (ThreadFactory)factory.invoke(builder);
+        } catch(Exception e) {
+            return null;
+        }
+    }
+}
@@ -2,9 +2,12 @@ package com.manulaiko.tabitha.net;
 
 import java.io.IOException;
 
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 
+import java.nio.channels.ServerSocketChannel;
+
 import java.time.Duration;
 import java.time.Instant;
 
@@ -35,6 +38,20 @@ import com.manulaiko.tabitha.Console;
  * The method {@see com.manulaiko.tabitha.net.Server#stop} stops the server
  * the method {@see com.manulaiko.tabitha.net.Server#showStatus} shows the status of the server
  *
+ * The transport used by the connections can be changed with
+ * {@see com.manulaiko.tabitha.net.Server#setTransport} before starting the server:
+ *  * `blocking` (default): each connection reads from its own thread.
+ *  * `nio`: connections are non-blocking and are driven by a small pool
+ *    of {@see com.manulaiko.tabitha.net.EventLoop}, the size of the pool is set
+ *    with {@see com.manulaiko.tabitha.net.Server#setEventLoopThreads}.
+ *
+ * In blocking mode the reader threads are created by the factory set with
+ * {@see com.manulaiko.tabitha.net.Server#setReaderThreads}, which can
+ * create virtual threads.
+ *
+ * Both transports accept connections the same way, so `onRunning`
+ * doesn't need to know which one is being used.
+ *
  * Example
  *
  *     public class TestServer extends Server
@@ -66,6 +83,11 @@ import com.manulaiko.tabitha.Console;
  */
 public abstract class Server implements Runnable
 {
+    /* Start constant definition */
+    public static final String TRANSPORT_BLOCKING = "blocking";
+    public static final String TRANSPORT_NIO      = "nio";
+    /* End constant definition */
+
     /**
      * Server port
      */
@@ -101,6 +123,41 @@ public abstract class Server implements Runnable
      */
     protected HashMap<Integer, Connection> _connections = new HashMap<>();
 
+    /**
+     * Transport used by the connections
+     */
+    protected String _transport = Server.TRANSPORT_BLOCKING;
+
+    /**
+     * Amount of event loops to start in non-blocking mode
+     */
+    protected int _eventLoopThreads = 2;
+
+    /**
+     * Event loops, empty in blocking mode
+     */
+    protected EventLoop[] _eventLoops = new EventLoop[0];
+
+    /**
+     * Max size of a packet in bytes
+     */
+    protected int _maxFrameSize = FrameDecoder.DEFAULT_MAX_SIZE;
+
+    /**
+     * Size in bytes that makes a connection to flush its batch
+     */
+    protected int _maxBatchSize = 8192;
+
+    /**
+     * Max time in milliseconds a packet waits in a batch, 0 disables batching
+     */
+    protected long _maxFlushLatency = 0;
+
+    /**
+     * Factory of the reader threads used in blocking mode
+     */
+    protected ReaderThreads _readerThreads = new ReaderThreads(ReaderThreads.MODE_PLATFORM);
+
     /**
      * Constructor
      *
@@ -109,8 +166,83 @@ public abstract class Server implements Runnable
     public Server(short port)
     {
         this._port = port;
+    }
 
-        this._thread = new Thread(this);
+    /**
+     * Sets the transport used by the connections
+     *
+     * Takes effect next time the server is started.
+     *
+     * @param transport Transport name (`blocking` or `nio`)
+     */
+    public void setTransport(String transport)
+    {
+        if(transport.equalsIgnoreCase(Server.TRANSPORT_NIO)) {
+            this._transport = Server.TRANSPORT_NIO;
+        } else {
+            this._transport = Server.TRANSPORT_BLOCKING;
+        }
+    }
+
+    /**
+     * Sets the amount of event loops used in non-blocking mode
+     *
+     * Takes effect next time the server is started.
+     *
+     * @param threads Amount of event loops
+     */
+    public void setEventLoopThreads(int threads)
+    {
+        this._eventLoopThreads = Math.max(1, threads);
+    }
+
+    /**
+     * Sets the factory of the reader threads used in blocking mode
+     *
+     * Takes effect for connections added after the call.
+     *
+     * @param threads Reader threads factory
+     */
+    public void setReaderThreads(ReaderThreads threads)
+    {
+        this._readerThreads = threads;
+    }
+
+    /**
+     * Sets max frame size
+     *
+     * Connections sending a longer packet are closed.
+     * Takes effect for connections added after the call.
+     *
+     * @param maxFrameSize Max size of a packet in bytes
+     */
+    public void setMaxFrameSize(int maxFrameSize)
+    {
+        this._maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Sets batching limits of the connections
+     *
+     * Takes effect for connections added after the call.
+     *
+     * @param maxBatchSize    Size in bytes that makes a connection to flush its batch
+     * @param maxFlushLatency Max time in milliseconds a packet waits in a batch, 0 disables batching
+     */
+    public void setBatching(int maxBatchSize, long maxFlushLatency)
+    {
+        this._maxBatchSize    = maxBatchSize;
+        this._maxFlushLatency = maxFlushLatency;
+    }
+
+    /**
+     * Checks whether the server uses non-blocking connections or not
+     *
+     * @return True if the server uses the `nio` transport, false if not
+     */
+    public boolean isNonBlocking()
+    {
+        return this._transport.equals(Server.TRANSPORT_NIO);
     }
 
     /**
@@ -120,12 +252,31 @@ public abstract class Server implements Runnable
      */
     public void start() throws IOException
     {
-        this._server    = new ServerSocket(this._port);
+        if(this.isNonBlocking()) {
+            // The channel stays in blocking mode so `acceptConnection` keeps
+            // working, accepted sockets are switched to non-blocking on `addConnection`
+            ServerSocketChannel channel = ServerSocketChannel.open();
+            channel.socket().bind(new InetSocketAddress(this._port));
+
+            this._server     = channel.socket();
+            this._eventLoops = new EventLoop[this._eventLoopThreads];
+
+            for(int i = 0; i < this._eventLoops.length; i++) {
+                this._eventLoops[i] = new EventLoop("EventLoop-"+ this._port +"-"+ i);
+                this._eventLoops[i].start();
+            }
+        } else {
+            this._server     = new ServerSocket(this._port);
+            this._eventLoops = new EventLoop[0];
+        }
+
         this._isRunning = true;
 
+        this._thread = new Thread(this);
         this._thread.start();
 
         this._startTime = Instant.now();
+        this._stopTime  = null;
     }
 
     /**
@@ -135,12 +286,16 @@ public abstract class Server implements Runnable
      */
     public void stop() throws IOException
     {
+        this._isRunning = false;
+        this._stopTime  = Instant.now();
+
+        for(EventLoop loop : this._eventLoops) {
+            loop.stop();
+        }
+
         if(this._server != null) {
             this._server.close();
         }
-
-        this._isRunning = false;
-        this._stopTime  = Instant.now();
     }
 
     /**
@@ -164,6 +319,31 @@ public abstract class Server implements Runnable
         }
 
         Console.println("There are "+ this._connections.size() +" connections to this server.");
+
+        if(this.isNonBlocking()) {
+            for(EventLoop loop : this._eventLoops) {
+                Console.println(loop.getName() +" drives "+ loop.getAmount() +" connections.");
+            }
+        } else {
+            Console.println("Connections are read by "+ this._readerThreads.getMode() +" threads.");
+        }
+
+        long flushes = 0;
+        long packets = 0;
+        long bytes   = 0;
+        for(Connection connection : this._connections.values()) {
+            flushes += connection.getFlushes();
+            packets += connection.getFlushedPackets();
+            bytes   += connection.getFlushedBytes();
+        }
+
+        if(flushes > 0) {
+            Console.println(
+                "Sent "+ packets +" packets in "+ flushes +" writes "+
+                "("+ String.format("%.2f", (double)packets / flushes) +" packets and "+
+                (bytes / flushes) +" bytes per write)."
+            );
+        }
     }
 
     /**
@@ -179,7 +359,7 @@ public abstract class Server implements Runnable
     }
 
     /**
-     * Adds a connection to the array
+     * Adds a connection to the array and starts reading its packets
      *
      * @param connection Connection to add
      *
@@ -190,6 +370,22 @@ public abstract class Server implements Runnable
         this._connections.put(this._connections.size(), connection);
 
         connection.id = this._connections.size();
+        connection.setMaxFrameSize(this._maxFrameSize);
+        connection.setBatching(this._maxBatchSize, this._maxFlushLatency);
+
+        try {
+            EventLoop loop = null;
+            if(connection.isNonBlocking()) {
+                loop = this._eventLoops[connection.id % this._eventLoops.length];
+            }
+
+            connection.listen(loop, this._readerThreads);
+        } catch(IOException e) {
+            Console.println("Couldn't start connection!");
+            Console.println(e.getMessage());
+
+            connection.close();
+        }
 
         return this._connections.size();
     }
@@ -0,0 +1,168 @@
+package com.manulaiko.tabitha.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram class
+ *
+ * Counts recorded values in buckets with fixed upper bounds, so the
+ * distribution of something (like how long a task takes) can be read
+ * without storing every value.
+ *
+ * A value goes to the first bucket whose bound is greater or equal to
+ * it, values greater than the last bound go to an overflow bucket.
+ * Values can be recorded and read from any thread.
+ *
+ * Example:
+ *
+ *     Histogram histogram = new Histogram(1, 5, 10, 50);
+ *
+ *     histogram.record(3);
+ *     histogram.record(70);
+ *
+ *     histogram.percentile(50); // 5
+ *     histogram.getMax();       // 70
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.tabitha.utils
+ */
+public class Histogram
+{
+    /**
+     * Upper bound of each bucket, in ascending order
+     */
+    private long[] _bounds;
+
+    /**
+     * Amount of values in each bucket, the last one is the overflow bucket
+     */
+    private AtomicLongArray _counts;
+
+    /**
+     * Amount of recorded values
+     */
+    private AtomicLong _count = new AtomicLong();
+
+    /**
+     * Sum of recorded values
+     */
+    private AtomicLong _total = new AtomicLong();
+
+    /**
+     * Greatest recorded value
+     */
+    private AtomicLong _max = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param bounds Upper bound of each bucket, in ascending order
+     */
+    public Histogram(long... bounds)
+    {
+        this._bounds = bounds.clone();
+        this._counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    /**
+     * Records a value
+     *
+     * @param value Value to record
+     */
+    public void record(long value)
+    {
+        int bucket = 0;
+        while(bucket < this._bounds.length && value > this._bounds[bucket]) {
+            bucket++;
+        }
+
+        this._counts.incrementAndGet(bucket);
+        this._count.incrementAndGet();
+        this._total.addAndGet(value);
+
+        long max = this._max.get();
+        while(value > max && !this._max.compareAndSet(max, value)) {
+            max = this._max.get();
+        }
+    }
+
+    /**
+     * Returns the amount of recorded values
+     *
+     * @return Amount of recorded values
+     */
+    public long getCount()
+    {
+        return this._count.get();
+    }
+
+    /**
+     * Returns the average of recorded values
+     *
+     * @return Average value, 0 if nothing was recorded
+     */
+    public long getAverage()
+    {
+        long count = this._count.get();
+
+        return (count == 0) ? 0 : this._total.get() / count;
+    }
+
+    /**
+     * Returns the greatest recorded value
+     *
+     * @return Greatest value, 0 if nothing was recorded
+     */
+    public long getMax()
+    {
+        return this._max.get();
+    }
+
+    /**
+     * Returns the bound of the bucket that has a percentile
+     *
+     * @param percentile Percentile, from 0 to 100
+     *
+     * @return Upper bound of the bucket, the greatest recorded value
+     *         if it's in the overflow bucket
+     */
+    public long percentile(double percentile)
+    {
+        long count = this._count.get();
+        if(count == 0) {
+            return 0;
+        }
+
+        long target = (long)Math.ceil(count * percentile / 100);
+        long seen   = 0;
+
+        for(int i = 0; i < this._bounds.length; i++) {
+            seen += this._counts.get(i);
+
+            if(seen >= target) {
+                return this._bounds[i];
+            }
+        }
+
+        return this.getMax();
+    }
+
+    /**
+     * Returns the amount of values of each bucket
+     *
+     * @return Bucket bounds and amounts, like `<=1: 10, <=5: 2, >50: 1`
+     */
+    public String toString()
+    {
+        StringBuilder str = new StringBuilder();
+
+        for(int i = 0; i < this._bounds.length; i++) {
+            str.append("<=").append(this._bounds[i]).append(": ").append(this._counts.get(i)).append(", ");
+        }
+        str.append(">").append(this._bounds[this._bounds.length - 1]).append(": ").append(this._counts.get(this._bounds.length));
+
+        return str.toString();
+    }
+}
@@ -0,0 +1,146 @@
+package com.manulaiko.tabitha.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ring buffer class
+ *
+ * Bounded lock-free queue for many producers and a single consumer.
+ *
+ * Each slot has a sequence number that says whether it can be written
+ * or read, producers claim a slot with a compare and set on the tail,
+ * so `offer` never blocks: it returns false if the buffer is full.
+ * Only one thread may call `poll`.
+ *
+ * Example:
+ *
+ *     RingBuffer<String> buffer = new RingBuffer<>(1024);
+ *
+ *     buffer.offer("Hello");
+ *     buffer.poll(); // "Hello"
+ *     buffer.poll(); // null
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ *
+ * @package com.manulaiko.tabitha.utils
+ */
+public class RingBuffer<T>
+{
+    /**
+     * Slots
+     */
+    private Object[] _slots;
+
+    /**
+     * Sequence number of each slot
+     */
+    private AtomicLongArray _sequences;
+
+    /**
+     * Mask to get the slot of a position
+     */
+    private int _mask;
+
+    /**
+     * Next position to write
+     */
+    private AtomicLong _tail = new AtomicLong();
+
+    /**
+     * Next position to read
+     */
+    private volatile long _head = 0;
+
+    /**
+     * Constructor
+     *
+     * @param capacity Amount of slots, rounded up to a power of two
+     */
+    public RingBuffer(int capacity)
+    {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+
+        this._slots     = new Object[size];
+        this._sequences = new AtomicLongArray(size);
+        this._mask      = size - 1;
+
+        for(int i = 0; i < size; i++) {
+            this._sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element
+     *
+     * @param element Element to add
+     *
+     * @return False if the buffer is full, true if not
+     */
+    public boolean offer(T element)
+    {
+        long position = this._tail.get();
+
+        while(true) {
+            int  slot     = (int)(position & this._mask);
+            long sequence = this._sequences.get(slot);
+
+            if(sequence == position) {
+                if(this._tail.compareAndSet(position, position + 1)) {
+                    this._slots[slot] = element;
+                    this._sequences.lazySet(slot, position + 1);
+
+                    return true;
+                }
+            } else if(sequence < position) {
+                return false;
+            }
+
+            position = this._tail.get();
+        }
+    }
+
+    /**
+     * Removes and returns the oldest element
+     *
+     * @return The oldest element, null if the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T poll()
+    {
+        long position = this._head;
+        int  slot     = (int)(position & this._mask);
+
+        if(this._sequences.get(slot) != position + 1) {
+            return null;
+        }
+
+        T element = (T)this._slots[slot];
+
+        this._slots[slot] = null;
+        this._sequences.lazySet(slot, position + this._slots.length);
+        this._head = position + 1;
+
+        return element;
+    }
+
+    /**
+     * Returns the amount of elements added since the buffer was created
+     *
+     * @return Amount of added elements
+     */
+    public long getWritten()
+    {
+        return this._tail.get();
+    }
+
+    /**
+     * Returns the amount of elements removed since the buffer was created
+     *
+     * @return Amount of removed elements
+     */
+    public long getRead()
+    {
+        return this._head;
+    }
+}
@@ -4,6 +4,9 @@ import java.util.Scanner;
 import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
+import org.json.JSONArray;
+import org.json.JSONException;
+
 /**
  * Contains random methods and objects
  * 
@@ -68,4 +71,47 @@ public class Tools
                                     .nextDouble(min, max + 1);
         }
     };
+
+    /**
+     * Parses a JSON array of integers
+     *
+     * @param json JSON array
+     *
+     * @return Parsed integers
+     *
+     * @throws JSONException If it isn't an array of integers
+     */
+    public static int[] toIntArray(String json) throws JSONException
+    {
+        JSONArray array  = new JSONArray(json);
+        int[]     values = new int[array.length()];
+
+        for(int i = 0; i < values.length; i++) {
+            values[i] = array.getInt(i);
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns the JSON array of some integers
+     *
+     * @param values Integers
+     *
+     * @return JSON array
+     */
+    public static String toJSON(int[] values)
+    {
+        StringBuilder json = new StringBuilder("[");
+
+        for(int i = 0; i < values.length; i++) {
+            if(i > 0) {
+                json.append(',');
+            }
+
+            json.append(values[i]);
+        }
+
+        return json.append(']').toString();
+    }
 }
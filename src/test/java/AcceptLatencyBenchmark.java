@@ -0,0 +1,153 @@
+import java.io.*;
+import java.net.*;
+import java.util.*;
+
+import com.manulaiko.tabitha.net.Connection;
+import com.manulaiko.tabitha.net.ReaderThreads;
+import com.manulaiko.tabitha.net.Server;
+
+/**
+ * AcceptLatencyBenchmark class
+ *
+ * Measures the time from `connect` to the first answered packet on a
+ * blocking server while it holds a number of idle connections, once
+ * per reader threads mode.
+ *
+ * Usage:
+ *
+ *     java AcceptLatencyBenchmark [idle connections] [probes] [port]
+ *
+ * Holding 20k idle connections requires raising `ulimit -n`.
+ * Virtual threads are only used on Java 21 or newer.
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ * @package PACKAGE_NAME
+ */
+public class AcceptLatencyBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        int idle   = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+        int probes = (args.length > 1) ? Integer.parseInt(args[1]) : 500;
+        short port = (args.length > 2) ? Short.parseShort(args[2]) : 9170;
+
+        for(String mode : new String[]{ReaderThreads.MODE_PLATFORM, ReaderThreads.MODE_VIRTUAL}) {
+            ReaderThreads threads = new ReaderThreads(mode);
+            if(!threads.getMode().equals(mode)) {
+                continue;
+            }
+
+            EchoServer server = new EchoServer(port);
+            server.setReaderThreads(threads);
+            server.start();
+
+            System.gc();
+            long memory = AcceptLatencyBenchmark.usedMemory();
+
+            ArrayList<Socket> clients = new ArrayList<>();
+            for(int i = 0; i < idle; i++) {
+                clients.add(new Socket("127.0.0.1", port));
+            }
+            while(server.getAllConnections().size() < idle) {
+                Thread.sleep(10);
+            }
+
+            System.gc();
+            memory = AcceptLatencyBenchmark.usedMemory() - memory;
+
+            // Warm up
+            for(int i = 0; i < 100; i++) {
+                AcceptLatencyBenchmark.probe(port);
+            }
+
+            long[] latencies = new long[probes];
+            for(int i = 0; i < probes; i++) {
+                latencies[i] = AcceptLatencyBenchmark.probe(port);
+            }
+            Arrays.sort(latencies);
+
+            System.out.println(
+                mode +": "+ idle +" idle connections, "+
+                "heap "+ (memory / 1024) +"KB, "+
+                "threads "+ Thread.activeCount() +", "+
+                "p50 "+ (latencies[probes / 2] / 1000) +"us, "+
+                "p99 "+ (latencies[(int)(probes * 0.99)] / 1000) +"us, "+
+                "max "+ (latencies[probes - 1] / 1000) +"us"
+            );
+
+            for(Socket client : clients) {
+                client.close();
+            }
+            server.stop();
+
+            Thread.sleep(500);
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * Connects, sends a packet and waits for the answer
+     *
+     * @param port Server port
+     *
+     * @return Elapsed nanoseconds
+     */
+    private static long probe(short port) throws IOException
+    {
+        long start = System.nanoTime();
+
+        try(Socket socket = new Socket("127.0.0.1", port)) {
+            socket.setTcpNoDelay(true);
+
+            OutputStream out = socket.getOutputStream();
+            out.write("ping\0".getBytes());
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            int b;
+            while((b = in.read()) != -1 && b != 0) {
+                //Empty
+            }
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private static long usedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class EchoServer extends Server
+    {
+        public EchoServer(short port)
+        {
+            super(port);
+        }
+
+        public void onRunning()
+        {
+            try {
+                this.addConnection(new EchoConnection(this.acceptConnection()));
+            } catch(IOException e) {
+                //Empty
+            }
+        }
+    }
+
+    private static class EchoConnection extends Connection
+    {
+        public EchoConnection(Socket socket)
+        {
+            super(socket);
+        }
+
+        public void onPacket(String packet)
+        {
+            this.write(packet +"\0");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import com.manulaiko.blackeye.net.game.utils.PacketParser;
+
+/**
+ * PacketParserBenchmark class
+ *
+ * Compares the list mode (`new PacketParser(String)`) with the index
+ * mode (`PacketParser.wrap`) on a mix of game packets, reporting the
+ * time and the allocated bytes per packet.
+ *
+ * The packets are read the way the handlers read them: the id as a
+ * string and the rest with the typed methods.
+ *
+ * Usage:
+ *
+ *     java PacketParserBenchmark [iterations]
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ * @package PACKAGE_NAME
+ */
+public class PacketParserBenchmark
+{
+    /**
+     * Packet mix, the first char of the type says how each field is read
+     * (s: string, i: int, d: double, b: boolean)
+     */
+    private static final String[][] PACKETS = {
+        {"1|4521|3780|4480|3795",                          "siiii"},  // Movement
+        {"1|10250|6400|10300|6450",                        "siiii"},  // Movement
+        {"a|150003",                                       "si"},     // Select target
+        {"A|SHT|150003|3|1",                               "ssiib"},  // Attack
+        {"S|ROB|1",                                        "ssb"},    // Settings
+        {"LOGIN|7|ab12cd34ef56ab12cd34ef56ab12cd34|1.0.2", "siss"},   // Login
+        {"0",                                              "s"},      // Echo
+        {"T|2|0.85|1",                                     "sidb"},   // Tech
+    };
+
+    private static volatile long _sink;
+
+    public static void main(String[] args) throws Exception
+    {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : 2000000;
+
+        String[] strings = new String[PacketParserBenchmark.PACKETS.length];
+        byte[][] frames  = new byte[PacketParserBenchmark.PACKETS.length][];
+        String[] types   = new String[PacketParserBenchmark.PACKETS.length];
+
+        for(int i = 0; i < strings.length; i++) {
+            strings[i] = PacketParserBenchmark.PACKETS[i][0];
+            frames[i]  = strings[i].getBytes(StandardCharsets.UTF_8);
+            types[i]   = PacketParserBenchmark.PACKETS[i][1];
+
+            PacketParser expected = new PacketParser(strings[i]);
+            PacketParser actual   = new PacketParser();
+            actual.wrap(frames[i], 0, frames[i].length);
+
+            if(PacketParserBenchmark.read(expected, types[i]) != PacketParserBenchmark.read(actual, types[i])) {
+                throw new IllegalStateException("Modes differ on "+ strings[i]);
+            }
+        }
+
+        for(int round = 0; round < 3; round++) {
+            PacketParserBenchmark.list(strings, types, iterations / 10);
+            PacketParserBenchmark.index(frames, types, iterations / 10);
+        }
+
+        PacketParserBenchmark.list(strings, types, iterations);
+        PacketParserBenchmark.index(frames, types, iterations);
+    }
+
+    private static void list(String[] strings, String[] types, int iterations)
+    {
+        long bytes = PacketParserBenchmark.allocatedBytes();
+        long start = System.nanoTime();
+
+        long sink = 0;
+        for(int i = 0; i < iterations; i++) {
+            int n = i % strings.length;
+
+            sink += PacketParserBenchmark.read(new PacketParser(strings[n]), types[n]);
+        }
+
+        PacketParserBenchmark.report("list ", start, bytes, iterations);
+        PacketParserBenchmark._sink = sink;
+    }
+
+    private static void index(byte[][] frames, String[] types, int iterations)
+    {
+        long bytes = PacketParserBenchmark.allocatedBytes();
+        long start = System.nanoTime();
+
+        PacketParser parser = new PacketParser();
+
+        long sink = 0;
+        for(int i = 0; i < iterations; i++) {
+            int n = i % frames.length;
+
+            parser.wrap(frames[n], 0, frames[n].length);
+            sink += PacketParserBenchmark.read(parser, types[n]);
+        }
+
+        PacketParserBenchmark.report("index", start, bytes, iterations);
+        PacketParserBenchmark._sink = sink;
+    }
+
+    private static long read(PacketParser parser, String type)
+    {
+        long sum = 0;
+
+        for(int i = 0; i < type.length(); i++) {
+            switch(type.charAt(i)) {
+                case 's': sum += parser.readString().length();              break;
+                case 'i': sum += parser.readInt();                          break;
+                case 'd': sum += Double.doubleToLongBits(parser.readDouble()); break;
+                case 'b': sum += parser.readBoolean() ? 1 : 0;              break;
+            }
+        }
+
+        return sum;
+    }
+
+    private static void report(String name, long start, long bytes, int iterations)
+    {
+        long time  = System.nanoTime() - start;
+        bytes      = PacketParserBenchmark.allocatedBytes() - bytes;
+
+        System.out.println(name +": "+ (time / iterations) +" ns/packet, "+ (bytes / iterations) +" bytes/packet");
+    }
+
+    private static long allocatedBytes()
+    {
+        return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
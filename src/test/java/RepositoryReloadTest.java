@@ -0,0 +1,96 @@
+import java.util.HashMap;
+
+import com.manulaiko.blackeye.simulator.Repository;
+
+/**
+ * RepositoryReloadTest class
+ *
+ * Loads a table in a repository, changes a row and loads it again, like
+ * `reinitialize_gameManager` does, and checks that the changed row
+ * replaced the instanced object and its index entries. Then checks that
+ * removing an object keeps indexed the others with the same value.
+ *
+ * Usage:
+ *
+ *     java RepositoryReloadTest
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ * @package PACKAGE_NAME
+ */
+public class RepositoryReloadTest extends Repository<RepositoryReloadTest.Row>
+{
+    public static void main(String[] args)
+    {
+        HashMap<Integer, String> table = new HashMap<>();
+        table.put(1, "Phoenix");
+        table.put(2, "Leonov");
+
+        RepositoryReloadTest repository = new RepositoryReloadTest();
+        repository.loadAll(table);
+
+        Row old = repository.find(1);
+
+        table.put(1, "Goliath");
+        repository.loadAll(table);
+
+        Row row = repository.find(1);
+
+        RepositoryReloadTest.check(row != old, "reloaded row is a new object");
+        RepositoryReloadTest.check(row.name.equals("Goliath"), "reloaded row has the new name");
+        RepositoryReloadTest.check(repository.find("name", "Goliath") == row, "new name is indexed");
+        RepositoryReloadTest.check(repository.find("name", "Phoenix") == null, "old name isn't indexed");
+        RepositoryReloadTest.check(repository.find("name", "Leonov") == repository.find(2), "unchanged row is indexed");
+        RepositoryReloadTest.check(repository.getAmount() == 2, "there are 2 rows");
+
+        table.put(3, "Goliath");
+        table.put(4, "Goliath");
+        repository.loadAll(table);
+
+        Row first = repository.find("name", "Goliath");
+        repository.remove(first.id);
+
+        Row next = repository.find("name", "Goliath");
+        RepositoryReloadTest.check(next != null && next != first, "another row with the removed name is indexed");
+
+        repository.remove(next.id);
+        RepositoryReloadTest.check(repository.find("name", "Goliath") != null, "last row with the removed name is indexed");
+
+        repository.remove(repository.find("name", "Goliath").id);
+        RepositoryReloadTest.check(repository.find("name", "Goliath") == null, "removed name isn't indexed");
+
+        System.out.println("All checks passed.");
+    }
+
+    private static void check(boolean condition, String description)
+    {
+        if(!condition) {
+            throw new IllegalStateException("Check failed: "+ description);
+        }
+    }
+
+    public RepositoryReloadTest()
+    {
+        super(r -> r.id);
+
+        this._addIndex("name", r -> r.name);
+    }
+
+    public void loadAll(HashMap<Integer, String> table)
+    {
+        for(java.util.Map.Entry<Integer, String> entry : table.entrySet()) {
+            this._replace(new Row(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    public static class Row
+    {
+        public int    id;
+        public String name;
+
+        public Row(int id, String name)
+        {
+            this.id   = id;
+            this.name = name;
+        }
+    }
+}
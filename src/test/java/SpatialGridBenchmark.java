@@ -0,0 +1,165 @@
+import java.awt.Point;
+import java.util.*;
+
+import com.manulaiko.blackeye.simulator.map.Grid;
+import com.manulaiko.blackeye.simulator.npc.NPC;
+
+/**
+ * SpatialGridBenchmark class
+ *
+ * Compares range and nearest neighbour queries on a map grid against a
+ * scan of all NPCs, with 1k and 10k NPCs on a 20800x12800 map, and
+ * measures how long it takes to update the grid after all NPCs move.
+ *
+ * Results of both are compared, so a wrong grid fails the benchmark.
+ *
+ * Usage:
+ *
+ *     java SpatialGridBenchmark [queries] [range]
+ *
+ * @author Manulaiko <manulaiko@gmail.com>
+ * @package PACKAGE_NAME
+ */
+public class SpatialGridBenchmark
+{
+    public static void main(String[] args)
+    {
+        int queries = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+        int range   = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+
+        Point limits = new Point(20800, 12800);
+
+        for(int amount : new int[]{1000, 10000}) {
+            Random         random = new Random(amount);
+            ArrayList<NPC> npcs   = new ArrayList<>();
+            Grid<NPC>      grid   = new Grid<>(limits, n -> n.position);
+
+            for(int i = 0; i < amount; i++) {
+                NPC npc = new NPC(i, 1, "npc", 1, 1, 0, 1, 300, 0);
+                npc.position = new Point(random.nextInt(limits.x), random.nextInt(limits.y));
+
+                npcs.add(npc);
+                grid.add(npc);
+            }
+
+            Point[] points = new Point[queries];
+            for(int i = 0; i < queries; i++) {
+                points[i] = new Point(random.nextInt(limits.x), random.nextInt(limits.y));
+            }
+
+            // Warm up and check results
+            for(int i = 0; i < 3; i++) {
+                SpatialGridBenchmark.check(grid, npcs, points, range);
+            }
+
+            long found = 0;
+            long start = System.nanoTime();
+            for(Point point : points) {
+                found += SpatialGridBenchmark.bruteRange(npcs, point, range).size();
+            }
+            long bruteRange = (System.nanoTime() - start) / queries;
+
+            start = System.nanoTime();
+            for(Point point : points) {
+                found -= grid.inRange(point, range).size();
+            }
+            long gridRange = (System.nanoTime() - start) / queries;
+
+            start = System.nanoTime();
+            for(Point point : points) {
+                found += SpatialGridBenchmark.distance(SpatialGridBenchmark.bruteNearest(npcs, point, range), point);
+            }
+            long bruteNearest = (System.nanoTime() - start) / queries;
+
+            start = System.nanoTime();
+            for(Point point : points) {
+                found -= SpatialGridBenchmark.distance(grid.nearest(point, range), point);
+            }
+            long gridNearest = (System.nanoTime() - start) / queries;
+
+            // A tick of movement at 300 units per second and 20 ticks per second
+            start = System.nanoTime();
+            for(NPC npc : npcs) {
+                npc.position.translate(random.nextInt(31) - 15, random.nextInt(31) - 15);
+                grid.update(npc);
+            }
+            long update = (System.nanoTime() - start) / amount;
+
+            System.out.println(
+                amount +" NPCs, cell size "+ grid.cellSize +": "+
+                "range brute "+ bruteRange +"ns, grid "+ gridRange +"ns; "+
+                "nearest brute "+ bruteNearest +"ns, grid "+ gridNearest +"ns; "+
+                "update "+ update +"ns per NPC"+
+                ((found != 0) ? " (RESULTS DIFFER)" : "")
+            );
+        }
+    }
+
+    /**
+     * Checks that grid and brute force return the same results
+     */
+    private static void check(Grid<NPC> grid, ArrayList<NPC> npcs, Point[] points, int range)
+    {
+        for(Point point : points) {
+            Set<NPC> expected = Collections.newSetFromMap(new IdentityHashMap<>());
+            expected.addAll(SpatialGridBenchmark.bruteRange(npcs, point, range));
+
+            Set<NPC> actual = Collections.newSetFromMap(new IdentityHashMap<>());
+            actual.addAll(grid.inRange(point, range));
+
+            if(!expected.equals(actual)) {
+                throw new IllegalStateException("Range query differs at "+ point);
+            }
+
+            NPC a = SpatialGridBenchmark.bruteNearest(npcs, point, range);
+            NPC b = grid.nearest(point, range);
+            if(
+                (a == null) != (b == null) ||
+                (a != null && a.position.distanceSq(point) != b.position.distanceSq(point))
+            ) {
+                throw new IllegalStateException("Nearest query differs at "+ point);
+            }
+        }
+    }
+
+    private static long distance(NPC npc, Point point)
+    {
+        return (npc == null) ? -1 : (long)npc.position.distanceSq(point);
+    }
+
+    private static ArrayList<NPC> bruteRange(ArrayList<NPC> npcs, Point point, int range)
+    {
+        ArrayList<NPC> found   = new ArrayList<>();
+        long           squared = (long)range * range;
+
+        for(NPC npc : npcs) {
+            long x = npc.position.x - point.x;
+            long y = npc.position.y - point.y;
+
+            if(x * x + y * y <= squared) {
+                found.add(npc);
+            }
+        }
+
+        return found;
+    }
+
+    private static NPC bruteNearest(ArrayList<NPC> npcs, Point point, int range)
+    {
+        NPC  nearest = null;
+        long best    = (long)range * range;
+
+        for(NPC npc : npcs) {
+            long x = npc.position.x - point.x;
+            long y = npc.position.y - point.y;
+            long d = x * x + y * y;
+
+            if(d <= best) {
+                best    = d;
+                nearest = npc;
+            }
+        }
+
+        return nearest;
+    }
+}